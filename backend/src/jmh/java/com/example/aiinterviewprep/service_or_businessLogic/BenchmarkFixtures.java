@@ -0,0 +1,71 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Shared inputs for the benchmarks: a provider and client that never reach the network, transcripts and response bodies
+final class BenchmarkFixtures {
+
+    static final String ANSWER = "I would put a write-through cache in front of the profile store, keyed by user id, " +
+            "and invalidate on update. For hot keys I'd add request coalescing so a miss only hits the database once.";
+
+    private BenchmarkFixtures() {
+    }
+
+    static OpenAiCompatibleProvider offlineProvider() {
+        ModelClientSettings settings = new ModelClientSettings(16, Duration.ofSeconds(1), 1, Duration.ofMillis(1),
+                Duration.ofMillis(1), Duration.ofSeconds(1), 5, Duration.ofSeconds(30));
+        return new OpenAiCompatibleProvider("openai", "bench-key", "gpt-4o-mini", "http://127.0.0.1:9/v1", false, settings,
+                ModelAdmissionController.unlimited(), new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    static OpenAiClientService offlineClient() {
+        return new OpenAiClientService(ModelRouter.single(offlineProvider(), new SimpleMeterRegistry()),
+                CompletionCache.disabled(), new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    static List<Message> transcript(int size) {
+        List<Message> messages = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.now();
+        for (int index = 0; index < size; index++) {
+            boolean candidate = index % 2 == 1;
+            Message message = new Message(null, candidate ? MessageRole.CANDIDATE : MessageRole.INTERVIEWER,
+                    candidate ? ANSWER : "Good. Next question " + index + ": how would you keep that cache consistent across regions?");
+            message.setId((long) index);
+            message.setCreatedAt(start.plusSeconds(index));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    // A non-streamed chat completion whose content is the given text
+    static String completionBody(String content) {
+        return "{\"id\":\"chatcmpl-bench\",\"object\":\"chat.completion\",\"created\":1700000000,\"model\":\"gpt-4o-mini\"," +
+                "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + escape(content) + "\"}," +
+                "\"finish_reason\":\"stop\"}],\"usage\":{\"prompt_tokens\":812,\"completion_tokens\":164,\"total_tokens\":976}}";
+    }
+
+    // Evaluator JSON with each text field repeated to the given number of sentences
+    static String feedbackJson(int sentences) {
+        return "{\"strengths\":\"" + repeat("Clear structure and good use of concrete examples.", sentences) + "\"," +
+                "\"areasForImprovement\":\"" + repeat("Quantify the trade-offs and discuss failure modes earlier.", sentences) + "\"," +
+                "\"overallComments\":\"" + repeat("A solid session with steady improvement across answers.", sentences) + "\"," +
+                "\"score\":8}";
+    }
+
+    private static String repeat(String sentence, int times) {
+        return String.join(" ", Collections.nCopies(times, sentence));
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.AiInterviewPrepApplication;
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// One full candidate turn through processCandidateMessage: both short transactions and the context
+// manager on the in-memory H2 database, with a zero-latency stub standing in for the model
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversationTurnBenchmark {
+
+    private StubModelServer stubModel;
+    private ConfigurableApplicationContext context;
+    private InterviewConversationService interviewConversationService;
+    private Long sessionId;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        stubModel = new StubModelServer().withReply("Noted. Next question: how would you scale the writes?");
+        context = new SpringApplicationBuilder(AiInterviewPrepApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "openai.api.key=bench-key",
+                        "openai.base-url=" + stubModel.baseUrl(),
+                        "interview.feedback.sweep-interval=PT1H"
+                )
+                .run();
+        interviewConversationService = context.getBean(InterviewConversationService.class);
+    }
+
+    // A fresh session per iteration keeps the transcript length comparable between iterations
+    @Setup(Level.Iteration)
+    public void startSession() {
+        sessionId = interviewConversationService.startSession("Backend Engineer", DifficultyLevel.MEDIUM).getSessionId();
+    }
+
+    @Benchmark
+    public InterviewConversationService.MessageResponse processCandidateMessage() {
+        return interviewConversationService.processCandidateMessage(sessionId, BenchmarkFixtures.ANSWER);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+        stubModel.close();
+    }
+}
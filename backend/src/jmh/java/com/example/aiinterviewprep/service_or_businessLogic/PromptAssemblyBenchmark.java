@@ -0,0 +1,53 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Building the chat/completions payload (and its cache key) for transcripts of 10, 100 and 1000 messages
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptAssemblyBenchmark {
+
+    private static final String SYSTEM_PROMPT = "You are a realistic technical interviewer for a Backend Engineer role. " +
+            "Difficulty level is MEDIUM. For each candidate response: briefly acknowledge it, give concise feedback, " +
+            "then ask the next question. Keep the total response under 140 words.";
+
+    @Param({"10", "100", "1000"})
+    public int messages;
+
+    private OpenAiCompatibleProvider provider;
+    private List<Message> history;
+
+    @Setup
+    public void setUp() {
+        provider = BenchmarkFixtures.offlineProvider();
+        history = BenchmarkFixtures.transcript(messages);
+    }
+
+    @Benchmark
+    public String requestBody() {
+        return provider.requestBody(SYSTEM_PROMPT, null, history, 0, false);
+    }
+
+    @Benchmark
+    public String requestBodyWithCacheKey() {
+        return OpenAiClientService.sha256(provider.requestBody(SYSTEM_PROMPT, null, history, 0, false));
+    }
+}
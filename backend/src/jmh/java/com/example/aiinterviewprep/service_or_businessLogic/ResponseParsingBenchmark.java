@@ -0,0 +1,80 @@
+package com.example.aiinterviewprep.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Jackson handling of provider responses: reading a completion's content, and binding the evaluator's
+// feedback JSON (short, and with every field 40 sentences long). The tree* methods are the previous
+// approach (body buffered as a String, then a JsonNode tree for the completion and another for the
+// feedback), kept as a baseline: compare gc.alloc.rate.norm from the jmh profile's gc profiler.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    @Param({"1", "40"})
+    public int sentences;
+
+    private OpenAiCompatibleProvider provider;
+    private OpenAiClientService client;
+    private ObjectMapper objectMapper;
+    private byte[] completionBytes;
+    private String feedbackJson;
+
+    @Setup
+    public void setUp() {
+        provider = BenchmarkFixtures.offlineProvider();
+        client = BenchmarkFixtures.offlineClient();
+        objectMapper = new ObjectMapper();
+        feedbackJson = BenchmarkFixtures.feedbackJson(sentences);
+        completionBytes = BenchmarkFixtures.completionBody(feedbackJson).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ModelCompletion parseCompletion() {
+        return provider.parseCompletion(new ByteArrayInputStream(completionBytes), 200);
+    }
+
+    @Benchmark
+    public OpenAiClientService.SessionFeedback parseFeedback() {
+        return client.parseFeedback(feedbackJson);
+    }
+
+    // What generateSessionFeedback does with a response: both steps back to back
+    @Benchmark
+    public OpenAiClientService.SessionFeedback parseCompletionAndFeedback() {
+        return client.parseFeedback(provider.parseCompletion(new ByteArrayInputStream(completionBytes), 200).getContent());
+    }
+
+    @Benchmark
+    public OpenAiClientService.SessionFeedback treeCompletionAndFeedback() throws IOException {
+        String body = new String(completionBytes, StandardCharsets.UTF_8);
+        String content = objectMapper.readTree(body).path("choices").get(0).path("message").path("content").asText().trim();
+        JsonNode feedbackNode = objectMapper.readTree(content);
+        OpenAiClientService.SessionFeedback feedback = new OpenAiClientService.SessionFeedback();
+        feedback.setStrengths(feedbackNode.path("strengths").asText().trim());
+        feedback.setAreasForImprovement(feedbackNode.path("areasForImprovement").asText().trim());
+        feedback.setOverallComments(feedbackNode.path("overallComments").asText().trim());
+        feedback.setScore(Math.max(1, Math.min(10, feedbackNode.path("score").asInt(7))));
+        return feedback;
+    }
+}
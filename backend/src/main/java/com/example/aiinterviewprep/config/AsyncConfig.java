@@ -0,0 +1,94 @@
+package com.example.aiinterviewprep.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // Runs streamed interview turns so the servlet thread is released while the model is generating.
+    // In virtual-thread mode every turn gets its own virtual thread instead of a slot in a bounded pool.
+    @Bean(name = "streamingTaskExecutor")
+    public TaskExecutor streamingTaskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("interview-stream-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("interview-stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Off-request work such as context summarization; nothing here is latency-critical
+    @Bean(name = "backgroundTaskExecutor")
+    public TaskExecutor backgroundTaskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("interview-background-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(64);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("interview-background-");
+        executor.initialize();
+        return executor;
+    }
+
+    // End-of-session feedback jobs. A fixed set of workers and a bounded queue in both modes: a full queue
+    // rejects the job rather than blocking the request that ended the session, and the sweep retries it later.
+    @Bean(name = "feedbackTaskExecutor")
+    public TaskExecutor feedbackTaskExecutor(
+            @Value("${interview.feedback.workers:4}") int workers,
+            @Value("${interview.feedback.queue-capacity:1000}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("interview-feedback-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Batch re-scoring (BatchScoringService): jobs run one after another on a single runner thread, and each
+    // runner scores its current chunk on `parallelism` workers; the queue never holds more than one chunk
+    @Bean(name = "scoringJobExecutor")
+    public TaskExecutor scoringJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("interview-scoring-job-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "scoringTaskExecutor")
+    public TaskExecutor scoringTaskExecutor(
+            @Value("${interview.scoring.parallelism:4}") int parallelism,
+            @Value("${interview.scoring.chunk-size:50}") int chunkSize
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(chunkSize);
+        executor.setThreadNamePrefix("interview-scoring-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.aiinterviewprep.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.reflect.Method;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // With spring.main.lazy-initialization=true (profile "startup") beans are created when first used, so the server
+    // accepts connections before the model clients, caches and services behind the endpoints exist. Beans that work
+    // on their own are still created at startup: nothing would ever ask for them, so their sweeps would never be
+    // scheduled and their @PostConstruct setup (joining the cluster, the search schema) would never run.
+    @Bean
+    static LazyInitializationExcludeFilter backgroundBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && runsOnItsOwn(beanType);
+    }
+
+    static boolean runsOnItsOwn(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                isScheduledOrInitializer(method) ? Boolean.TRUE : null).isEmpty();
+    }
+
+    private static boolean isScheduledOrInitializer(Method method) {
+        return AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                || AnnotatedElementUtils.hasAnnotation(method, PostConstruct.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.aiinterviewprep.config;
+
+import com.example.aiinterviewprep.service.ModelAdmissionController;
+import com.example.aiinterviewprep.service.ModelClientSettings;
+import com.example.aiinterviewprep.service.ModelProvider;
+import com.example.aiinterviewprep.service.ModelRouter;
+import com.example.aiinterviewprep.service.ModelRoutingSettings;
+import com.example.aiinterviewprep.service.OpenAiCompatibleProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ModelProviderConfig {
+
+    // Three providers the routes can name: "openai" (openai.* properties), "openai-fast" (a cheaper, faster model on
+    // the same account, sharing its quota) and "local" (any OpenAI-compatible server; left out while its base-url is blank)
+    @Bean(destroyMethod = "close")
+    public ModelRouter modelRouter(
+            @Value("${openai.api.key}") String apiKey,
+            @Value("${openai.model}") String model,
+            @Value("${openai.base-url}") String baseUrl,
+            @Value("${model.fast.model:gpt-4o-mini}") String fastModel,
+            @Value("${model.local.base-url:}") String localBaseUrl,
+            @Value("${model.local.model:llama3.1}") String localModel,
+            @Value("${model.local.api-key:local}") String localApiKey,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            ModelClientSettings clientSettings,
+            ModelRoutingSettings routingSettings,
+            ModelAdmissionController admissionController,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper
+    ) {
+        List<ModelProvider> providers = new ArrayList<>();
+        providers.add(new OpenAiCompatibleProvider("openai", apiKey, model, baseUrl, virtualThreads, clientSettings,
+                admissionController, meterRegistry, objectMapper));
+        providers.add(new OpenAiCompatibleProvider("openai-fast", apiKey, fastModel, baseUrl, virtualThreads, clientSettings,
+                admissionController, meterRegistry, objectMapper));
+        if (!localBaseUrl.isBlank()) {
+            providers.add(new OpenAiCompatibleProvider("local", localApiKey, localModel, localBaseUrl, virtualThreads, clientSettings,
+                    ModelAdmissionController.unlimited(), meterRegistry, objectMapper));
+        }
+        return new ModelRouter(providers, routingSettings, meterRegistry);
+    }
+}
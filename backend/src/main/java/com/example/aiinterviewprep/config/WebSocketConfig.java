@@ -0,0 +1,28 @@
+package com.example.aiinterviewprep.config;
+
+import com.example.aiinterviewprep.controller.InterviewSocketHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final InterviewSocketHandler interviewSocketHandler;
+
+    public WebSocketConfig(InterviewSocketHandler interviewSocketHandler) {
+        this.interviewSocketHandler = interviewSocketHandler;
+    }
+
+    // Same origins as CorsConfig; the handler itself validates the session during the handshake
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(interviewSocketHandler, "/api/interview/session/*/ws")
+                .addInterceptors(interviewSocketHandler)
+                .setAllowedOrigins("http://localhost:3000");
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.aiinterviewprep.controller;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.service.AnalyticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Per role and difficulty outcomes of ended sessions, read from rollups kept up to date as sessions end
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    // Both filters optional; role matches regardless of case and spacing
+    @GetMapping
+    public ResponseEntity<List<AnalyticsService.RollupResponse>> getRollups(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) DifficultyLevel difficulty
+    ) {
+        return ResponseEntity.ok(analyticsService.getRollups(role, difficulty));
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.aiinterviewprep.controller;
 
+import com.example.aiinterviewprep.service.ModelAuthenticationException;
+import com.example.aiinterviewprep.service.ModelOverloadedException;
+import com.example.aiinterviewprep.service.ModelProviderException;
+import com.example.aiinterviewprep.service.ModelRateLimitedException;
+import com.example.aiinterviewprep.service.ModelUnavailableException;
+import com.example.aiinterviewprep.service.TokenBudgetExceededException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
 import java.util.Map;
 
 @RestControllerAdvice
@@ -22,26 +32,111 @@ public class GlobalExceptionHandler {
                 .body(Map.of("message", exception.getMessage()));
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleConflict(OptimisticLockingFailureException exception) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "This session was updated by another request. Please retry."));
+    }
+
+    @ExceptionHandler(ModelAuthenticationException.class)
+    public ResponseEntity<Map<String, String>> handleModelAuthentication(ModelAuthenticationException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(Map.of("message", "OpenAI authentication failed. Check your API key in backend/application-secrets.properties."));
+    }
+
+    @ExceptionHandler(ModelRateLimitedException.class)
+    public ResponseEntity<Map<String, String>> handleModelRateLimited(ModelRateLimitedException exception) {
+        return withRetryAfter(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS), exception)
+                .body(Map.of("message", "OpenAI rate limit reached. Please wait and try again."));
+    }
+
+    @ExceptionHandler(ModelUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleModelUnavailable(ModelUnavailableException exception) {
+        return withRetryAfter(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE), exception)
+                .body(Map.of("message", "OpenAI is temporarily unavailable. Please try again shortly."));
+    }
+
+    // Shed by our own admission controller before reaching the provider
+    @ExceptionHandler(ModelOverloadedException.class)
+    public ResponseEntity<Map<String, String>> handleModelOverloaded(ModelOverloadedException exception) {
+        return withRetryAfter(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE), exception)
+                .body(Map.of("message", "The interviewer is busy right now. Please try again in a moment."));
+    }
+
+    // The session's own token budget, not a provider limit; waiting will not help, so there is no Retry-After
+    @ExceptionHandler(TokenBudgetExceededException.class)
+    public ResponseEntity<Map<String, String>> handleTokenBudgetExceeded(TokenBudgetExceededException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(Map.of("message", exception.getMessage()));
+    }
+
+    @ExceptionHandler(ModelProviderException.class)
+    public ResponseEntity<Map<String, String>> handleModelProvider(ModelProviderException exception) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(Map.of("message", "OpenAI request failed. Check model/key and try again."));
+    }
+
+    // A bounded executor (e.g. streamingTaskExecutor) is full; the client can simply try again
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleTaskRejected(TaskRejectedException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("message", "The server is busy. Please try again."));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntime(RuntimeException exception) {
         String message = exception.getMessage() == null ? "Unexpected server error." : exception.getMessage();
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", message));
+    }
 
-        if (message.contains("OpenAI request failed with status 401")) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of("message", "OpenAI authentication failed. Check your API key in backend/application-secrets.properties."));
+    // The response the handlers above give for an exception, for failures that happen after a streamed
+    // response has started and so never reach them. Provider details (status, response body) stay out of it.
+    public ResponseEntity<Map<String, String>> toResponse(Throwable exception) {
+        if (exception instanceof ModelAuthenticationException authentication) {
+            return handleModelAuthentication(authentication);
         }
-
-        if (message.contains("OpenAI request failed with status 429")) {
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
-                    .body(Map.of("message", "OpenAI rate limit reached. Please wait and try again."));
+        if (exception instanceof ModelRateLimitedException rateLimited) {
+            return handleModelRateLimited(rateLimited);
         }
-
-        if (message.contains("OpenAI request failed with status")) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of("message", "OpenAI request failed. Check model/key and try again."));
+        if (exception instanceof ModelUnavailableException unavailable) {
+            return handleModelUnavailable(unavailable);
+        }
+        if (exception instanceof ModelOverloadedException overloaded) {
+            return handleModelOverloaded(overloaded);
+        }
+        if (exception instanceof ModelProviderException provider) {
+            return handleModelProvider(provider);
+        }
+        if (exception instanceof TokenBudgetExceededException budgetExceeded) {
+            return handleTokenBudgetExceeded(budgetExceeded);
+        }
+        if (exception instanceof OptimisticLockingFailureException conflict) {
+            return handleConflict(conflict);
+        }
+        if (exception instanceof TaskRejectedException rejected) {
+            return handleTaskRejected(rejected);
+        }
+        if (exception instanceof IllegalArgumentException badRequest) {
+            return handleBadRequest(badRequest);
+        }
+        if (exception instanceof IllegalStateException illegalState) {
+            return handleIllegalState(illegalState);
+        }
+        if (exception instanceof RuntimeException runtime) {
+            return handleRuntime(runtime);
         }
-
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(Map.of("message", message));
+                .body(Map.of("message", "Unexpected server error."));
+    }
+
+    // Passes the provider's (or the circuit breaker's) wait on to the client, rounded up to whole seconds
+    private ResponseEntity.BodyBuilder withRetryAfter(ResponseEntity.BodyBuilder builder, ModelProviderException exception) {
+        Duration retryAfter = exception.getRetryAfter();
+        if (retryAfter != null) {
+            long seconds = (retryAfter.toMillis() + 999) / 1000;
+            builder.header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, seconds)));
+        }
+        return builder;
     }
 }
@@ -1,22 +1,47 @@
 package com.example.aiinterviewprep.controller;
 
 import com.example.aiinterviewprep.entity.DifficultyLevel;
-import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.service.FeedbackService;
 import com.example.aiinterviewprep.service.InterviewConversationService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/api/interview")
 public class InterviewController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+    private static final long MAX_FEEDBACK_WAIT_SECONDS = 30;
+
     private final InterviewConversationService interviewConversationService;
+    private final FeedbackService feedbackService;
+    private final TaskExecutor streamingTaskExecutor;
+    private final GlobalExceptionHandler exceptionHandler;
 
     // Constructor injection - Spring automatically passes the dependencies
-    public InterviewController(InterviewConversationService interviewConversationService) {
+    public InterviewController(
+            InterviewConversationService interviewConversationService,
+            FeedbackService feedbackService,
+            @Qualifier("streamingTaskExecutor") TaskExecutor streamingTaskExecutor,
+            GlobalExceptionHandler exceptionHandler
+    ) {
         this.interviewConversationService = interviewConversationService;
+        this.feedbackService = feedbackService;
+        this.streamingTaskExecutor = streamingTaskExecutor;
+        this.exceptionHandler = exceptionHandler;
     }
 
     @PostMapping("/session/start")
@@ -34,18 +59,101 @@ public class InterviewController {
             @RequestBody SessionMessageRequest request
     ) {
         InterviewConversationService.MessageResponse response =
-                interviewConversationService.processCandidateMessage(sessionId, request.getContent());
+                interviewConversationService.processCandidateMessage(sessionId, request.getContent(), request.getIdempotencyKey());
         return ResponseEntity.ok(response);
     }
 
+    // Server-Sent Events: "delta" events carry reply fragments as they are generated,
+    // "done" carries the final MessageResponse and "error" carries {"message": ...} with the message
+    // GlobalExceptionHandler would give. 503 with no stream when every streaming thread is busy.
+    // A client that disconnects gets no more events, but the turn still runs to the end and its reply is stored,
+    // as on the WebSocket channel: resending the answer with the same idempotency key returns it.
+    @PostMapping(value = "/session/{sessionId}/message/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessage(
+            @PathVariable Long sessionId,
+            @RequestBody SessionMessageRequest request
+    ) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        AtomicBoolean disconnected = new AtomicBoolean();
+        emitter.onError(error -> disconnected.set(true));
+        emitter.onTimeout(() -> disconnected.set(true));
+
+        try {
+            streamingTaskExecutor.execute(() -> {
+                try {
+                    InterviewConversationService.MessageResponse response =
+                            interviewConversationService.streamCandidateMessage(sessionId, request.getContent(), request.getIdempotencyKey(),
+                                    delta -> send(emitter, disconnected, SseEmitter.event().name("delta").data(Map.of("content", delta))));
+                    send(emitter, disconnected, SseEmitter.event().name("done").data(response));
+                } catch (Exception exception) {
+                    send(emitter, disconnected, SseEmitter.event().name("error").data(exceptionHandler.toResponse(exception).getBody()));
+                }
+                if (!disconnected.get()) {
+                    emitter.complete();
+                }
+            });
+        } catch (TaskRejectedException exception) {
+            // No body: the client asked for an event stream, which a JSON error cannot be negotiated into
+            return ResponseEntity.status(exceptionHandler.toResponse(exception).getStatusCode()).build();
+        }
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Sends nothing once the client is gone; the first failed send marks it gone instead of failing the turn
+    private static void send(SseEmitter emitter, AtomicBoolean disconnected, SseEmitter.SseEventBuilder event) {
+        if (disconnected.get()) {
+            return;
+        }
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException exception) {
+            disconnected.set(true);
+            emitter.completeWithError(exception);
+        }
+    }
+
+    // Keyset-paginated transcript: pass the previous page's nextAfterId as afterId to get only newer messages
     @GetMapping("/session/{sessionId}/messages")
-    public ResponseEntity<List<Message>> getSessionMessages(@PathVariable Long sessionId) {
-        return ResponseEntity.ok(interviewConversationService.getSessionMessages(sessionId));
+    public ResponseEntity<InterviewConversationService.MessagePage> getSessionMessages(
+            @PathVariable Long sessionId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(interviewConversationService.getSessionMessages(sessionId, afterId, limit));
     }
 
+    // Returns as soon as the session is closed; feedback is generated in the background
     @PostMapping("/session/{sessionId}/end")
     public ResponseEntity<InterviewConversationService.EndSessionResponse> endSession(@PathVariable Long sessionId) {
-        return ResponseEntity.ok(interviewConversationService.endSession(sessionId));
+        InterviewConversationService.EndSessionResponse response = interviewConversationService.endSession(sessionId);
+        return ResponseEntity.status(response.getStatus() == FeedbackStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                .body(response);
+    }
+
+    // 200 once feedback is READY or FAILED, 202 while it is PENDING. With waitSeconds > 0 this is a long poll:
+    // the response is held until the feedback finishes or the wait (at most MAX_FEEDBACK_WAIT_SECONDS) runs out.
+    @GetMapping("/session/{sessionId}/feedback")
+    public DeferredResult<ResponseEntity<FeedbackService.FeedbackResponse>> getFeedback(
+            @PathVariable Long sessionId,
+            @RequestParam(defaultValue = "0") long waitSeconds
+    ) {
+        long wait = Math.max(0, Math.min(waitSeconds, MAX_FEEDBACK_WAIT_SECONDS));
+        DeferredResult<ResponseEntity<FeedbackService.FeedbackResponse>> result = new DeferredResult<>(
+                TimeUnit.SECONDS.toMillis(wait),
+                () -> feedbackResponse(feedbackService.getFeedback(sessionId)));
+
+        if (wait == 0) {
+            result.setResult(feedbackResponse(feedbackService.getFeedback(sessionId)));
+            return result;
+        }
+        feedbackService.awaitFeedback(sessionId).thenAccept(feedback -> result.setResult(feedbackResponse(feedback)));
+        return result;
+    }
+
+    private static ResponseEntity<FeedbackService.FeedbackResponse> feedbackResponse(FeedbackService.FeedbackResponse feedback) {
+        return ResponseEntity.status(feedback.getStatus() == FeedbackStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                .body(feedback);
     }
 
     public static class StartSessionRequest {
@@ -69,8 +177,11 @@ public class InterviewController {
         }
     }
 
+    // idempotencyKey (optional, at most 100 characters): one value per answer, reused when the same answer is
+    // resent, so a retry or double submit gets the original reply instead of a second turn
     public static class SessionMessageRequest {
         private String content;
+        private String idempotencyKey;
 
         public String getContent() {
             return content;
@@ -79,5 +190,13 @@ public class InterviewController {
         public void setContent(String content) {
             this.content = content;
         }
+
+        public String getIdempotencyKey() {
+            return idempotencyKey;
+        }
+
+        public void setIdempotencyKey(String idempotencyKey) {
+            this.idempotencyKey = idempotencyKey;
+        }
     }
 }
\ No newline at end of file
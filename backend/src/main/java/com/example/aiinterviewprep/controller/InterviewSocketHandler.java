@@ -0,0 +1,351 @@
+package com.example.aiinterviewprep.controller;
+
+import com.example.aiinterviewprep.service.ActiveSessionCache;
+import com.example.aiinterviewprep.service.InterviewConversationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One WebSocket per open interview tab at /api/interview/session/{sessionId}/ws, carrying the whole conversation.
+// Client frames (JSON, by "type"):
+//   message {content, idempotencyKey?}  a candidate answer; one turn in flight per connection
+//   typing                              relayed to the session's other connections
+//   heartbeat                           answered with a heartbeat frame
+//   end                                 closes the session (as POST .../end)
+// Server frames: delta {content}, reply {sessionId, interviewerMessage}, typing, heartbeat,
+// ended {EndSessionResponse} (then the socket is closed) and error {message}.
+// Replies and deltas go to every connection of the session on this instance, so several tabs stay in step.
+//
+// An idle socket costs no thread: Tomcat reads on NIO and a turn only takes a streamingTaskExecutor thread
+// while it runs. Sends are bounded per connection (ConcurrentWebSocketSessionDecorator): a client that stops
+// reading is buffered up to send-buffer-size or send-time-limit and then disconnected, so it cannot hold back
+// the turn or other tabs for long. Sockets that sent nothing (not even a pong to the server's pings) for
+// idle-timeout are closed. Open connections: interview.websocket.connections.
+@Component
+public class InterviewSocketHandler extends TextWebSocketHandler implements HandshakeInterceptor {
+
+    private static final String SESSION_ID_ATTRIBUTE = "interviewSessionId";
+    private static final CloseStatus IDLE = CloseStatus.SESSION_NOT_RELIABLE.withReason("Idle timeout");
+
+    private final InterviewConversationService interviewConversationService;
+    private final ActiveSessionCache activeSessionCache;
+    private final TaskExecutor streamingTaskExecutor;
+    private final ObjectMapper objectMapper;
+    private final GlobalExceptionHandler exceptionHandler;
+    private final Counter reaped;
+    private final int maxConnections;
+    private final int maxMessageSize;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSize;
+    private final long idleTimeoutNanos;
+
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Connection>> connectionsBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public InterviewSocketHandler(
+            InterviewConversationService interviewConversationService,
+            ActiveSessionCache activeSessionCache,
+            @Qualifier("streamingTaskExecutor") TaskExecutor streamingTaskExecutor,
+            ObjectMapper objectMapper,
+            GlobalExceptionHandler exceptionHandler,
+            MeterRegistry meterRegistry,
+            @Value("${interview.websocket.max-connections:10000}") int maxConnections,
+            @Value("${interview.websocket.max-message-size:65536}") int maxMessageSize,
+            @Value("${interview.websocket.send-time-limit:PT10S}") Duration sendTimeLimit,
+            @Value("${interview.websocket.send-buffer-size:524288}") int sendBufferSize,
+            @Value("${interview.websocket.idle-timeout:PT60S}") Duration idleTimeout
+    ) {
+        this.interviewConversationService = interviewConversationService;
+        this.activeSessionCache = activeSessionCache;
+        this.streamingTaskExecutor = streamingTaskExecutor;
+        this.objectMapper = objectMapper;
+        this.exceptionHandler = exceptionHandler;
+        this.maxConnections = maxConnections;
+        this.maxMessageSize = maxMessageSize;
+        this.sendTimeLimitMillis = Math.toIntExact(sendTimeLimit.toMillis());
+        this.sendBufferSize = sendBufferSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.reaped = Counter.builder("interview.websocket.reaped")
+                .description("WebSockets closed after idle-timeout without any frame from the client")
+                .register(meterRegistry);
+        Gauge.builder("interview.websocket.connections", openConnections, AtomicInteger::get)
+                .description("Open interview WebSockets on this instance")
+                .register(meterRegistry);
+    }
+
+    // Rejected before the upgrade: unknown session (404), ended session (409), instance full (503)
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Long sessionId = sessionIdFromPath(request.getURI().getPath());
+        if (sessionId == null) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        try {
+            activeSessionCache.get(sessionId);
+        } catch (IllegalArgumentException exception) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        } catch (IllegalStateException exception) {
+            response.setStatusCode(HttpStatus.CONFLICT);
+            return false;
+        }
+        if (openConnections.get() >= maxConnections) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return false;
+        }
+        attributes.put(SESSION_ID_ATTRIBUTE, sessionId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.setTextMessageSizeLimit(maxMessageSize);
+        Long sessionId = (Long) session.getAttributes().get(SESSION_ID_ATTRIBUTE);
+        Connection connection = new Connection(sessionId,
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, sendBufferSize));
+        connections.put(session.getId(), connection);
+        connectionsBySession.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        openConnections.incrementAndGet();
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Connection connection = connections.get(session.getId());
+        if (connection == null) {
+            return;
+        }
+        connection.touch();
+
+        JsonNode frame;
+        try {
+            frame = objectMapper.readTree(message.getPayload());
+        } catch (IOException exception) {
+            send(connection, error("Frames must be JSON objects."));
+            return;
+        }
+        switch (frame.path("type").asText()) {
+            case "message" -> submitTurn(connection, frame.path("content").asText(null), frame.path("idempotencyKey").asText(null));
+            case "typing" -> sendToOthers(connection, frame("typing"));
+            case "heartbeat" -> send(connection, frame("heartbeat"));
+            case "end" -> execute(connection, () -> endSession(connection.sessionId));
+            default -> send(connection, error("Unknown frame type: " + frame.path("type").asText()));
+        }
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        Connection connection = connections.get(session.getId());
+        if (connection != null) {
+            connection.touch();
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws IOException {
+        session.close(CloseStatus.SERVER_ERROR);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Connection connection = connections.remove(session.getId());
+        if (connection == null) {
+            return;
+        }
+        openConnections.decrementAndGet();
+        connectionsBySession.computeIfPresent(connection.sessionId, (id, sessionConnections) -> {
+            sessionConnections.remove(connection);
+            return sessionConnections.isEmpty() ? null : sessionConnections;
+        });
+    }
+
+    // Pings every connection (browsers answer with a pong on their own) and closes those that have been
+    // silent for idle-timeout
+    @Scheduled(fixedDelayString = "${interview.websocket.ping-interval:PT20S}")
+    public void reapIdleConnections() {
+        long now = System.nanoTime();
+        for (Connection connection : connections.values()) {
+            if (now - connection.lastSeenNanos > idleTimeoutNanos) {
+                reaped.increment();
+                close(connection, IDLE);
+                continue;
+            }
+            try {
+                connection.socket.sendMessage(new PingMessage());
+            } catch (IOException | IllegalStateException | SessionLimitExceededException exception) {
+                close(connection, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        connections.values().forEach(connection -> close(connection, CloseStatus.GOING_AWAY));
+    }
+
+    private void submitTurn(Connection connection, String content, String idempotencyKey) {
+        if (content == null || content.isBlank()) {
+            send(connection, error("Message content must not be empty."));
+            return;
+        }
+        if (!connection.turnInFlight.compareAndSet(false, true)) {
+            send(connection, error("Wait for the interviewer's reply before sending another message."));
+            return;
+        }
+        boolean submitted = execute(connection, () -> {
+            try {
+                InterviewConversationService.MessageResponse response = interviewConversationService.streamCandidateMessage(
+                        connection.sessionId, content, idempotencyKey,
+                        delta -> sendToSession(connection.sessionId, delta(delta)));
+                ObjectNode reply = objectMapper.valueToTree(response);
+                reply.put("type", "reply");
+                sendToSession(connection.sessionId, reply);
+            } finally {
+                connection.turnInFlight.set(false);
+            }
+        });
+        if (!submitted) {
+            connection.turnInFlight.set(false);
+        }
+    }
+
+    private void endSession(Long sessionId) {
+        ObjectNode ended = objectMapper.valueToTree(interviewConversationService.endSession(sessionId));
+        ended.put("type", "ended");
+        sendToSession(sessionId, ended);
+        Set<Connection> sessionConnections = connectionsBySession.getOrDefault(sessionId, Set.of());
+        sessionConnections.forEach(connection -> close(connection, CloseStatus.NORMAL));
+    }
+
+    // Runs work off the container thread; failures are reported to the connection that asked for it, with the
+    // message GlobalExceptionHandler gives them (no provider status or response body)
+    private boolean execute(Connection connection, Runnable work) {
+        try {
+            streamingTaskExecutor.execute(() -> {
+                try {
+                    work.run();
+                } catch (RuntimeException exception) {
+                    send(connection, error(exceptionHandler.toResponse(exception).getBody().get("message")));
+                }
+            });
+            return true;
+        } catch (TaskRejectedException exception) {
+            send(connection, error(exceptionHandler.toResponse(exception).getBody().get("message")));
+            return false;
+        }
+    }
+
+    private void sendToSession(Long sessionId, ObjectNode frame) {
+        Set<Connection> sessionConnections = connectionsBySession.getOrDefault(sessionId, Set.of());
+        sessionConnections.forEach(connection -> send(connection, frame));
+    }
+
+    private void sendToOthers(Connection sender, ObjectNode frame) {
+        Set<Connection> sessionConnections = connectionsBySession.getOrDefault(sender.sessionId, Set.of());
+        for (Connection connection : sessionConnections) {
+            if (connection != sender) {
+                send(connection, frame);
+            }
+        }
+    }
+
+    // A connection that cannot keep up (buffer or time limit exceeded) or is already gone is closed, and the
+    // sender moves on; the client can reconnect and read what it missed from the transcript API
+    private void send(Connection connection, ObjectNode frame) {
+        if (!connection.socket.isOpen()) {
+            return;
+        }
+        try {
+            connection.socket.sendMessage(new TextMessage(objectMapper.writeValueAsString(frame)));
+        } catch (IOException | IllegalStateException | SessionLimitExceededException exception) {
+            close(connection, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void close(Connection connection, CloseStatus status) {
+        try {
+            connection.socket.close(status);
+        } catch (IOException | IllegalStateException exception) {
+            // Already closed or broken; afterConnectionClosed cleans up either way
+        }
+    }
+
+    private ObjectNode frame(String type) {
+        return objectMapper.createObjectNode().put("type", type);
+    }
+
+    private ObjectNode delta(String content) {
+        return frame("delta").put("content", content);
+    }
+
+    private ObjectNode error(String message) {
+        return frame("error").put("message", message);
+    }
+
+    // /api/interview/session/{sessionId}/ws
+    private static Long sessionIdFromPath(String path) {
+        String[] segments = path.split("/");
+        if (segments.length < 2) {
+            return null;
+        }
+        try {
+            return Long.valueOf(segments[segments.length - 2]);
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    private static class Connection {
+        private final Long sessionId;
+        private final ConcurrentWebSocketSessionDecorator socket;
+        private final AtomicBoolean turnInFlight = new AtomicBoolean();
+        private volatile long lastSeenNanos = System.nanoTime();
+
+        private Connection(Long sessionId, ConcurrentWebSocketSessionDecorator socket) {
+            this.sessionId = sessionId;
+            this.socket = socket;
+        }
+
+        private void touch() {
+            lastSeenNanos = System.nanoTime();
+        }
+    }
+}
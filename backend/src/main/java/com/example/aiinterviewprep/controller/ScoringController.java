@@ -0,0 +1,69 @@
+package com.example.aiinterviewprep.controller;
+
+import com.example.aiinterviewprep.service.BatchScoringService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+// Batch re-scoring of ended sessions; results never replace the feedback candidates were shown
+@RestController
+@RequestMapping("/api/scoring")
+public class ScoringController {
+
+    private final BatchScoringService batchScoringService;
+
+    public ScoringController(BatchScoringService batchScoringService) {
+        this.batchScoringService = batchScoringService;
+    }
+
+    // Scores every session ended in [endedAfter, endedBefore) (ISO date-times, both optional); 202 with the job
+    @PostMapping("/jobs")
+    public ResponseEntity<BatchScoringService.ScoringJobResponse> startJob(@RequestBody(required = false) StartScoringRequest request) {
+        StartScoringRequest range = request == null ? new StartScoringRequest() : request;
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(batchScoringService.start(range.getEndedAfter(), range.getEndedBefore()));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BatchScoringService.ScoringJobResponse> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(batchScoringService.getJob(jobId));
+    }
+
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<BatchScoringService.ScoringJobResponse> cancelJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(batchScoringService.cancel(jobId));
+    }
+
+    // Keyset-paginated results: pass the previous page's nextAfterSessionId as afterSessionId
+    @GetMapping("/jobs/{jobId}/scores")
+    public ResponseEntity<BatchScoringService.ScorePage> getScores(
+            @PathVariable Long jobId,
+            @RequestParam(required = false) Long afterSessionId,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(batchScoringService.getScores(jobId, afterSessionId, limit));
+    }
+
+    public static class StartScoringRequest {
+        private LocalDateTime endedAfter;
+        private LocalDateTime endedBefore;
+
+        public LocalDateTime getEndedAfter() {
+            return endedAfter;
+        }
+
+        public void setEndedAfter(LocalDateTime endedAfter) {
+            this.endedAfter = endedAfter;
+        }
+
+        public LocalDateTime getEndedBefore() {
+            return endedBefore;
+        }
+
+        public void setEndedBefore(LocalDateTime endedBefore) {
+            this.endedBefore = endedBefore;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.aiinterviewprep.controller;
+
+import com.example.aiinterviewprep.service.TranscriptSearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Full-text search over interview transcripts, e.g. GET /api/search?q="consistent hashing"&page=0&size=10
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private final TranscriptSearchService transcriptSearchService;
+
+    public SearchController(TranscriptSearchService transcriptSearchService) {
+        this.transcriptSearchService = transcriptSearchService;
+    }
+
+    // Sessions best match first, each with snippets of its matching messages; page is zero-based
+    @GetMapping
+    public ResponseEntity<TranscriptSearchService.SearchPage> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(transcriptSearchService.search(q, page, size));
+    }
+}
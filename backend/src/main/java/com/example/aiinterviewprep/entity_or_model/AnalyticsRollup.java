@@ -0,0 +1,153 @@
+package com.example.aiinterviewprep.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Running totals of the ended sessions of one (role, difficulty), updated as each session's feedback settles so
+// analytics never scan sessions. roleKey is the normalized role (case and spacing ignored); role keeps the
+// spelling first seen. scoreHistogram[i] counts sessions scored i + 1 (scores run from 1 to 10).
+@Entity
+@Table(name = "analytics_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_analytics_rollups_role_difficulty", columnNames = {"role_key", "difficulty"}))
+public class AnalyticsRollup {
+
+    public static final int MAX_SCORE = 10;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "role_key", nullable = false)
+    private String roleKey;
+
+    @Column(nullable = false)
+    private String role;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DifficultyLevel difficulty;
+
+    // Every ended session, scored or not
+    @Column(nullable = false)
+    private Long sessions = 0L;
+
+    // Candidate answers across those sessions
+    @Column(name = "total_turns", nullable = false)
+    private Long totalTurns = 0L;
+
+    @Column(name = "total_duration_seconds", nullable = false)
+    private Long totalDurationSeconds = 0L;
+
+    // Sessions whose feedback is READY with a score; the mean and histogram cover only these
+    @Column(name = "scored_sessions", nullable = false)
+    private Long scoredSessions = 0L;
+
+    @Column(name = "score_sum", nullable = false)
+    private Long scoreSum = 0L;
+
+    @Column(name = "score_histogram", nullable = false)
+    private long[] scoreHistogram = new long[MAX_SCORE];
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public AnalyticsRollup() {
+    }
+
+    public AnalyticsRollup(String roleKey, String role, DifficultyLevel difficulty) {
+        this.roleKey = roleKey;
+        this.role = role;
+        this.difficulty = difficulty;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRoleKey() {
+        return roleKey;
+    }
+
+    public void setRoleKey(String roleKey) {
+        this.roleKey = roleKey;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public DifficultyLevel getDifficulty() {
+        return difficulty;
+    }
+
+    public void setDifficulty(DifficultyLevel difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public Long getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(Long sessions) {
+        this.sessions = sessions;
+    }
+
+    public Long getTotalTurns() {
+        return totalTurns;
+    }
+
+    public void setTotalTurns(Long totalTurns) {
+        this.totalTurns = totalTurns;
+    }
+
+    public Long getTotalDurationSeconds() {
+        return totalDurationSeconds;
+    }
+
+    public void setTotalDurationSeconds(Long totalDurationSeconds) {
+        this.totalDurationSeconds = totalDurationSeconds;
+    }
+
+    public Long getScoredSessions() {
+        return scoredSessions;
+    }
+
+    public void setScoredSessions(Long scoredSessions) {
+        this.scoredSessions = scoredSessions;
+    }
+
+    public Long getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(Long scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+
+    public long[] getScoreHistogram() {
+        return scoreHistogram;
+    }
+
+    public void setScoreHistogram(long[] scoreHistogram) {
+        this.scoreHistogram = scoreHistogram;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.aiinterviewprep.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Persistent tier of the completion cache: one model completion per canonical request hash
+@Entity
+@Table(name = "completion_cache", indexes = @Index(name = "idx_completion_cache_expires_at", columnList = "expires_at"))
+public class CachedCompletion {
+
+    // SHA-256 of the canonical request payload, hex encoded
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "call_type", nullable = false, length = 32)
+    private String callType;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public CachedCompletion() {
+    }
+
+    public CachedCompletion(String cacheKey, String callType, String content, LocalDateTime expiresAt) {
+        this.cacheKey = cacheKey;
+        this.callType = callType;
+        this.content = content;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getCallType() {
+        return callType;
+    }
+
+    public void setCallType(String callType) {
+        this.callType = callType;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.aiinterviewprep.entity;
+
+public enum FeedbackStatus {
+    PENDING,  // Session ended, feedback queued or being generated
+    READY,    // Feedback generated and stored
+    FAILED    // Generation gave up after the configured attempts
+}
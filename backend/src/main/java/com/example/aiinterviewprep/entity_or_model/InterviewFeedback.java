@@ -0,0 +1,146 @@
+package com.example.aiinterviewprep.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// End-of-session evaluation, generated in the background after the session is closed
+@Entity
+@Table(name = "interview_feedback")
+public class InterviewFeedback {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false, insertable = false, updatable = false)
+    private Long sessionId;
+
+    @JsonIgnore
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false, unique = true)
+    private InterviewSession session;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private FeedbackStatus status = FeedbackStatus.PENDING;
+
+    @Column(columnDefinition = "TEXT")
+    private String strengths;
+
+    @Column(name = "areas_for_improvement", columnDefinition = "TEXT")
+    private String areasForImprovement;
+
+    @Column(name = "overall_comments", columnDefinition = "TEXT")
+    private String overallComments;
+
+    private Integer score;
+
+    // Generation attempts so far; the job gives up (FAILED) after interview.feedback.max-attempts
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Constructors
+    public InterviewFeedback() {
+    }
+
+    public InterviewFeedback(InterviewSession session) {
+        this.session = session;
+        this.requestedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public InterviewSession getSession() {
+        return session;
+    }
+
+    public void setSession(InterviewSession session) {
+        this.session = session;
+    }
+
+    public FeedbackStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(FeedbackStatus status) {
+        this.status = status;
+    }
+
+    public String getStrengths() {
+        return strengths;
+    }
+
+    public void setStrengths(String strengths) {
+        this.strengths = strengths;
+    }
+
+    public String getAreasForImprovement() {
+        return areasForImprovement;
+    }
+
+    public void setAreasForImprovement(String areasForImprovement) {
+        this.areasForImprovement = areasForImprovement;
+    }
+
+    public String getOverallComments() {
+        return overallComments;
+    }
+
+    public void setOverallComments(String overallComments) {
+        this.overallComments = overallComments;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(LocalDateTime requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -1,16 +1,20 @@
 package com.example.aiinterviewprep.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+// ended_at drives the archival sweep over ended sessions (see TranscriptArchiveService)
 @Entity
-@Table(name = "interview_sessions")
+@Table(name = "interview_sessions", indexes = @Index(name = "idx_interview_sessions_ended_at", columnList = "ended_at"))
 public class InterviewSession {
 
+    // Pooled sequence: ids are reserved 50 at a time, so inserts can be JDBC-batched (IDENTITY cannot be)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "interview_sessions_seq")
+    @SequenceGenerator(name = "interview_sessions_seq", sequenceName = "interview_sessions_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -29,6 +33,37 @@ public class InterviewSession {
     @Column(nullable = false)
     private Boolean active = true;
 
+    // Optimistic lock: bumped by every committed turn so concurrent posts to one session are detected
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
+    // Rolling summary of every message up to the (summarizedThrough, summarizedThroughId) keyset, in transcript
+    // order (createdAt, id); later messages are sent verbatim
+    @Column(name = "context_summary", columnDefinition = "TEXT")
+    private String contextSummary;
+
+    @Column(name = "summarized_through")
+    private LocalDateTime summarizedThrough;
+
+    @Column(name = "summarized_through_id")
+    private Long summarizedThroughId;
+
+    // Set when the transcript moved to transcript_archives; the session has no messages rows after that
+    @Column(name = "transcript_archived_at")
+    private LocalDateTime transcriptArchivedAt;
+
+    // Tokens the providers reported for this session's model calls (replies, summaries, feedback). Only ever added
+    // to in the database (InterviewSessionRepository.addTokenUsage); saving the entity never writes them back.
+    // No columnDefinition here: Hibernate copies it into the cast of the parameter added in addTokenUsage
+    @ColumnDefault("0")
+    @Column(name = "prompt_tokens", nullable = false, updatable = false)
+    private Long promptTokens = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "completion_tokens", nullable = false, updatable = false)
+    private Long completionTokens = 0L;
+
     // One session has many messages
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Message> messages = new ArrayList<>();
@@ -92,6 +127,54 @@ public class InterviewSession {
         this.active = active;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getContextSummary() {
+        return contextSummary;
+    }
+
+    public void setContextSummary(String contextSummary) {
+        this.contextSummary = contextSummary;
+    }
+
+    public LocalDateTime getSummarizedThrough() {
+        return summarizedThrough;
+    }
+
+    public void setSummarizedThrough(LocalDateTime summarizedThrough) {
+        this.summarizedThrough = summarizedThrough;
+    }
+
+    public Long getSummarizedThroughId() {
+        return summarizedThroughId;
+    }
+
+    public void setSummarizedThroughId(Long summarizedThroughId) {
+        this.summarizedThroughId = summarizedThroughId;
+    }
+
+    public LocalDateTime getTranscriptArchivedAt() {
+        return transcriptArchivedAt;
+    }
+
+    public void setTranscriptArchivedAt(LocalDateTime transcriptArchivedAt) {
+        this.transcriptArchivedAt = transcriptArchivedAt;
+    }
+
+    public Long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public Long getCompletionTokens() {
+        return completionTokens;
+    }
+
     public List<Message> getMessages() {
         return messages;
     }
@@ -1,20 +1,29 @@
 package com.example.aiinterviewprep.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+// (session_id, created_at, id) serves both the ordered transcript reads and keyset pagination.
+// The unique (session_id, idempotency_key) constraint stops a resubmitted candidate message from being
+// stored twice, also when the duplicate reaches another instance.
 @Entity
-@Table(name = "messages")
+@Table(name = "messages",
+        indexes = @Index(name = "idx_messages_session_created_id", columnList = "session_id, created_at, id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_messages_session_idempotency_key", columnNames = {"session_id", "idempotency_key"}))
 public class Message {
 
+    // Pooled sequence: ids are reserved 50 at a time, so inserts can be JDBC-batched (IDENTITY cannot be)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "session_id", nullable = false, insertable = false, updatable = false)
     private Long sessionId;
 
-    // Many messages belong to one session
+    // Many messages belong to one session (not serialized: sessionId already identifies it)
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
     private InterviewSession session;
@@ -29,6 +38,16 @@ public class Message {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Client-chosen key of the submission that stored a candidate message; null for interviewer messages
+    @JsonIgnore
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    // Token count of content, computed once by the Tokenizer; -1 until then. Never stored.
+    @JsonIgnore
+    @Transient
+    private int tokenCount = -1;
+
     // Constructors
     public Message() {
     }
@@ -79,6 +98,7 @@ public class Message {
 
     public void setContent(String content) {
         this.content = content;
+        this.tokenCount = -1;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -88,4 +108,20 @@ public class Message {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-}
\ No newline at end of file
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public void setTokenCount(int tokenCount) {
+        this.tokenCount = tokenCount;
+    }
+}
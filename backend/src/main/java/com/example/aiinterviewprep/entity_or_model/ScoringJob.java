@@ -0,0 +1,149 @@
+package com.example.aiinterviewprep.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A batch re-scoring of the sessions that ended in [endedAfter, endedBefore), walked in session id order.
+// checkpointSessionId is the resume point: every session up to it has a score for this job.
+@Entity
+@Table(name = "scoring_jobs")
+public class ScoringJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ScoringJobStatus status = ScoringJobStatus.RUNNING;
+
+    @Column(name = "ended_after", nullable = false)
+    private LocalDateTime endedAfter;
+
+    @Column(name = "ended_before", nullable = false)
+    private LocalDateTime endedBefore;
+
+    @Column(name = "checkpoint_session_id", nullable = false)
+    private Long checkpointSessionId = 0L;
+
+    @Column(nullable = false)
+    private Integer scored = 0;
+
+    @Column(nullable = false)
+    private Integer failed = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Touched at every checkpoint; a RUNNING job that stops being touched is resumed by the sweep
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Optimistic lock: a cancel, or a second runner, makes the other's next checkpoint fail
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
+    // Constructors
+    public ScoringJob() {
+    }
+
+    public ScoringJob(LocalDateTime endedAfter, LocalDateTime endedBefore) {
+        this.endedAfter = endedAfter;
+        this.endedBefore = endedBefore;
+        this.createdAt = LocalDateTime.now();
+        this.heartbeatAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ScoringJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ScoringJobStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getEndedAfter() {
+        return endedAfter;
+    }
+
+    public void setEndedAfter(LocalDateTime endedAfter) {
+        this.endedAfter = endedAfter;
+    }
+
+    public LocalDateTime getEndedBefore() {
+        return endedBefore;
+    }
+
+    public void setEndedBefore(LocalDateTime endedBefore) {
+        this.endedBefore = endedBefore;
+    }
+
+    public Long getCheckpointSessionId() {
+        return checkpointSessionId;
+    }
+
+    public void setCheckpointSessionId(Long checkpointSessionId) {
+        this.checkpointSessionId = checkpointSessionId;
+    }
+
+    public Integer getScored() {
+        return scored;
+    }
+
+    public void setScored(Integer scored) {
+        this.scored = scored;
+    }
+
+    public Integer getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.aiinterviewprep.entity;
+
+public enum ScoringJobStatus {
+    RUNNING,    // Sessions are being scored (or the job waits to be resumed after a restart)
+    COMPLETED,  // Every session in the job's range has a score
+    CANCELLED   // Stopped on request; scores stored so far are kept
+}
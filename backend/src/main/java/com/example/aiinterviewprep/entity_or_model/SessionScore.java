@@ -0,0 +1,124 @@
+package com.example.aiinterviewprep.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One session's result in a scoring job, kept apart from InterviewFeedback so re-scoring never changes what
+// the candidate was shown. (job_id, session_id) is unique and serves the job's paged results.
+@Entity
+@Table(name = "session_scores",
+        uniqueConstraints = @UniqueConstraint(name = "uk_session_scores_job_session", columnNames = {"job_id", "session_id"}))
+public class SessionScore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    // READY, or FAILED when the model call did not succeed
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private FeedbackStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String strengths;
+
+    @Column(name = "areas_for_improvement", columnDefinition = "TEXT")
+    private String areasForImprovement;
+
+    @Column(name = "overall_comments", columnDefinition = "TEXT")
+    private String overallComments;
+
+    private Integer score;
+
+    @Column(name = "scored_at", nullable = false)
+    private LocalDateTime scoredAt;
+
+    // Constructors
+    public SessionScore() {
+    }
+
+    public SessionScore(Long jobId, Long sessionId) {
+        this.jobId = jobId;
+        this.sessionId = sessionId;
+        this.scoredAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public FeedbackStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(FeedbackStatus status) {
+        this.status = status;
+    }
+
+    public String getStrengths() {
+        return strengths;
+    }
+
+    public void setStrengths(String strengths) {
+        this.strengths = strengths;
+    }
+
+    public String getAreasForImprovement() {
+        return areasForImprovement;
+    }
+
+    public void setAreasForImprovement(String areasForImprovement) {
+        this.areasForImprovement = areasForImprovement;
+    }
+
+    public String getOverallComments() {
+        return overallComments;
+    }
+
+    public void setOverallComments(String overallComments) {
+        this.overallComments = overallComments;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public LocalDateTime getScoredAt() {
+        return scoredAt;
+    }
+
+    public void setScoredAt(LocalDateTime scoredAt) {
+        this.scoredAt = scoredAt;
+    }
+}
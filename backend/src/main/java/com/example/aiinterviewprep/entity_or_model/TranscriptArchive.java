@@ -0,0 +1,99 @@
+package com.example.aiinterviewprep.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+
+// Cold copy of an ended session's transcript: every message as one deflate-compressed JSON array.
+// Its messages rows are deleted when it is written, so the hot messages table only holds live sessions.
+@Entity
+@Table(name = "transcript_archives", indexes = @Index(name = "idx_transcript_archives_archived_at", columnList = "archived_at"))
+public class TranscriptArchive {
+
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    // Encoding of content, so the format can change without rewriting old archives
+    @Column(nullable = false, length = 32)
+    private String format;
+
+    @Column(name = "message_count", nullable = false)
+    private Integer messageCount;
+
+    // Size of the JSON before compression
+    @Column(name = "raw_bytes", nullable = false)
+    private Long rawBytes;
+
+    // Plain VARBINARY: bytea on PostgreSQL, as in V1. A length above the dialect's varbinary limit would turn it
+    // into a blob, which H2 in PostgreSQL mode rejects; 1 MiB is H2's limit and far above a compressed transcript.
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = 1_048_576)
+    private byte[] content;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    public TranscriptArchive() {
+    }
+
+    public TranscriptArchive(Long sessionId, String format, int messageCount, long rawBytes, byte[] content) {
+        this.sessionId = sessionId;
+        this.format = format;
+        this.messageCount = messageCount;
+        this.rawBytes = rawBytes;
+        this.content = content;
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Integer getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(Integer messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public Long getRawBytes() {
+        return rawBytes;
+    }
+
+    public void setRawBytes(Long rawBytes) {
+        this.rawBytes = rawBytes;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
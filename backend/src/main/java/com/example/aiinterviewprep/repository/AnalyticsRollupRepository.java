@@ -0,0 +1,25 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.AnalyticsRollup;
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsRollupRepository extends JpaRepository<AnalyticsRollup, Long> {
+
+    // Row-locked for the read-modify-write of one session's contribution (uk_analytics_rollups_role_difficulty)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AnalyticsRollup> findForUpdateByRoleKeyAndDifficulty(String roleKey, DifficultyLevel difficulty);
+
+    List<AnalyticsRollup> findByRoleKeyOrderByDifficultyAsc(String roleKey);
+
+    List<AnalyticsRollup> findByDifficultyOrderByRoleKeyAsc(DifficultyLevel difficulty);
+
+    List<AnalyticsRollup> findAllByOrderByRoleKeyAscDifficultyAsc();
+}
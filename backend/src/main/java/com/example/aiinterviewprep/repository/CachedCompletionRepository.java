@@ -0,0 +1,23 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.CachedCompletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CachedCompletionRepository extends JpaRepository<CachedCompletion, String> {
+
+    // Find a cached completion that has not expired yet
+    Optional<CachedCompletion> findByCacheKeyAndExpiresAtAfter(String cacheKey, LocalDateTime now);
+
+    // Remove expired completions in one statement
+    @Modifying
+    @Query("delete from CachedCompletion c where c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
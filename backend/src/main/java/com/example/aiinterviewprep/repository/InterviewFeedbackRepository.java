@@ -0,0 +1,19 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewFeedback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InterviewFeedbackRepository extends JpaRepository<InterviewFeedback, Long> {
+
+    // Find the feedback for a session
+    Optional<InterviewFeedback> findBySessionId(Long sessionId);
+
+    // Find feedback that still has to be generated (ended sessions whose job was lost or not run yet)
+    List<InterviewFeedback> findByStatusOrderByRequestedAtAsc(FeedbackStatus status);
+}
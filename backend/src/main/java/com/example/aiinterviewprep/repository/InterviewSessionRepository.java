@@ -1,9 +1,15 @@
 package com.example.aiinterviewprep.repository;
 
+import com.example.aiinterviewprep.entity.FeedbackStatus;
 import com.example.aiinterviewprep.entity.InterviewSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +24,59 @@ public interface InterviewSessionRepository extends JpaRepository<InterviewSessi
 
     // Find all active sessions
     List<InterviewSession> findByActiveTrue();
-}
\ No newline at end of file
+
+    // Bump the version only if it still matches what the caller read; 0 rows means another turn won the race
+    @Modifying
+    @Query("update InterviewSession s set s.version = s.version + 1 where s.id = :id and s.version = :expectedVersion and s.active = true")
+    int advanceVersion(@Param("id") Long id, @Param("expectedVersion") Long expectedVersion);
+
+    // Store a new rolling summary without touching the version, so compaction never conflicts with a turn
+    @Modifying
+    @Query("update InterviewSession s set s.contextSummary = :summary, s.summarizedThrough = :summarizedThrough, " +
+            "s.summarizedThroughId = :summarizedThroughId where s.id = :id")
+    int updateContextSummary(
+            @Param("id") Long id,
+            @Param("summary") String summary,
+            @Param("summarizedThrough") LocalDateTime summarizedThrough,
+            @Param("summarizedThroughId") Long summarizedThroughId
+    );
+
+    // Add one model call's usage to the session's totals, also without touching the version
+    @Modifying
+    @Query("update InterviewSession s set s.promptTokens = s.promptTokens + :promptTokens, " +
+            "s.completionTokens = s.completionTokens + :completionTokens where s.id = :id")
+    int addTokenUsage(
+            @Param("id") Long id,
+            @Param("promptTokens") long promptTokens,
+            @Param("completionTokens") long completionTokens
+    );
+
+    @Query("select s.promptTokens + s.completionTokens from InterviewSession s where s.id = :id")
+    Optional<Long> findTokensUsed(@Param("id") Long id);
+
+    // Ended sessions whose transcript is still in the messages table, oldest first. Sessions whose feedback is
+    // still pending are left alone: the feedback job reads their transcript.
+    @Query("select s.id from InterviewSession s where s.active = false and s.endedAt < :endedBefore " +
+            "and s.transcriptArchivedAt is null " +
+            "and exists (select f.id from InterviewFeedback f where f.sessionId = s.id and f.status <> :pending) " +
+            "order by s.endedAt asc")
+    List<Long> findArchivableSessionIds(
+            @Param("endedBefore") LocalDateTime endedBefore,
+            @Param("pending") FeedbackStatus pending,
+            Pageable pageable
+    );
+
+    // The next chunk of ended sessions for a scoring job, by keyset on id
+    @Query("select s.id from InterviewSession s where s.active = false and s.id > :afterId " +
+            "and s.endedAt >= :endedAfter and s.endedAt < :endedBefore order by s.id asc")
+    List<Long> findScorableSessionIds(
+            @Param("afterId") Long afterId,
+            @Param("endedAfter") LocalDateTime endedAfter,
+            @Param("endedBefore") LocalDateTime endedBefore,
+            Pageable pageable
+    );
+
+    // Sessions whose transcript lives in transcript_archives, by keyset on id (search index rebuilds)
+    @Query("select s.id from InterviewSession s where s.transcriptArchivedAt is not null and s.id > :afterId order by s.id asc")
+    List<Long> findArchivedSessionIds(@Param("afterId") Long afterId, Pageable pageable);
+}
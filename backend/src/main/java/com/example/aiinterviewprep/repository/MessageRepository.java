@@ -1,10 +1,17 @@
 package com.example.aiinterviewprep.repository;
 
 import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
@@ -14,4 +21,55 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
     // Find all messages for a session
     List<Message> findBySessionId(Long sessionId);
-}
\ No newline at end of file
+
+    // The whole transcript in the order the rolling summary folds it
+    List<Message> findBySessionIdOrderByCreatedAtAscIdAsc(Long sessionId);
+
+    // The messages after the last one folded into the session's rolling summary, by the same keyset as
+    // findTranscriptPageAfter, so a message created in the same instant as that one is not skipped
+    @Query("select m from Message m where m.sessionId = :sessionId " +
+            "and (m.createdAt > :afterCreatedAt or (m.createdAt = :afterCreatedAt and m.id > :afterId)) " +
+            "order by m.createdAt asc, m.id asc")
+    List<Message> findUnsummarized(
+            @Param("sessionId") Long sessionId,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId
+    );
+
+    // First page of a transcript, oldest first
+    @Query("select m.id as id, m.sessionId as sessionId, m.role as role, m.content as content, m.createdAt as createdAt " +
+            "from Message m where m.sessionId = :sessionId order by m.createdAt asc, m.id asc")
+    List<MessageView> findTranscriptPage(@Param("sessionId") Long sessionId, Pageable pageable);
+
+    // Next page after the (createdAt, id) keyset of the last message the caller has
+    @Query("select m.id as id, m.sessionId as sessionId, m.role as role, m.content as content, m.createdAt as createdAt " +
+            "from Message m where m.sessionId = :sessionId " +
+            "and (m.createdAt > :afterCreatedAt or (m.createdAt = :afterCreatedAt and m.id > :afterId)) " +
+            "order by m.createdAt asc, m.id asc")
+    List<MessageView> findTranscriptPageAfter(
+            @Param("sessionId") Long sessionId,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // Every stored message by keyset on id, for rebuilding a search index
+    @Query("select m.id as id, m.sessionId as sessionId, m.role as role, m.content as content, m.createdAt as createdAt " +
+            "from Message m where m.id > :afterId order by m.id asc")
+    List<MessageView> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // The candidate message stored by an earlier submission with the same idempotency key
+    Optional<Message> findBySessionIdAndIdempotencyKey(Long sessionId, String idempotencyKey);
+
+    // Creation time of a message in a session, the keyset anchor for findTranscriptPageAfter
+    @Query("select m.createdAt from Message m where m.id = :id and m.sessionId = :sessionId")
+    Optional<LocalDateTime> findCreatedAt(@Param("sessionId") Long sessionId, @Param("id") Long id);
+
+    // Turns of one session, counted over its slice of idx_messages_session_created_id
+    long countBySessionIdAndRole(Long sessionId, MessageRole role);
+
+    // Remove a session's whole transcript in one statement, once it has been archived
+    @Modifying
+    @Query("delete from Message m where m.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+}
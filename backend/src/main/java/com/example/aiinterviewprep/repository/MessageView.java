@@ -0,0 +1,19 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.MessageRole;
+
+import java.time.LocalDateTime;
+
+// Read-only projection of a message for the transcript API; no entity, no lazy session association
+public interface MessageView {
+
+    Long getId();
+
+    Long getSessionId();
+
+    MessageRole getRole();
+
+    String getContent();
+
+    LocalDateTime getCreatedAt();
+}
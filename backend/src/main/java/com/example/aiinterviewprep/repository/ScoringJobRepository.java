@@ -0,0 +1,16 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.ScoringJob;
+import com.example.aiinterviewprep.entity.ScoringJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScoringJobRepository extends JpaRepository<ScoringJob, Long> {
+
+    // Jobs whose runner stopped checkpointing (e.g. the instance restarted) and that should be resumed
+    List<ScoringJob> findByStatusAndHeartbeatAtBeforeOrderByIdAsc(ScoringJobStatus status, LocalDateTime cutoff);
+}
@@ -0,0 +1,21 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.SessionScore;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SessionScoreRepository extends JpaRepository<SessionScore, Long> {
+
+    Optional<SessionScore> findByJobIdAndSessionId(Long jobId, Long sessionId);
+
+    // Sessions of a resumed chunk that were scored before the interruption are skipped
+    boolean existsByJobIdAndSessionId(Long jobId, Long sessionId);
+
+    // One page of a job's results by keyset on session id (uk_session_scores_job_session)
+    List<SessionScore> findByJobIdAndSessionIdGreaterThanOrderBySessionIdAsc(Long jobId, Long afterSessionId, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.example.aiinterviewprep.repository;
+
+import com.example.aiinterviewprep.entity.TranscriptArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TranscriptArchiveRepository extends JpaRepository<TranscriptArchive, Long> {
+
+    // Sessions whose archives are older than the retention period, read before they are deleted
+    @Query("select a.sessionId from TranscriptArchive a where a.archivedAt < :cutoff")
+    List<Long> findSessionIdsArchivedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Remove archives older than the retention period in one statement
+    @Modifying
+    @Query("delete from TranscriptArchive a where a.archivedAt < :cutoff")
+    int deleteArchivedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,119 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+// What a turn needs to know about its session (role, difficulty, version), kept in memory while the session
+// is active so a turn reads no session row. Role and difficulty never change; the version is advanced here
+// by the turn that advanced it in the database. A stale entry (e.g. the session was ended or written on
+// another instance) costs correctness nothing: advanceVersion still compares against the row, and the
+// conflict evicts the entry. Entries of sessions changed on other instances are evicted as soon as the change
+// is announced (ClusterCoordinator). Hit ratio is exported as cache.gets{cache=interview.sessions}.
+@Service
+public class ActiveSessionCache {
+
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final Cache<Long, ActiveSession> sessions;
+
+    public ActiveSessionCache(
+            InterviewSessionRepository interviewSessionRepository,
+            ClusterCoordinator clusterCoordinator,
+            MeterRegistry meterRegistry,
+            @Value("${interview.sessions.max-cached:10000}") long maxCached,
+            @Value("${interview.sessions.idle-expiry:PT30M}") Duration idleExpiry
+    ) {
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxCached)
+                .expireAfterAccess(idleExpiry)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "interview.sessions");
+        clusterCoordinator.subscribe(ClusterCoordinator.Topic.SESSION, this::invalidate, sessions::invalidateAll);
+    }
+
+    // The cached state of an active session, read from the database on a miss.
+    // Throws IllegalArgumentException for an unknown session and IllegalStateException for an ended one.
+    public ActiveSession get(Long sessionId) {
+        ActiveSession session = sessions.getIfPresent(sessionId);
+        if (session != null) {
+            return session;
+        }
+        // Loaded outside Caffeine's compute so the DB read never runs while a map bin is locked
+        ActiveSession loaded = load(sessionId);
+        session = sessions.asMap().putIfAbsent(sessionId, loaded);
+        return session == null ? loaded : session;
+    }
+
+    // Seeds the entry for a session this instance just created, so its first turn is a hit too
+    public void put(InterviewSession session) {
+        sessions.put(session.getId(), new ActiveSession(session));
+    }
+
+    // Records that the caller advanced the session from expectedVersion; a concurrent change wins
+    public void advanced(Long sessionId, long expectedVersion) {
+        sessions.asMap().computeIfPresent(sessionId, (id, session) ->
+                session.version == expectedVersion ? session.withVersion(expectedVersion + 1) : session);
+    }
+
+    public void invalidate(Long sessionId) {
+        sessions.invalidate(sessionId);
+    }
+
+    private ActiveSession load(Long sessionId) {
+        InterviewSession session = interviewSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+        if (!Boolean.TRUE.equals(session.getActive())) {
+            throw new IllegalStateException("Session is not active: " + sessionId);
+        }
+        return new ActiveSession(session);
+    }
+
+    // Immutable snapshot; a new version replaces the entry rather than mutating it
+    public static final class ActiveSession {
+        private final Long id;
+        private final String role;
+        private final DifficultyLevel difficulty;
+        private final long version;
+
+        private ActiveSession(InterviewSession session) {
+            this(session.getId(), session.getRole(), session.getDifficulty(), session.getVersion());
+        }
+
+        private ActiveSession(Long id, String role, DifficultyLevel difficulty, long version) {
+            this.id = id;
+            this.role = role;
+            this.difficulty = difficulty;
+            this.version = version;
+        }
+
+        private ActiveSession withVersion(long version) {
+            return new ActiveSession(id, role, difficulty, version);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public DifficultyLevel getDifficulty() {
+            return difficulty;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
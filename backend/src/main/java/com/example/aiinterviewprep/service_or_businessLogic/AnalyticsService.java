@@ -0,0 +1,200 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.AnalyticsRollup;
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewFeedback;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.AnalyticsRollupRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Per (role, difficulty) rollups of ended sessions: count, mean score and score histogram, average turns and
+// duration. Each session is added once, in the transaction that settles its feedback (FeedbackService), so the
+// totals are exact and reads cost one row per (role, difficulty) however many sessions there are.
+// Sessions whose feedback settled before rollups existed are not included.
+@Service
+public class AnalyticsService {
+
+    private final AnalyticsRollupRepository analyticsRollupRepository;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate newTransaction;
+
+    public AnalyticsService(
+            AnalyticsRollupRepository analyticsRollupRepository,
+            MessageRepository messageRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.analyticsRollupRepository = analyticsRollupRepository;
+        this.messageRepository = messageRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Adds a session whose feedback just left PENDING. Runs in the caller's transaction, holding the rollup
+    // row's lock until it commits, so concurrent feedback jobs (on any instance) add up instead of overwriting.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(InterviewSession session, InterviewFeedback feedback) {
+        String roleKey = roleKey(session.getRole());
+        AnalyticsRollup rollup = lockRollup(roleKey, session.getRole(), session.getDifficulty());
+
+        rollup.setSessions(rollup.getSessions() + 1);
+        rollup.setTotalTurns(rollup.getTotalTurns() + messageRepository.countBySessionIdAndRole(session.getId(), MessageRole.CANDIDATE));
+        if (session.getEndedAt() != null) {
+            rollup.setTotalDurationSeconds(rollup.getTotalDurationSeconds()
+                    + Math.max(0, Duration.between(session.getCreatedAt(), session.getEndedAt()).toSeconds()));
+        }
+        Integer score = feedback.getScore();
+        if (feedback.getStatus() == FeedbackStatus.READY && score != null && score >= 1 && score <= AnalyticsRollup.MAX_SCORE) {
+            rollup.setScoredSessions(rollup.getScoredSessions() + 1);
+            rollup.setScoreSum(rollup.getScoreSum() + score);
+            long[] histogram = rollup.getScoreHistogram().clone();
+            histogram[score - 1]++;
+            rollup.setScoreHistogram(histogram);
+        }
+        rollup.setUpdatedAt(LocalDateTime.now());
+    }
+
+    // Every rollup, or those of one role and/or difficulty
+    @Transactional(readOnly = true)
+    public List<RollupResponse> getRollups(String role, DifficultyLevel difficulty) {
+        List<AnalyticsRollup> rollups;
+        if (role != null && !role.isBlank()) {
+            rollups = analyticsRollupRepository.findByRoleKeyOrderByDifficultyAsc(roleKey(role)).stream()
+                    .filter(rollup -> difficulty == null || rollup.getDifficulty() == difficulty)
+                    .toList();
+        } else if (difficulty != null) {
+            rollups = analyticsRollupRepository.findByDifficultyOrderByRoleKeyAsc(difficulty);
+        } else {
+            rollups = analyticsRollupRepository.findAllByOrderByRoleKeyAscDifficultyAsc();
+        }
+        return rollups.stream().map(RollupResponse::from).toList();
+    }
+
+    // The first session of a (role, difficulty) creates its row in a transaction of its own, so two creating it
+    // at once leave one row: the loser's insert violates uk_analytics_rollups_role_difficulty and it locks the winner's
+    private AnalyticsRollup lockRollup(String roleKey, String role, DifficultyLevel difficulty) {
+        return analyticsRollupRepository.findForUpdateByRoleKeyAndDifficulty(roleKey, difficulty).orElseGet(() -> {
+            try {
+                newTransaction.executeWithoutResult(status ->
+                        analyticsRollupRepository.save(new AnalyticsRollup(roleKey, role.trim(), difficulty)));
+            } catch (DataIntegrityViolationException exception) {
+                // Created concurrently
+            }
+            return analyticsRollupRepository.findForUpdateByRoleKeyAndDifficulty(roleKey, difficulty).orElseThrow();
+        });
+    }
+
+    // Same normalization as the opening question pool: roles differing only in case or spacing share a rollup
+    static String roleKey(String role) {
+        return role.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public static class RollupResponse {
+        private String role;
+        private DifficultyLevel difficulty;
+        private long sessions;
+        private long scoredSessions;
+        private Double meanScore;
+        private Map<Integer, Long> scoreHistogram;
+        private Double averageTurns;
+        private Double averageDurationSeconds;
+
+        static RollupResponse from(AnalyticsRollup rollup) {
+            RollupResponse response = new RollupResponse();
+            response.setRole(rollup.getRole());
+            response.setDifficulty(rollup.getDifficulty());
+            response.setSessions(rollup.getSessions());
+            response.setScoredSessions(rollup.getScoredSessions());
+            response.setMeanScore(rollup.getScoredSessions() == 0 ? null : (double) rollup.getScoreSum() / rollup.getScoredSessions());
+            Map<Integer, Long> histogram = new LinkedHashMap<>();
+            for (int score = 1; score <= AnalyticsRollup.MAX_SCORE; score++) {
+                histogram.put(score, rollup.getScoreHistogram()[score - 1]);
+            }
+            response.setScoreHistogram(histogram);
+            if (rollup.getSessions() > 0) {
+                response.setAverageTurns((double) rollup.getTotalTurns() / rollup.getSessions());
+                response.setAverageDurationSeconds((double) rollup.getTotalDurationSeconds() / rollup.getSessions());
+            }
+            return response;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        public DifficultyLevel getDifficulty() {
+            return difficulty;
+        }
+
+        public void setDifficulty(DifficultyLevel difficulty) {
+            this.difficulty = difficulty;
+        }
+
+        public long getSessions() {
+            return sessions;
+        }
+
+        public void setSessions(long sessions) {
+            this.sessions = sessions;
+        }
+
+        public long getScoredSessions() {
+            return scoredSessions;
+        }
+
+        public void setScoredSessions(long scoredSessions) {
+            this.scoredSessions = scoredSessions;
+        }
+
+        public Double getMeanScore() {
+            return meanScore;
+        }
+
+        public void setMeanScore(Double meanScore) {
+            this.meanScore = meanScore;
+        }
+
+        public Map<Integer, Long> getScoreHistogram() {
+            return scoreHistogram;
+        }
+
+        public void setScoreHistogram(Map<Integer, Long> scoreHistogram) {
+            this.scoreHistogram = scoreHistogram;
+        }
+
+        public Double getAverageTurns() {
+            return averageTurns;
+        }
+
+        public void setAverageTurns(Double averageTurns) {
+            this.averageTurns = averageTurns;
+        }
+
+        public Double getAverageDurationSeconds() {
+            return averageDurationSeconds;
+        }
+
+        public void setAverageDurationSeconds(Double averageDurationSeconds) {
+            this.averageDurationSeconds = averageDurationSeconds;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.ScoringJob;
+import com.example.aiinterviewprep.entity.ScoringJobStatus;
+import com.example.aiinterviewprep.entity.SessionScore;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.ScoringJobRepository;
+import com.example.aiinterviewprep.repository.SessionScoreRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Re-scores ended sessions in bulk (e.g. after the feedback rubric changed) without touching the sessions or
+// the feedback their candidates were shown: results go to session_scores under a ScoringJob.
+// A job walks its sessions in id order, chunk-size at a time. Each chunk is scored on scoringTaskExecutor
+// (at most interview.scoring.parallelism model calls at once, admitted as FEEDBACK calls, behind live traffic)
+// and then checkpointed, so an interrupted job resumes after its last finished chunk. The sweep resumes RUNNING
+// jobs that have not checkpointed for stale-after; in cluster mode only the leader sweeps.
+@Service
+public class BatchScoringService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchScoringService.class);
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_SCORE_PAGE_SIZE = 200;
+
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final ScoringJobRepository scoringJobRepository;
+    private final SessionScoreRepository sessionScoreRepository;
+    private final TranscriptArchiveService transcriptArchiveService;
+    private final OpenAiClientService openAiClientService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor scoringJobExecutor;
+    private final TaskExecutor scoringTaskExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final Duration staleAfter;
+    // Jobs with a runner on this instance, so the sweep does not start a second one
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public BatchScoringService(
+            InterviewSessionRepository interviewSessionRepository,
+            ScoringJobRepository scoringJobRepository,
+            SessionScoreRepository sessionScoreRepository,
+            TranscriptArchiveService transcriptArchiveService,
+            OpenAiClientService openAiClientService,
+            ClusterCoordinator clusterCoordinator,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("scoringJobExecutor") TaskExecutor scoringJobExecutor,
+            @Qualifier("scoringTaskExecutor") TaskExecutor scoringTaskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${interview.scoring.chunk-size:50}") int chunkSize,
+            @Value("${interview.scoring.stale-after:PT5M}") Duration staleAfter
+    ) {
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.scoringJobRepository = scoringJobRepository;
+        this.sessionScoreRepository = sessionScoreRepository;
+        this.transcriptArchiveService = transcriptArchiveService;
+        this.openAiClientService = openAiClientService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scoringJobExecutor = scoringJobExecutor;
+        this.scoringTaskExecutor = scoringTaskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.staleAfter = staleAfter;
+    }
+
+    // Scores every session that ended in [endedAfter, endedBefore); open bounds default to all sessions ended so far.
+    // Returns at once with the RUNNING job; poll getJob for progress.
+    public ScoringJobResponse start(LocalDateTime endedAfter, LocalDateTime endedBefore) {
+        LocalDateTime from = endedAfter == null ? EARLIEST : endedAfter;
+        LocalDateTime to = endedBefore == null ? LocalDateTime.now() : endedBefore;
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("endedAfter must be before endedBefore.");
+        }
+        ScoringJob job = transactionTemplate.execute(status -> scoringJobRepository.save(new ScoringJob(from, to)));
+        submit(job.getId());
+        return ScoringJobResponse.from(job);
+    }
+
+    public ScoringJobResponse getJob(Long jobId) {
+        return ScoringJobResponse.from(findJob(jobId));
+    }
+
+    // The runner notices at its next checkpoint; scores stored until then are kept
+    public ScoringJobResponse cancel(Long jobId) {
+        return ScoringJobResponse.from(transactionTemplate.execute(status -> {
+            ScoringJob job = findJob(jobId);
+            if (job.getStatus() == ScoringJobStatus.RUNNING) {
+                job.setStatus(ScoringJobStatus.CANCELLED);
+                job.setCompletedAt(LocalDateTime.now());
+            }
+            return scoringJobRepository.saveAndFlush(job);
+        }));
+    }
+
+    // One page of a job's scores in session id order; pass the previous page's nextAfterSessionId to continue
+    public ScorePage getScores(Long jobId, Long afterSessionId, int limit) {
+        findJob(jobId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_SCORE_PAGE_SIZE));
+        List<SessionScore> rows = sessionScoreRepository.findByJobIdAndSessionIdGreaterThanOrderBySessionIdAsc(
+                jobId, afterSessionId == null ? 0L : afterSessionId, PageRequest.of(0, pageSize + 1));
+
+        ScorePage page = new ScorePage();
+        page.setJobId(jobId);
+        page.setHasMore(rows.size() > pageSize);
+        page.setScores(rows.size() > pageSize ? rows.subList(0, pageSize) : rows);
+        page.setNextAfterSessionId(page.getScores().isEmpty()
+                ? afterSessionId
+                : page.getScores().get(page.getScores().size() - 1).getSessionId());
+        return page;
+    }
+
+    // Runs at startup and then every sweep-interval, on the leader only
+    @Scheduled(fixedDelayString = "${interview.scoring.sweep-interval:PT1M}")
+    public void resumeStale() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        for (ScoringJob job : scoringJobRepository.findByStatusAndHeartbeatAtBeforeOrderByIdAsc(ScoringJobStatus.RUNNING, cutoff)) {
+            if (!running.contains(job.getId()) && claim(job, cutoff)) {
+                log.info("Resuming scoring job {} after session {}.", job.getId(), job.getCheckpointSessionId());
+                submit(job.getId());
+            }
+        }
+    }
+
+    // Touching the heartbeat bumps the version, so of two instances resuming the same job only one wins
+    private boolean claim(ScoringJob stale, LocalDateTime cutoff) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                ScoringJob job = scoringJobRepository.findById(stale.getId()).orElse(null);
+                if (job == null || !job.getVersion().equals(stale.getVersion()) || !job.getHeartbeatAt().isBefore(cutoff)) {
+                    return false;
+                }
+                job.setHeartbeatAt(LocalDateTime.now());
+                scoringJobRepository.saveAndFlush(job);
+                return true;
+            }));
+        } catch (OptimisticLockingFailureException exception) {
+            return false;
+        }
+    }
+
+    private void submit(Long jobId) {
+        if (!running.add(jobId)) {
+            return;
+        }
+        scoringJobExecutor.execute(() -> {
+            try {
+                run(jobId);
+            } catch (RuntimeException exception) {
+                log.error("Scoring job {} stopped; the sweep resumes it from its last checkpoint.", jobId, exception);
+            } finally {
+                running.remove(jobId);
+            }
+        });
+    }
+
+    private void run(Long jobId) {
+        ScoringJob job = scoringJobRepository.findById(jobId).orElse(null);
+        while (job != null && job.getStatus() == ScoringJobStatus.RUNNING) {
+            List<Long> chunk = interviewSessionRepository.findScorableSessionIds(
+                    job.getCheckpointSessionId(), job.getEndedAfter(), job.getEndedBefore(), PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                advance(job, job.getCheckpointSessionId(), 0, 0, true);
+                return;
+            }
+
+            List<CompletableFuture<Outcome>> outcomes = chunk.stream()
+                    .map(sessionId -> CompletableFuture.supplyAsync(() -> score(jobId, sessionId), scoringTaskExecutor))
+                    .toList();
+            int scored = 0;
+            int failed = 0;
+            for (CompletableFuture<Outcome> outcome : outcomes) {
+                switch (outcome.join()) {
+                    case SCORED -> scored++;
+                    case FAILED -> failed++;
+                    case SKIPPED -> { }
+                }
+            }
+            job = advance(job, chunk.get(chunk.size() - 1), scored, failed, false);
+        }
+    }
+
+    // Checkpoints a finished chunk; null when the job was cancelled or taken over by another runner meanwhile
+    private ScoringJob advance(ScoringJob current, Long checkpointSessionId, int scored, int failed, boolean done) {
+        try {
+            return transactionTemplate.execute(status -> {
+                ScoringJob job = scoringJobRepository.findById(current.getId()).orElse(null);
+                if (job == null || job.getStatus() != ScoringJobStatus.RUNNING || !job.getVersion().equals(current.getVersion())) {
+                    return null;
+                }
+                job.setCheckpointSessionId(checkpointSessionId);
+                job.setScored(job.getScored() + scored);
+                job.setFailed(job.getFailed() + failed);
+                job.setHeartbeatAt(LocalDateTime.now());
+                if (done) {
+                    job.setStatus(ScoringJobStatus.COMPLETED);
+                    job.setCompletedAt(job.getHeartbeatAt());
+                }
+                return scoringJobRepository.saveAndFlush(job);
+            });
+        } catch (OptimisticLockingFailureException exception) {
+            return null;
+        }
+    }
+
+    // Reads the transcript in a short transaction, calls the model with none open, then stores the result
+    private Outcome score(Long jobId, Long sessionId) {
+        return StageTimers.operation(meterRegistry, "score_session", () -> {
+            SessionSnapshot snapshot = StageTimers.stage(meterRegistry, "score_session", "load_transcript", () ->
+                    transactionTemplate.execute(status -> {
+                        if (sessionScoreRepository.existsByJobIdAndSessionId(jobId, sessionId)) {
+                            return null;
+                        }
+                        InterviewSession session = interviewSessionRepository.findById(sessionId).orElse(null);
+                        return session == null ? null
+                                : new SessionSnapshot(session.getRole(), session.getDifficulty(), transcriptArchiveService.transcript(session));
+                    }));
+            if (snapshot == null) {
+                return Outcome.SKIPPED;
+            }
+
+            SessionScore score = new SessionScore(jobId, sessionId);
+            score.setStatus(FeedbackStatus.FAILED);
+            if (snapshot.history.isEmpty()) {
+                // Its archive passed retention
+                score.setOverallComments("No transcript left to score.");
+            } else {
+                try {
+                    OpenAiClientService.SessionFeedback feedback = StageTimers.stage(meterRegistry, "score_session", "model_call", () ->
+                            openAiClientService.rescoreSession(sessionId, snapshot.role, snapshot.difficulty, snapshot.history));
+                    score.setStatus(FeedbackStatus.READY);
+                    score.setStrengths(feedback.getStrengths());
+                    score.setAreasForImprovement(feedback.getAreasForImprovement());
+                    score.setOverallComments(feedback.getOverallComments());
+                    score.setScore(feedback.getScore());
+                } catch (RuntimeException exception) {
+                    log.warn("Scoring job {} could not score session {}.", jobId, sessionId, exception);
+                }
+            }
+            score.setScoredAt(LocalDateTime.now());
+            StageTimers.stage(meterRegistry, "score_session", "store_score", () ->
+                    transactionTemplate.execute(status -> sessionScoreRepository.save(score)));
+
+            Outcome outcome = score.getStatus() == FeedbackStatus.READY ? Outcome.SCORED : Outcome.FAILED;
+            scoredSessions(outcome).increment();
+            return outcome;
+        });
+    }
+
+    private Counter scoredSessions(Outcome outcome) {
+        return Counter.builder("interview.scoring.sessions")
+                .description("Sessions scored by batch scoring jobs")
+                .tag("outcome", outcome.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    private ScoringJob findJob(Long jobId) {
+        return scoringJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Scoring job not found: " + jobId));
+    }
+
+    private enum Outcome {
+        SCORED,
+        FAILED,
+        SKIPPED  // already scored before an interruption, or the session no longer exists
+    }
+
+    private static class SessionSnapshot {
+        private final String role;
+        private final DifficultyLevel difficulty;
+        private final List<Message> history;
+
+        private SessionSnapshot(String role, DifficultyLevel difficulty, List<Message> history) {
+            this.role = role;
+            this.difficulty = difficulty;
+            this.history = history;
+        }
+    }
+
+    public static class ScoringJobResponse {
+        private Long id;
+        private ScoringJobStatus status;
+        private LocalDateTime endedAfter;
+        private LocalDateTime endedBefore;
+        private Long checkpointSessionId;
+        private Integer scored;
+        private Integer failed;
+        private LocalDateTime createdAt;
+        private LocalDateTime completedAt;
+
+        static ScoringJobResponse from(ScoringJob job) {
+            ScoringJobResponse response = new ScoringJobResponse();
+            response.setId(job.getId());
+            response.setStatus(job.getStatus());
+            response.setEndedAfter(job.getEndedAfter());
+            response.setEndedBefore(job.getEndedBefore());
+            response.setCheckpointSessionId(job.getCheckpointSessionId());
+            response.setScored(job.getScored());
+            response.setFailed(job.getFailed());
+            response.setCreatedAt(job.getCreatedAt());
+            response.setCompletedAt(job.getCompletedAt());
+            return response;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public ScoringJobStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(ScoringJobStatus status) {
+            this.status = status;
+        }
+
+        public LocalDateTime getEndedAfter() {
+            return endedAfter;
+        }
+
+        public void setEndedAfter(LocalDateTime endedAfter) {
+            this.endedAfter = endedAfter;
+        }
+
+        public LocalDateTime getEndedBefore() {
+            return endedBefore;
+        }
+
+        public void setEndedBefore(LocalDateTime endedBefore) {
+            this.endedBefore = endedBefore;
+        }
+
+        public Long getCheckpointSessionId() {
+            return checkpointSessionId;
+        }
+
+        public void setCheckpointSessionId(Long checkpointSessionId) {
+            this.checkpointSessionId = checkpointSessionId;
+        }
+
+        public Integer getScored() {
+            return scored;
+        }
+
+        public void setScored(Integer scored) {
+            this.scored = scored;
+        }
+
+        public Integer getFailed() {
+            return failed;
+        }
+
+        public void setFailed(Integer failed) {
+            this.failed = failed;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getCompletedAt() {
+            return completedAt;
+        }
+
+        public void setCompletedAt(LocalDateTime completedAt) {
+            this.completedAt = completedAt;
+        }
+    }
+
+    // nextAfterSessionId is the afterSessionId for the following request
+    public static class ScorePage {
+        private Long jobId;
+        private List<SessionScore> scores;
+        private Long nextAfterSessionId;
+        private boolean hasMore;
+
+        public Long getJobId() {
+            return jobId;
+        }
+
+        public void setJobId(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        public List<SessionScore> getScores() {
+            return scores;
+        }
+
+        public void setScores(List<SessionScore> scores) {
+            this.scores = scores;
+        }
+
+        public Long getNextAfterSessionId() {
+            return nextAfterSessionId;
+        }
+
+        public void setNextAfterSessionId(Long nextAfterSessionId) {
+            this.nextAfterSessionId = nextAfterSessionId;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        public void setHasMore(boolean hasMore) {
+            this.hasMore = hasMore;
+        }
+    }
+}
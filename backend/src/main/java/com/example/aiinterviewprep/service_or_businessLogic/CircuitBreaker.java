@@ -0,0 +1,104 @@
+package com.example.aiinterviewprep.service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Consecutive-failure circuit breaker. After failureThreshold failures in a row calls fail fast for openDuration;
+// then a single probe call is let through, and its outcome either closes the circuit or opens it again.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // ReentrantLock rather than synchronized so callers on virtual threads never pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    // Returns false while the circuit is open. Every true must be followed by one of the on* calls below.
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The provider answered normally (4xx included: it is up, the request was wrong)
+    public void onSuccess() {
+        lock.lock();
+        try {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            probeInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The provider failed with a 5xx, a timeout or a dropped connection
+    public void onFailure() {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAtNanos = System.nanoTime();
+            }
+            probeInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The call ended without saying anything about the provider's health (e.g. a 429 or an interrupt)
+    public void onIgnored() {
+        lock.lock();
+        try {
+            probeInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Time until an open circuit lets the next probe through
+    public Duration remainingOpen() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(Math.max(0, openDurationNanos - (System.nanoTime() - openedAtNanos)));
+        } finally {
+            lock.unlock();
+        }
+    }
+}
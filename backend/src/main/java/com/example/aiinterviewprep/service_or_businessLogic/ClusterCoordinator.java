@@ -0,0 +1,402 @@
+package com.example.aiinterviewprep.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+// Coordinates instances that share one PostgreSQL database (interview.cluster.enabled=true):
+//   session locks   a session-level advisory lock per session id, so a session's turns and its feedback job run
+//                   on one instance at a time. All of them are taken on one dedicated connection; threads of this
+//                   instance are already kept apart by SessionTurnCoordinator's local lock.
+//   leadership      the instance holding the leader advisory lock runs the background sweeps. If it dies, its
+//                   connection drops, PostgreSQL releases the lock and another instance takes over at its next
+//                   heartbeat.
+//   invalidation    changes to a session are announced with NOTIFY on interview.cluster.channel; every other
+//                   instance LISTENs and evicts what it cached for that session.
+// The locks only spare work and keep turns in order: InterviewSession.version still rejects a turn that ran
+// against stale state, e.g. one that reached an instance just before the invalidation did.
+// With clustering off (the default, and the only option on H2) every method behaves as for a single instance.
+@Service
+public class ClusterCoordinator implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+    // Two-int advisory keys live apart from the bigint keys used for sessions, so the two cannot collide
+    private static final int LOCK_NAMESPACE = 0x1A1;
+    private static final int LEADER_KEY = 1;
+    private static final long LISTEN_POLL_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+    private static final long HELD_ELSEWHERE = -1;
+    private static final long NOT_LOCKED = -2;
+
+    // What changed; each instance subscribes the caches that depend on it
+    public enum Topic {
+        SESSION,
+        FEEDBACK
+    }
+
+    // Unpooled: advisory locks and LISTEN belong to the database session, which a pooled connection outlives
+    private final DataSource dataSource;
+    // The pool, so a notification joins the transaction it announces
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final String channel;
+    private final Map<Topic, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    // Guards lockConnection; a ReentrantLock rather than synchronized, so virtual threads waiting on it do not pin
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private Connection lockConnection;
+    // Bumped whenever lockConnection is replaced: locks taken on an earlier connection are already gone
+    private long connectionGeneration;
+    private volatile boolean leader;
+    private volatile boolean closed;
+    private volatile Connection listenConnection;
+    private Thread listener;
+
+    @Autowired
+    public ClusterCoordinator(
+            DataSource pooledDataSource,
+            DataSourceProperties dataSourceProperties,
+            MeterRegistry meterRegistry,
+            @Value("${interview.cluster.enabled:false}") boolean enabled,
+            @Value("${interview.cluster.node-id:}") String nodeId,
+            @Value("${interview.cluster.channel:interview_invalidation}") String channel
+    ) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("interview.cluster.channel must be a lower-case SQL identifier: " + channel);
+        }
+        this.dataSource = enabled
+                ? dataSourceProperties.initializeDataSourceBuilder().type(SimpleDriverDataSource.class).build()
+                : null;
+        this.jdbcTemplate = pooledDataSource == null ? null : new JdbcTemplate(pooledDataSource);
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId.trim();
+        this.channel = channel;
+        Gauge.builder("interview.cluster.leader", this, coordinator -> coordinator.isLeader() ? 1 : 0)
+                .description("1 while this instance runs the background sweeps")
+                .register(meterRegistry);
+    }
+
+    // A single instance on its own, for components built outside Spring (tests)
+    public static ClusterCoordinator standalone() {
+        return new ClusterCoordinator(null, null, new SimpleMeterRegistry(), false, "", "interview_invalidation");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            String database = connection.getMetaData().getDatabaseProductName();
+            if (!"PostgreSQL".equals(database)) {
+                throw new IllegalStateException("interview.cluster.enabled requires PostgreSQL, not " + database + ".");
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Could not reach the database to join the cluster.", exception);
+        }
+        heartbeat();
+        listener = Thread.ofPlatform().daemon().name("interview-cluster-listener").start(this::listen);
+        log.info("Joined the cluster as node {} (leader: {}).", nodeId, leader);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Background sweeps run only where this is true; always true for a single instance
+    public boolean isLeader() {
+        return !enabled || leader;
+    }
+
+    // Checks the lock connection (reopening it after a failure) and tries to become leader if nobody is
+    @Scheduled(fixedDelayString = "${interview.cluster.heartbeat-interval:PT5S}")
+    public void heartbeat() {
+        if (!enabled || closed) {
+            return;
+        }
+        connectionLock.lock();
+        try {
+            Connection connection = lockConnection();
+            if (!leader) {
+                leader = tryAdvisoryLock(connection, "select pg_try_advisory_lock(cast(? as integer), cast(? as integer))", LOCK_NAMESPACE, LEADER_KEY);
+                if (leader) {
+                    log.info("Node {} is now the cluster leader.", nodeId);
+                }
+            }
+        } catch (SQLException exception) {
+            dropLockConnection(exception);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    // Runs work while holding the session's cluster-wide lock, waiting at most timeout for another instance to
+    // release it (then a 409). If the lock cannot be taken at all (database trouble) the work runs without it.
+    public <T> T runLocked(Long sessionId, Duration timeout, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long backoffMillis = 10;
+        long generation;
+        while ((generation = tryLockSession(sessionId)) == HELD_ELSEWHERE) {
+            if (System.nanoTime() >= deadline) {
+                throw new OptimisticLockingFailureException("Session " + sessionId + " is still processing an earlier message on another instance.");
+            }
+            sleep(backoffMillis);
+            backoffMillis = Math.min(backoffMillis * 2, 200);
+        }
+        try {
+            return work.get();
+        } finally {
+            unlockSession(sessionId, generation);
+        }
+    }
+
+    // Runs work only if no other instance holds the session's lock; returns whether it ran
+    public boolean tryRunLocked(Long sessionId, Runnable work) {
+        if (!enabled) {
+            work.run();
+            return true;
+        }
+        long generation = tryLockSession(sessionId);
+        if (generation == HELD_ELSEWHERE) {
+            return false;
+        }
+        try {
+            work.run();
+            return true;
+        } finally {
+            unlockSession(sessionId, generation);
+        }
+    }
+
+    // Tells the other instances that the session changed. Call it inside the transaction making the change:
+    // NOTIFY is transactional, so the others hear of it exactly when (and only if) it commits.
+    public void publish(Topic topic, Long sessionId) {
+        if (!enabled) {
+            return;
+        }
+        String payload = nodeId + " " + topic.name() + " " + sessionId;
+        jdbcTemplate.execute("select pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) statement -> {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            return statement.execute();
+        });
+    }
+
+    // onChange gets the id of a session another instance changed; onMissed runs after the listener had to
+    // reconnect, when notifications may have been lost and everything cached should be dropped
+    public void subscribe(Topic topic, LongConsumer onChange, Runnable onMissed) {
+        subscriptions.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(new Subscription(onChange, onMissed));
+    }
+
+    // Closing the lock connection releases this instance's session locks and leadership at once
+    @Override
+    public void close() {
+        closed = true;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        closeQuietly(listenConnection);
+        connectionLock.lock();
+        try {
+            leader = false;
+            closeQuietly(lockConnection);
+            lockConnection = null;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    // The generation of the connection the lock was taken on, HELD_ELSEWHERE, or NOT_LOCKED if the database failed
+    private long tryLockSession(Long sessionId) {
+        connectionLock.lock();
+        try {
+            Connection connection = lockConnection();
+            return tryAdvisoryLock(connection, "select pg_try_advisory_lock(?)", sessionId) ? connectionGeneration : HELD_ELSEWHERE;
+        } catch (SQLException exception) {
+            dropLockConnection(exception);
+            return NOT_LOCKED;
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void unlockSession(Long sessionId, long generation) {
+        if (generation < 0) {
+            return;
+        }
+        connectionLock.lock();
+        try {
+            // A replaced connection took its locks with it
+            if (generation != connectionGeneration || lockConnection == null) {
+                return;
+            }
+            tryAdvisoryLock(lockConnection, "select pg_advisory_unlock(?)", sessionId);
+        } catch (SQLException exception) {
+            dropLockConnection(exception);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    // Caller holds connectionLock
+    private Connection lockConnection() throws SQLException {
+        if (lockConnection == null || !lockConnection.isValid(2)) {
+            if (lockConnection != null) {
+                dropLockConnection(null);
+            }
+            lockConnection = dataSource.getConnection();
+            connectionGeneration++;
+        }
+        return lockConnection;
+    }
+
+    // Caller holds connectionLock
+    private void dropLockConnection(SQLException cause) {
+        if (cause != null) {
+            log.warn("Cluster lock connection failed; session locks and leadership are released.", cause);
+        }
+        if (leader) {
+            log.info("Node {} is no longer the cluster leader.", nodeId);
+        }
+        leader = false;
+        closeQuietly(lockConnection);
+        lockConnection = null;
+    }
+
+    private static boolean tryAdvisoryLock(Connection connection, String sql, long... keys) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int index = 0; index < keys.length; index++) {
+                statement.setLong(index + 1, keys[index]);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    // Runs on its own thread for the life of the instance, reconnecting after failures
+    private void listen() {
+        boolean connectedBefore = false;
+        while (!closed) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                listenConnection = connection;
+                statement.execute("LISTEN " + channel);
+                if (connectedBefore) {
+                    subscriptions.values().forEach(list -> list.forEach(subscription -> run(subscription.onMissed)));
+                }
+                connectedBefore = true;
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (!closed) {
+                    PGNotification[] received = notifications.getNotifications((int) LISTEN_POLL_MILLIS);
+                    if (received != null) {
+                        for (PGNotification notification : received) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException exception) {
+                if (closed) {
+                    return;
+                }
+                log.warn("Cluster invalidation listener failed; reconnecting.", exception);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } finally {
+                listenConnection = null;
+            }
+        }
+    }
+
+    // "<node id> <topic> <session id>"; an instance ignores its own notifications
+    private void dispatch(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            Topic topic = Topic.valueOf(parts[1]);
+            long sessionId = Long.parseLong(parts[2]);
+            subscriptions.getOrDefault(topic, List.of()).forEach(subscription -> run(() -> subscription.onChange.accept(sessionId)));
+        } catch (IllegalArgumentException exception) {
+            log.debug("Ignoring cluster notification {}.", payload);
+        }
+    }
+
+    private static void run(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException exception) {
+            log.warn("Cluster invalidation callback failed.", exception);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a session lock.", exception);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException exception) {
+            log.debug("Could not close cluster connection.", exception);
+        }
+    }
+
+    private static final class Subscription {
+        private final LongConsumer onChange;
+        private final Runnable onMissed;
+
+        private Subscription(LongConsumer onChange, Runnable onMissed) {
+            this.onChange = onChange;
+            this.onMissed = onMissed;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.CachedCompletion;
+import com.example.aiinterviewprep.repository.CachedCompletionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Model completions keyed by the SHA-256 of their canonical request payload. What happens on a repeat
+// depends on the call type:
+//   OPENING, FEEDBACK  cached (opening-ttl / feedback-ttl) in a W-TinyLFU bounded Caffeine tier and, when
+//                      persistent=true, in the completion_cache table so restarts and other nodes share them
+//   REPLY, SUMMARY     only deduplicated: identical requests in flight at the same time share one call
+//   OPENING_PREFETCH   neither; every prefetched question must be a fresh sample
+@Service
+public class CompletionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CompletionCache.class);
+
+    private final CachedCompletionRepository cachedCompletionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean persistent;
+    private final Duration openingTtl;
+    private final Duration feedbackTtl;
+    private final Cache<String, Entry> memory;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletionCache(
+            CachedCompletionRepository cachedCompletionRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${interview.completion-cache.enabled:true}") boolean enabled,
+            @Value("${interview.completion-cache.max-entries:10000}") long maxEntries,
+            @Value("${interview.completion-cache.persistent:false}") boolean persistent,
+            @Value("${interview.completion-cache.opening-ttl:PT1H}") Duration openingTtl,
+            @Value("${interview.completion-cache.feedback-ttl:P7D}") Duration feedbackTtl
+    ) {
+        this.cachedCompletionRepository = cachedCompletionRepository;
+        this.transactionTemplate = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.persistent = persistent && cachedCompletionRepository != null;
+        this.openingTtl = openingTtl;
+        this.feedbackTtl = feedbackTtl;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(Expiry.creating((String key, Entry entry) -> entry.ttl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "model.completions");
+    }
+
+    // No caching or deduplication at all, for clients built outside Spring (tests, benchmarks)
+    public static CompletionCache disabled() {
+        return new CompletionCache(null, null, new SimpleMeterRegistry(), false, 0, false, Duration.ZERO, Duration.ZERO);
+    }
+
+    // Returns the completion for this payload hash, calling the model only when the policy requires it
+    public String get(ModelCallType callType, String key, Supplier<String> modelCall) {
+        Duration ttl = ttl(callType);
+        if (!enabled || callType == ModelCallType.OPENING_PREFETCH) {
+            return modelCall.get();
+        }
+
+        if (ttl != null) {
+            String cached = lookup(callType, key, ttl);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            record(callType, "deduplicated");
+            return join(existing);
+        }
+
+        record(callType, "miss");
+        try {
+            String content = modelCall.get();
+            if (ttl != null) {
+                store(callType, key, content, ttl);
+            }
+            call.complete(content);
+            return content;
+        } catch (RuntimeException exception) {
+            call.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${interview.completion-cache.purge-interval:PT1H}")
+    public void purgeExpired() {
+        if (persistent) {
+            transactionTemplate.executeWithoutResult(status -> cachedCompletionRepository.deleteExpired(LocalDateTime.now()));
+        }
+    }
+
+    // null means the call type is never served from the cache
+    private Duration ttl(ModelCallType callType) {
+        return switch (callType) {
+            case OPENING -> openingTtl;
+            case FEEDBACK -> feedbackTtl;
+            default -> null;
+        };
+    }
+
+    private String lookup(ModelCallType callType, String key, Duration ttl) {
+        Entry entry = memory.getIfPresent(key);
+        if (entry != null) {
+            record(callType, "memory_hit");
+            return entry.content;
+        }
+        if (!persistent) {
+            return null;
+        }
+
+        try {
+            CachedCompletion stored = cachedCompletionRepository.findByCacheKeyAndExpiresAtAfter(key, LocalDateTime.now()).orElse(null);
+            if (stored == null) {
+                return null;
+            }
+            // Promote to memory for the rest of its lifetime
+            Duration remaining = Duration.between(LocalDateTime.now(), stored.getExpiresAt());
+            memory.put(key, new Entry(stored.getContent(), remaining.isNegative() ? Duration.ZERO : remaining));
+            record(callType, "persistent_hit");
+            return stored.getContent();
+        } catch (RuntimeException exception) {
+            log.warn("Completion cache lookup failed; calling the model instead.", exception);
+            return null;
+        }
+    }
+
+    private void store(ModelCallType callType, String key, String content, Duration ttl) {
+        memory.put(key, new Entry(content, ttl));
+        if (!persistent) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> cachedCompletionRepository.save(
+                    new CachedCompletion(key, callType.name(), content, LocalDateTime.now().plus(ttl))));
+        } catch (RuntimeException exception) {
+            log.warn("Could not persist a cached completion; it stays in memory only.", exception);
+        }
+    }
+
+    private void record(ModelCallType callType, String result) {
+        meterRegistry.counter("model.completion.cache.lookups", "type", callType.name(), "result", result).increment();
+    }
+
+    private static String join(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    private static class Entry {
+        private final String content;
+        private final Duration ttl;
+
+        private Entry(String content, Duration ttl) {
+            this.content = content;
+            this.ttl = ttl;
+        }
+    }
+}
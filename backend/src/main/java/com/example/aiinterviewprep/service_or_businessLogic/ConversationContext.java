@@ -0,0 +1,36 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+
+import java.util.List;
+
+// What the model sees of a session: a rolling summary of older turns plus the latest messages verbatim.
+// sessionId (null when the context is not tied to a stored session) is the fairness key for model admission.
+public class ConversationContext {
+
+    private final Long sessionId;
+    private final String summary;
+    private final List<Message> recentMessages;
+
+    public ConversationContext(Long sessionId, String summary, List<Message> recentMessages) {
+        this.sessionId = sessionId;
+        this.summary = summary;
+        this.recentMessages = List.copyOf(recentMessages);
+    }
+
+    public ConversationContext(String summary, List<Message> recentMessages) {
+        this(null, summary, recentMessages);
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public List<Message> getRecentMessages() {
+        return recentMessages;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps a per-session transcript in memory so a turn appends to it instead of re-reading the whole
+// conversation. Only the newest messages (bounded by count and token budget) are kept verbatim; older
+// ones are folded into InterviewSession.contextSummary in the background once the budget is exceeded.
+// Tokens are counted with the model's own encoding (see Tokenizer); each message is encoded once.
+@Service
+public class ConversationContextManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationContextManager.class);
+
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final MessageRepository messageRepository;
+    private final OpenAiClientService openAiClientService;
+    private final Tokenizer tokenizer;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final int verbatimMessages;
+    private final int tokenBudget;
+    private final Cache<Long, SessionTranscript> transcripts;
+
+    public ConversationContextManager(
+            InterviewSessionRepository interviewSessionRepository,
+            MessageRepository messageRepository,
+            OpenAiClientService openAiClientService,
+            Tokenizer tokenizer,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${interview.context.verbatim-messages:12}") int verbatimMessages,
+            @Value("${interview.context.token-budget:2000}") int tokenBudget,
+            @Value("${interview.context.max-cached-sessions:10000}") long maxCachedSessions,
+            @Value("${interview.context.idle-expiry:PT30M}") Duration idleExpiry,
+            ClusterCoordinator clusterCoordinator
+    ) {
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.messageRepository = messageRepository;
+        this.openAiClientService = openAiClientService;
+        this.tokenizer = tokenizer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.verbatimMessages = verbatimMessages;
+        this.tokenBudget = tokenBudget;
+        this.transcripts = Caffeine.newBuilder()
+                .maximumSize(maxCachedSessions)
+                .expireAfterAccess(idleExpiry)
+                .build();
+        // A turn answered on another instance makes this transcript incomplete; it is reloaded on next use
+        clusterCoordinator.subscribe(ClusterCoordinator.Topic.SESSION, this::evict, transcripts::invalidateAll);
+    }
+
+    // Adds a committed message to the session's transcript and returns the context for the next model call.
+    // On a cache miss the transcript is loaded once: the stored summary plus the messages after it.
+    public ConversationContext append(Long sessionId, Message message) {
+        SessionTranscript transcript = transcripts.getIfPresent(sessionId);
+        if (transcript == null) {
+            // Loaded outside Caffeine's compute so the DB read never runs while a map bin is locked
+            SessionTranscript loaded = load(sessionId);
+            transcript = transcripts.asMap().putIfAbsent(sessionId, loaded);
+            if (transcript == null) {
+                transcript = loaded;
+            }
+        }
+        return transcript.append(message);
+    }
+
+    // Starts the transcript of a session just created with its opening question, so the first turn needs no load
+    public void start(Long sessionId, Message opening) {
+        transcripts.put(sessionId, new SessionTranscript(sessionId, null, List.of(opening)));
+    }
+
+    public void evict(Long sessionId) {
+        transcripts.invalidate(sessionId);
+    }
+
+    // Folds the oldest verbatim messages into the rolling summary once the transcript is over budget.
+    // Runs off the request path; until it finishes the next turn simply sends a slightly longer context.
+    public void compactInBackground(Long sessionId, String role, DifficultyLevel difficulty) {
+        SessionTranscript transcript = transcripts.getIfPresent(sessionId);
+        if (transcript == null || !transcript.overBudget(tokenizer, verbatimMessages, tokenBudget)) {
+            return;
+        }
+        backgroundTaskExecutor.execute(() -> compact(sessionId, transcript, role, difficulty));
+    }
+
+    private void compact(Long sessionId, SessionTranscript transcript, String role, DifficultyLevel difficulty) {
+        if (!transcript.compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            SessionTranscript.Fold fold = transcript.planFold(tokenizer, verbatimMessages, tokenBudget);
+            if (fold == null) {
+                return;
+            }
+
+            String summary = openAiClientService.summarizeConversation(sessionId, role, difficulty, fold.previousSummary, fold.messages);
+            Message lastFolded = fold.messages.get(fold.messages.size() - 1);
+
+            transactionTemplate.executeWithoutResult(status -> interviewSessionRepository.updateContextSummary(
+                    sessionId, summary, lastFolded.getCreatedAt(), lastFolded.getId()));
+            transcript.applyFold(summary, fold.messages.size());
+        } catch (RuntimeException exception) {
+            log.warn("Could not summarize context for session {}; keeping it verbatim for now.", sessionId, exception);
+        } finally {
+            transcript.compacting.set(false);
+        }
+    }
+
+    private SessionTranscript load(Long sessionId) {
+        return transactionTemplate.execute(status -> {
+            InterviewSession session = interviewSessionRepository.findById(sessionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+
+            List<Message> unsummarized = session.getSummarizedThrough() == null
+                    ? messageRepository.findBySessionIdOrderByCreatedAtAscIdAsc(sessionId)
+                    : messageRepository.findUnsummarized(sessionId, session.getSummarizedThrough(), session.getSummarizedThroughId());
+            return new SessionTranscript(sessionId, session.getContextSummary(), unsummarized);
+        });
+    }
+
+    private static class SessionTranscript {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean compacting = new AtomicBoolean();
+        private final Long sessionId;
+        private final List<Message> messages;
+        private String summary;
+
+        private SessionTranscript(Long sessionId, String summary, List<Message> messages) {
+            this.sessionId = sessionId;
+            this.summary = summary;
+            this.messages = new ArrayList<>(messages);
+        }
+
+        private ConversationContext append(Message message) {
+            lock.lock();
+            try {
+                // The message may already be there when the transcript was loaded after it was committed
+                boolean present = messages.stream().anyMatch(existing -> existing.getId().equals(message.getId()));
+                if (!present) {
+                    messages.add(message);
+                }
+                return new ConversationContext(sessionId, summary, messages);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean overBudget(Tokenizer tokenizer, int verbatimMessages, int tokenBudget) {
+            lock.lock();
+            try {
+                return messages.size() > verbatimMessages || verbatimTokens(tokenizer, 0) > tokenBudget;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Keeps the newest messages that fit both limits and returns everything older
+        private Fold planFold(Tokenizer tokenizer, int verbatimMessages, int tokenBudget) {
+            lock.lock();
+            try {
+                int keepFrom = Math.max(0, messages.size() - verbatimMessages);
+                while (keepFrom < messages.size() - 1 && verbatimTokens(tokenizer, keepFrom) > tokenBudget) {
+                    keepFrom++;
+                }
+                return keepFrom == 0 ? null : new Fold(summary, List.copyOf(messages.subList(0, keepFrom)));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void applyFold(String newSummary, int foldedCount) {
+            lock.lock();
+            try {
+                messages.subList(0, foldedCount).clear();
+                summary = newSummary;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int verbatimTokens(Tokenizer tokenizer, int fromIndex) {
+            int tokens = 0;
+            for (int index = fromIndex; index < messages.size(); index++) {
+                tokens += tokenizer.count(messages.get(index));
+            }
+            return tokens;
+        }
+
+        private static class Fold {
+            private final String previousSummary;
+            private final List<Message> messages;
+
+            private Fold(String previousSummary, List<Message> messages) {
+                this.previousSummary = previousSummary;
+                this.messages = messages;
+            }
+        }
+    }
+}
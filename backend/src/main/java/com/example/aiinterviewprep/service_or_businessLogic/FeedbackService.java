@@ -0,0 +1,288 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewFeedback;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.repository.InterviewFeedbackRepository;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Generates end-of-session feedback off the request path. Ending a session stores a PENDING InterviewFeedback
+// row and queues a job on a bounded worker pool; the job calls the model with no transaction open and stores
+// the result. PENDING rows double as the durable queue: the sweep re-enqueues them at startup and periodically,
+// so jobs lost to a restart or a full queue still run.
+// In cluster mode only the leader sweeps, a job runs under the session's cluster-wide lock so two instances never
+// generate the same feedback, and long-poll waiters on every instance hear when it is stored.
+@Service
+public class FeedbackService {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedbackService.class);
+
+    private final InterviewFeedbackRepository interviewFeedbackRepository;
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final TranscriptArchiveService transcriptArchiveService;
+    private final OpenAiClientService openAiClientService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final AnalyticsService analyticsService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor feedbackTaskExecutor;
+    private final int maxAttempts;
+    private final MeterRegistry meterRegistry;
+    // Sessions with a job queued or running on this node, so the sweep does not queue them twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    // Long-poll waiters, completed when a session's feedback reaches READY or FAILED
+    private final Map<Long, CompletableFuture<FeedbackResponse>> completions = new ConcurrentHashMap<>();
+
+    public FeedbackService(
+            InterviewFeedbackRepository interviewFeedbackRepository,
+            InterviewSessionRepository interviewSessionRepository,
+            TranscriptArchiveService transcriptArchiveService,
+            OpenAiClientService openAiClientService,
+            ClusterCoordinator clusterCoordinator,
+            AnalyticsService analyticsService,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("feedbackTaskExecutor") TaskExecutor feedbackTaskExecutor,
+            @Value("${interview.feedback.max-attempts:3}") int maxAttempts,
+            MeterRegistry meterRegistry
+    ) {
+        this.interviewFeedbackRepository = interviewFeedbackRepository;
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.transcriptArchiveService = transcriptArchiveService;
+        this.openAiClientService = openAiClientService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.analyticsService = analyticsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.feedbackTaskExecutor = feedbackTaskExecutor;
+        this.maxAttempts = maxAttempts;
+        this.meterRegistry = meterRegistry;
+        clusterCoordinator.subscribe(ClusterCoordinator.Topic.FEEDBACK, this::completeWaiters, this::completeAllWaiters);
+    }
+
+    // Called after the transaction that ended the session (and stored its PENDING row) has committed
+    public void enqueue(Long sessionId) {
+        if (!queued.add(sessionId)) {
+            return;
+        }
+        try {
+            feedbackTaskExecutor.execute(() -> {
+                try {
+                    StageTimers.operation(meterRegistry, "feedback_job", () ->
+                            clusterCoordinator.tryRunLocked(sessionId, () -> generate(sessionId)));
+                } finally {
+                    queued.remove(sessionId);
+                }
+            });
+        } catch (TaskRejectedException exception) {
+            queued.remove(sessionId);
+            log.warn("Feedback queue is full; session {} will be picked up by the next sweep.", sessionId);
+        }
+    }
+
+    // Runs at startup and then every sweep-interval, on the leader only
+    @Scheduled(fixedDelayString = "${interview.feedback.sweep-interval:PT1M}")
+    public void enqueuePending() {
+        if (!clusterCoordinator.isLeader()) {
+            return;
+        }
+        List<InterviewFeedback> pending = interviewFeedbackRepository.findByStatusOrderByRequestedAtAsc(FeedbackStatus.PENDING);
+        for (InterviewFeedback feedback : pending) {
+            enqueue(feedback.getSessionId());
+        }
+    }
+
+    public FeedbackResponse getFeedback(Long sessionId) {
+        return interviewFeedbackRepository.findBySessionId(sessionId)
+                .map(FeedbackResponse::from)
+                .orElseThrow(() -> new IllegalArgumentException("No feedback requested for session: " + sessionId));
+    }
+
+    // Completes with the feedback once it is READY or FAILED; already-finished feedback completes at once.
+    // The waiter is registered before the row is read, so a job finishing in between is never missed.
+    public CompletableFuture<FeedbackResponse> awaitFeedback(Long sessionId) {
+        CompletableFuture<FeedbackResponse> completion = completions.computeIfAbsent(sessionId, id -> new CompletableFuture<>());
+        FeedbackResponse current;
+        try {
+            current = getFeedback(sessionId);
+        } catch (IllegalArgumentException exception) {
+            completions.remove(sessionId, completion);
+            throw exception;
+        }
+        if (current.getStatus() != FeedbackStatus.PENDING) {
+            completions.remove(sessionId, completion);
+            completion.complete(current);
+        }
+        return completion;
+    }
+
+    private void generate(Long sessionId) {
+        SessionSnapshot snapshot = StageTimers.stage(meterRegistry, "feedback_job", "load_transcript", () -> transactionTemplate.execute(status -> {
+            InterviewFeedback feedback = interviewFeedbackRepository.findBySessionId(sessionId).orElse(null);
+            if (feedback == null || feedback.getStatus() != FeedbackStatus.PENDING) {
+                return null;
+            }
+            InterviewSession session = interviewSessionRepository.findById(sessionId).orElseThrow();
+            return new SessionSnapshot(session.getRole(), session.getDifficulty(), transcriptArchiveService.transcript(session));
+        }));
+        if (snapshot == null) {
+            return;
+        }
+
+        OpenAiClientService.SessionFeedback result;
+        try {
+            result = StageTimers.stage(meterRegistry, "feedback_job", "model_call", () ->
+                    openAiClientService.generateSessionFeedback(sessionId, snapshot.role, snapshot.difficulty, snapshot.history));
+        } catch (RuntimeException exception) {
+            log.warn("Feedback generation failed for session {}.", sessionId, exception);
+            result = null;
+        }
+
+        OpenAiClientService.SessionFeedback generated = result;
+        InterviewFeedback stored = StageTimers.stage(meterRegistry, "feedback_job", "store_feedback", () -> transactionTemplate.execute(status -> {
+            InterviewFeedback feedback = interviewFeedbackRepository.findBySessionId(sessionId).orElseThrow();
+            if (feedback.getStatus() != FeedbackStatus.PENDING) {
+                return feedback;
+            }
+            feedback.setAttempts(feedback.getAttempts() + 1);
+            if (generated != null) {
+                feedback.setStrengths(generated.getStrengths());
+                feedback.setAreasForImprovement(generated.getAreasForImprovement());
+                feedback.setOverallComments(generated.getOverallComments());
+                feedback.setScore(generated.getScore());
+                feedback.setStatus(FeedbackStatus.READY);
+                feedback.setCompletedAt(LocalDateTime.now());
+            } else if (feedback.getAttempts() >= maxAttempts) {
+                feedback.setStatus(FeedbackStatus.FAILED);
+                feedback.setCompletedAt(LocalDateTime.now());
+            }
+            if (feedback.getStatus() != FeedbackStatus.PENDING) {
+                // Settled exactly once, so the session is added to the analytics rollups exactly once
+                analyticsService.record(feedback.getSession(), feedback);
+                clusterCoordinator.publish(ClusterCoordinator.Topic.FEEDBACK, sessionId);
+            }
+            return feedback;
+        }));
+
+        // Still PENDING after a failed attempt: the next sweep tries again
+        if (stored.getStatus() != FeedbackStatus.PENDING) {
+            CompletableFuture<FeedbackResponse> completion = completions.remove(sessionId);
+            if (completion != null) {
+                completion.complete(FeedbackResponse.from(stored));
+            }
+        }
+    }
+
+    // Feedback of this session was stored on another instance; waiters here re-read it
+    private void completeWaiters(long sessionId) {
+        CompletableFuture<FeedbackResponse> completion = completions.get(sessionId);
+        if (completion == null) {
+            return;
+        }
+        FeedbackResponse current = getFeedback(sessionId);
+        if (current.getStatus() != FeedbackStatus.PENDING && completions.remove(sessionId, completion)) {
+            completion.complete(current);
+        }
+    }
+
+    private void completeAllWaiters() {
+        completions.keySet().forEach(this::completeWaiters);
+    }
+
+    private static class SessionSnapshot {
+        private final String role;
+        private final DifficultyLevel difficulty;
+        private final List<Message> history;
+
+        private SessionSnapshot(String role, DifficultyLevel difficulty, List<Message> history) {
+            this.role = role;
+            this.difficulty = difficulty;
+            this.history = history;
+        }
+    }
+
+    public static class FeedbackResponse {
+        private Long sessionId;
+        private FeedbackStatus status;
+        private String strengths;
+        private String areasForImprovement;
+        private String overallComments;
+        private Integer score;
+
+        static FeedbackResponse from(InterviewFeedback feedback) {
+            FeedbackResponse response = new FeedbackResponse();
+            response.setSessionId(feedback.getSessionId());
+            response.setStatus(feedback.getStatus());
+            response.setStrengths(feedback.getStrengths());
+            response.setAreasForImprovement(feedback.getAreasForImprovement());
+            response.setOverallComments(feedback.getOverallComments());
+            response.setScore(feedback.getScore());
+            return response;
+        }
+
+        public Long getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public FeedbackStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(FeedbackStatus status) {
+            this.status = status;
+        }
+
+        public String getStrengths() {
+            return strengths;
+        }
+
+        public void setStrengths(String strengths) {
+            this.strengths = strengths;
+        }
+
+        public String getAreasForImprovement() {
+            return areasForImprovement;
+        }
+
+        public void setAreasForImprovement(String areasForImprovement) {
+            this.areasForImprovement = areasForImprovement;
+        }
+
+        public String getOverallComments() {
+            return overallComments;
+        }
+
+        public void setOverallComments(String overallComments) {
+            this.overallComments = overallComments;
+        }
+
+        public Integer getScore() {
+            return score;
+        }
+
+        public void setScore(Integer score) {
+            this.score = score;
+        }
+    }
+}
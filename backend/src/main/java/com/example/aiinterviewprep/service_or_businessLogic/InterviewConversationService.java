@@ -1,35 +1,95 @@
 package com.example.aiinterviewprep.service;
 
 import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewFeedback;
 import com.example.aiinterviewprep.entity.InterviewSession;
 import com.example.aiinterviewprep.entity.Message;
 import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.InterviewFeedbackRepository;
 import com.example.aiinterviewprep.repository.InterviewSessionRepository;
 import com.example.aiinterviewprep.repository.MessageRepository;
+import com.example.aiinterviewprep.repository.MessageView;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class InterviewConversationService {
 
+    private static final int MAX_MESSAGE_PAGE_SIZE = 200;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
     private final InterviewSessionRepository interviewSessionRepository;
     private final MessageRepository messageRepository;
+    private final InterviewFeedbackRepository interviewFeedbackRepository;
     private final OpenAiClientService openAiClientService;
-
+    private final ConversationContextManager conversationContextManager;
+    private final FeedbackService feedbackService;
+    private final OpeningQuestionPool openingQuestionPool;
+    private final SessionTurnCoordinator sessionTurnCoordinator;
+    private final TranscriptArchiveService transcriptArchiveService;
+    private final ActiveSessionCache activeSessionCache;
+    private final SessionTokenBudget sessionTokenBudget;
+    private final ClusterCoordinator clusterCoordinator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Model calls take seconds, so none of the public methods below run inside a single transaction.
+    // Each one persists in short TransactionTemplate blocks and calls the model with no connection held;
+    // InterviewSession.version detects turns that raced on the same session in the meantime.
+    // In the common case a turn reads no session row: its metadata comes from ActiveSessionCache, its token
+    // total from SessionTokenBudget and its context from ConversationContextManager, all seeded when the
+    // session is started.
+    // Each step is timed under interview.stage (see StageTimers).
     public InterviewConversationService(
             InterviewSessionRepository interviewSessionRepository,
             MessageRepository messageRepository,
-            OpenAiClientService openAiClientService
+            InterviewFeedbackRepository interviewFeedbackRepository,
+            OpenAiClientService openAiClientService,
+            ConversationContextManager conversationContextManager,
+            FeedbackService feedbackService,
+            OpeningQuestionPool openingQuestionPool,
+            SessionTurnCoordinator sessionTurnCoordinator,
+            TranscriptArchiveService transcriptArchiveService,
+            ActiveSessionCache activeSessionCache,
+            SessionTokenBudget sessionTokenBudget,
+            ClusterCoordinator clusterCoordinator,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry
     ) {
         this.interviewSessionRepository = interviewSessionRepository;
         this.messageRepository = messageRepository;
+        this.interviewFeedbackRepository = interviewFeedbackRepository;
         this.openAiClientService = openAiClientService;
+        this.conversationContextManager = conversationContextManager;
+        this.feedbackService = feedbackService;
+        this.openingQuestionPool = openingQuestionPool;
+        this.sessionTurnCoordinator = sessionTurnCoordinator;
+        this.transcriptArchiveService = transcriptArchiveService;
+        this.activeSessionCache = activeSessionCache;
+        this.sessionTokenBudget = sessionTokenBudget;
+        this.clusterCoordinator = clusterCoordinator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
     }
 
-    @Transactional
     public StartSessionResponse startSession(String role, DifficultyLevel difficulty) {
         if (role == null || role.isBlank()) {
             throw new IllegalArgumentException("Role is required to start a session.");
@@ -37,15 +97,27 @@ public class InterviewConversationService {
 
         DifficultyLevel resolvedDifficulty = difficulty == null ? DifficultyLevel.MEDIUM : difficulty;
 
-        InterviewSession session = new InterviewSession(role.trim(), resolvedDifficulty);
-        session.setActive(true);
-        InterviewSession savedSession = interviewSessionRepository.save(session);
-
-        String openingQuestion = openAiClientService.generateOpeningQuestion(role, resolvedDifficulty);
-
-        Message interviewerMessage = new Message(savedSession, MessageRole.INTERVIEWER, openingQuestion);
-        messageRepository.save(interviewerMessage);
+        return StageTimers.operation(meterRegistry, "start_session", () -> {
+            String openingQuestion = StageTimers.stage(meterRegistry, "start_session", "opening_question", () ->
+                    openingQuestionPool.take(role, resolvedDifficulty));
+
+            Message opening = StageTimers.stage(meterRegistry, "start_session", "persist_session", () ->
+                    transactionTemplate.execute(status -> {
+                        InterviewSession session = new InterviewSession(role.trim(), resolvedDifficulty);
+                        session.setActive(true);
+                        InterviewSession persisted = interviewSessionRepository.save(session);
+                        return saved(messageRepository.save(new Message(persisted, MessageRole.INTERVIEWER, openingQuestion)));
+                    }));
+            InterviewSession savedSession = opening.getSession();
+            activeSessionCache.put(savedSession);
+            sessionTokenBudget.started(savedSession.getId());
+            conversationContextManager.start(savedSession.getId(), opening);
+
+            return startSessionResponse(savedSession, openingQuestion);
+        });
+    }
 
+    private StartSessionResponse startSessionResponse(InterviewSession savedSession, String openingQuestion) {
         StartSessionResponse response = new StartSessionResponse();
         response.setSessionId(savedSession.getId());
         response.setRole(savedSession.getRole());
@@ -54,51 +126,137 @@ public class InterviewConversationService {
         return response;
     }
 
-    @Transactional
     public MessageResponse processCandidateMessage(Long sessionId, String candidateMessageText) {
-        if (candidateMessageText == null || candidateMessageText.isBlank()) {
-            throw new IllegalArgumentException("Candidate message content is required.");
-        }
+        return processCandidateMessage(sessionId, candidateMessageText, null);
+    }
 
-        InterviewSession session = getActiveSession(sessionId);
+    // idempotencyKey is optional; resubmitting with the same key returns the first submission's reply
+    public MessageResponse processCandidateMessage(Long sessionId, String candidateMessageText, String idempotencyKey) {
+        return runTurn("candidate_turn", sessionId, candidateMessageText, idempotencyKey, turn ->
+                openAiClientService.generateInterviewerReply(turn.role, turn.difficulty, turn.context));
+    }
 
-        Message candidateMessage = new Message(session, MessageRole.CANDIDATE, candidateMessageText.trim());
-        messageRepository.save(candidateMessage);
+    // Streaming variant of processCandidateMessage: interviewer deltas go to onDelta while the
+    // reply is generated, and the assembled reply is persisted once the stream completes.
+    // A coalesced duplicate receives no deltas, only the final response.
+    public MessageResponse streamCandidateMessage(Long sessionId, String candidateMessageText, String idempotencyKey, Consumer<String> onDelta) {
+        return runTurn("stream_turn", sessionId, candidateMessageText, idempotencyKey, turn ->
+                openAiClientService.streamInterviewerReply(turn.role, turn.difficulty, turn.context, onDelta));
+    }
 
-        List<Message> history = messageRepository.findBySessionIdOrderByCreatedAtAsc(sessionId);
-        String aiReply = openAiClientService.generateInterviewerReply(session.getRole(), session.getDifficulty(), history);
+    // Turns of one session run one at a time (SessionTurnCoordinator). Across instances, the unique idempotency
+    // key column and the version check in persistInterviewerReply keep the transcript from interleaving.
+    private MessageResponse runTurn(String operation, Long sessionId, String candidateMessageText, String idempotencyKey,
+                                    Function<PendingTurn, String> modelCall) {
+        String key = normalizeIdempotencyKey(idempotencyKey);
+        return StageTimers.operation(meterRegistry, operation, () -> sessionTurnCoordinator.submit(sessionId, key, () -> {
+            if (key != null) {
+                MessageResponse stored = StageTimers.stage(meterRegistry, operation, "find_stored_reply", () ->
+                        findStoredReply(sessionId, key));
+                if (stored != null) {
+                    return stored;
+                }
+            }
+            PendingTurn turn = StageTimers.stage(meterRegistry, operation, "persist_candidate", () ->
+                    persistCandidateMessage(sessionId, candidateMessageText, key));
+            String aiReply = StageTimers.stage(meterRegistry, operation, "model_call", () ->
+                    generateReply(turn, () -> modelCall.apply(turn)));
+            return StageTimers.stage(meterRegistry, operation, "persist_reply", () ->
+                    persistInterviewerReply(turn, aiReply));
+        }));
+    }
 
-        Message interviewerMessage = new Message(session, MessageRole.INTERVIEWER, aiReply);
-        messageRepository.save(interviewerMessage);
+    private static String normalizeIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters.");
+        }
+        return key;
+    }
 
-        MessageResponse response = new MessageResponse();
-        response.setSessionId(sessionId);
-        response.setInterviewerMessage(aiReply);
-        return response;
+    // A key that is already stored belongs to an earlier submission, possibly handled by another instance or
+    // outside this one's idempotency window. Its reply is returned as is; with no reply yet it is still running.
+    private MessageResponse findStoredReply(Long sessionId, String idempotencyKey) {
+        return transactionTemplate.execute(status -> messageRepository.findBySessionIdAndIdempotencyKey(sessionId, idempotencyKey)
+                .map(candidateMessage -> {
+                    List<MessageView> next = messageRepository.findTranscriptPageAfter(
+                            sessionId, candidateMessage.getCreatedAt(), candidateMessage.getId(), PageRequest.of(0, 1));
+                    if (next.isEmpty() || next.get(0).getRole() != MessageRole.INTERVIEWER) {
+                        throw alreadyInProgress(sessionId);
+                    }
+                    MessageResponse response = new MessageResponse();
+                    response.setSessionId(sessionId);
+                    response.setInterviewerMessage(next.get(0).getContent());
+                    return response;
+                })
+                .orElse(null));
     }
 
-    @Transactional(readOnly = true)
-    public List<Message> getSessionMessages(Long sessionId) {
-        interviewSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
-        return messageRepository.findBySessionIdOrderByCreatedAtAsc(sessionId);
+    private static OptimisticLockingFailureException alreadyInProgress(Long sessionId) {
+        return new OptimisticLockingFailureException("This message to session " + sessionId + " is already being processed.");
     }
 
-    @Transactional
-    public EndSessionResponse endSession(Long sessionId) {
+    // One page of the transcript in creation order. afterId is the last message the caller already has
+    // (null for the first page); the page is read by keyset, so its cost does not grow with the offset.
+    // Archived transcripts are paged the same way over the decoded archive (see TranscriptArchiveService).
+    @Transactional(readOnly = true)
+    public MessagePage getSessionMessages(Long sessionId, Long afterId, int limit) {
         InterviewSession session = interviewSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+        int pageSize = Math.max(1, Math.min(limit, MAX_MESSAGE_PAGE_SIZE));
+        // One extra row tells whether another page follows
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<MessageView> rows;
+        if (session.getTranscriptArchivedAt() != null) {
+            rows = archivedPage(transcriptArchiveService.archivedTranscript(sessionId), sessionId, afterId, pageSize + 1);
+        } else if (afterId == null) {
+            rows = messageRepository.findTranscriptPage(sessionId, pageable);
+        } else {
+            LocalDateTime afterCreatedAt = messageRepository.findCreatedAt(sessionId, afterId)
+                    .orElseThrow(() -> new IllegalArgumentException("Message " + afterId + " is not part of session " + sessionId));
+            rows = messageRepository.findTranscriptPageAfter(sessionId, afterCreatedAt, afterId, pageable);
+        }
+
+        MessagePage page = new MessagePage();
+        page.setSessionId(sessionId);
+        page.setHasMore(rows.size() > pageSize);
+        page.setMessages(rows.size() > pageSize ? rows.subList(0, pageSize) : rows);
+        page.setNextAfterId(page.getMessages().isEmpty() ? afterId : page.getMessages().get(page.getMessages().size() - 1).getId());
+        return page;
+    }
 
-        List<Message> history = messageRepository.findBySessionIdOrderByCreatedAtAsc(sessionId);
-        OpenAiClientService.SessionFeedback feedback =
-                openAiClientService.generateSessionFeedback(session.getRole(), session.getDifficulty(), history);
+    private static List<MessageView> archivedPage(List<MessageView> transcript, Long sessionId, Long afterId, int size) {
+        int from = 0;
+        if (afterId != null) {
+            while (from < transcript.size() && !transcript.get(from).getId().equals(afterId)) {
+                from++;
+            }
+            if (from == transcript.size()) {
+                throw new IllegalArgumentException("Message " + afterId + " is not part of session " + sessionId);
+            }
+            from++;
+        }
+        return transcript.subList(from, Math.min(transcript.size(), from + size));
+    }
 
-        session.setActive(false);
-        session.setEndedAt(LocalDateTime.now());
-        interviewSessionRepository.save(session);
+    // Closes the session at once and queues feedback generation; poll FeedbackService for the result.
+    // Ending an already-ended session just reports its feedback again.
+    public EndSessionResponse endSession(Long sessionId) {
+        InterviewFeedback feedback = StageTimers.operation(meterRegistry, "end_session", () ->
+                StageTimers.stage(meterRegistry, "end_session", "close_session", () -> closeSession(sessionId)));
+        activeSessionCache.invalidate(sessionId);
+        conversationContextManager.evict(sessionId);
+        if (feedback.getStatus() == FeedbackStatus.PENDING) {
+            feedbackService.enqueue(sessionId);
+        }
 
         EndSessionResponse response = new EndSessionResponse();
         response.setSessionId(sessionId);
+        response.setStatus(feedback.getStatus());
         response.setStrengths(feedback.getStrengths());
         response.setAreasForImprovement(feedback.getAreasForImprovement());
         response.setOverallComments(feedback.getOverallComments());
@@ -106,15 +264,162 @@ public class InterviewConversationService {
         return response;
     }
 
-    private InterviewSession getActiveSession(Long sessionId) {
-        InterviewSession session = interviewSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+    private InterviewFeedback closeSession(Long sessionId) {
+        return transactionTemplate.execute(status -> {
+            InterviewSession session = interviewSessionRepository.findById(sessionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
+            InterviewFeedback existing = interviewFeedbackRepository.findBySessionId(sessionId).orElse(null);
+            if (existing != null) {
+                return existing;
+            }
+            // Bumps the version too, so a reply still being generated for this session is rejected
+            session.setActive(false);
+            session.setEndedAt(LocalDateTime.now());
+            clusterCoordinator.publish(ClusterCoordinator.Topic.SESSION, sessionId);
+            return interviewFeedbackRepository.save(new InterviewFeedback(session));
+        });
+    }
+
+    // Short transaction #1: store the candidate message, then extend the cached context with it
+    private PendingTurn persistCandidateMessage(Long sessionId, String candidateMessageText, String idempotencyKey) {
+        if (candidateMessageText == null || candidateMessageText.isBlank()) {
+            throw new IllegalArgumentException("Candidate message content is required.");
+        }
 
-        if (!Boolean.TRUE.equals(session.getActive())) {
-            throw new IllegalStateException("Session is not active: " + sessionId);
+        PendingTurn turn;
+        try {
+            ActiveSessionCache.ActiveSession session = activeSessionCache.get(sessionId);
+            // No read of the session row: an end elsewhere evicts the entry (ClusterCoordinator SESSION), and one
+            // that lands after this check still fails the version check in persistInterviewerReply
+            turn = transactionTemplate.execute(status -> {
+                // A reference, not a load: the insert only needs the session's id
+                Message message = new Message(interviewSessionRepository.getReferenceById(sessionId),
+                        MessageRole.CANDIDATE, candidateMessageText.trim());
+                message.setIdempotencyKey(idempotencyKey);
+                // Flushed here so a duplicate key fails on this insert rather than at commit
+                Message candidateMessage = saved(messageRepository.saveAndFlush(message));
+                return new PendingTurn(session, candidateMessage);
+            });
+        } catch (DataIntegrityViolationException exception) {
+            // Another instance stored the same submission between findStoredReply and this insert
+            throw alreadyInProgress(sessionId);
         }
+        turn.context = conversationContextManager.append(sessionId, turn.candidateMessage);
+        return turn;
+    }
 
-        return session;
+    // Called in the storing transaction; the search index picks the message up once it commits
+    private Message saved(Message message) {
+        eventPublisher.publishEvent(MessagesSavedEvent.of(message));
+        return message;
+    }
+
+    // Runs the model call outside any transaction; a failed call removes the unanswered candidate message
+    private String generateReply(PendingTurn turn, Supplier<String> modelCall) {
+        try {
+            return modelCall.get();
+        } catch (RuntimeException exception) {
+            discardCandidateMessage(turn);
+            throw exception;
+        }
+    }
+
+    // Short transaction #2: the version bump succeeds only if no other turn committed since #1
+    private MessageResponse persistInterviewerReply(PendingTurn turn, String aiReply) {
+        Message interviewerMessage;
+        try {
+            interviewerMessage = transactionTemplate.execute(status -> {
+                if (interviewSessionRepository.advanceVersion(turn.sessionId, turn.version) == 0) {
+                    throw new OptimisticLockingFailureException(
+                            "Session " + turn.sessionId + " received another message while this reply was being generated.");
+                }
+                InterviewSession session = interviewSessionRepository.getReferenceById(turn.sessionId);
+                // Other instances drop their cached state for the session once this commits
+                clusterCoordinator.publish(ClusterCoordinator.Topic.SESSION, turn.sessionId);
+                return saved(messageRepository.save(new Message(session, MessageRole.INTERVIEWER, aiReply)));
+            });
+        } catch (OptimisticLockingFailureException exception) {
+            // The cached version (or active flag) is behind the row; the next turn reloads it
+            activeSessionCache.invalidate(turn.sessionId);
+            discardCandidateMessage(turn);
+            throw exception;
+        }
+
+        activeSessionCache.advanced(turn.sessionId, turn.version);
+        conversationContextManager.append(turn.sessionId, interviewerMessage);
+        conversationContextManager.compactInBackground(turn.sessionId, turn.role, turn.difficulty);
+
+        MessageResponse response = new MessageResponse();
+        response.setSessionId(turn.sessionId);
+        response.setInterviewerMessage(aiReply);
+        return response;
+    }
+
+    private void discardCandidateMessage(PendingTurn turn) {
+        transactionTemplate.executeWithoutResult(status -> {
+            messageRepository.deleteById(turn.candidateMessage.getId());
+            // It was indexed when transaction #1 committed
+            eventPublisher.publishEvent(MessagesDeletedEvent.of(turn.candidateMessage.getId()));
+        });
+        conversationContextManager.evict(turn.sessionId);
+    }
+
+    // A turn's session metadata and stored candidate message, used after its first short transaction has committed
+    private static class PendingTurn {
+        private final Long sessionId;
+        private final String role;
+        private final DifficultyLevel difficulty;
+        private final long version;
+        private final Message candidateMessage;
+        private ConversationContext context;
+
+        private PendingTurn(ActiveSessionCache.ActiveSession session, Message candidateMessage) {
+            this.sessionId = session.getId();
+            this.role = session.getRole();
+            this.difficulty = session.getDifficulty();
+            this.version = session.getVersion();
+            this.candidateMessage = candidateMessage;
+        }
+    }
+
+    // nextAfterId is the afterId for the following request; it stays put when there is nothing new yet
+    public static class MessagePage {
+        private Long sessionId;
+        private List<MessageView> messages;
+        private Long nextAfterId;
+        private boolean hasMore;
+
+        public Long getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public List<MessageView> getMessages() {
+            return messages;
+        }
+
+        public void setMessages(List<MessageView> messages) {
+            this.messages = messages;
+        }
+
+        public Long getNextAfterId() {
+            return nextAfterId;
+        }
+
+        public void setNextAfterId(Long nextAfterId) {
+            this.nextAfterId = nextAfterId;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        public void setHasMore(boolean hasMore) {
+            this.hasMore = hasMore;
+        }
     }
 
     public static class StartSessionResponse {
@@ -177,8 +482,10 @@ public class InterviewConversationService {
         }
     }
 
+    // Feedback fields stay null until status is READY (see GET /session/{id}/feedback)
     public static class EndSessionResponse {
         private Long sessionId;
+        private FeedbackStatus status;
         private String strengths;
         private String areasForImprovement;
         private String overallComments;
@@ -192,6 +499,14 @@ public class InterviewConversationService {
             this.sessionId = sessionId;
         }
 
+        public FeedbackStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(FeedbackStatus status) {
+            this.status = status;
+        }
+
         public String getStrengths() {
             return strengths;
         }
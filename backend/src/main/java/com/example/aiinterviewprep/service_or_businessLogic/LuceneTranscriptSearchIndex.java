@@ -0,0 +1,229 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.MessageView;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.grouping.GroupDocs;
+import org.apache.lucene.search.grouping.GroupingSearch;
+import org.apache.lucene.search.grouping.TopGroups;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
+import org.apache.lucene.search.highlight.SimpleSpanFragmenter;
+import org.apache.lucene.search.highlight.TextFragment;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Embedded Lucene index, one document per message (English stemming and stop words, like the postgres engine).
+// Messages are added after their transaction commits (TranscriptSearchListener) and become searchable at the next
+// refresh. Sessions are ranked by grouping message hits on session id. Archiving leaves the documents in place,
+// so archived sessions are quoted from the index; purged archives, and messages deleted outright (the candidate
+// message of a failed turn), are deleted from it.
+// The index belongs to this instance: use the postgres engine when several instances share a database.
+// With no directory configured it lives in memory and is rebuilt from the database at startup.
+@Component
+@ConditionalOnProperty(name = "interview.search.engine", havingValue = "lucene")
+public class LuceneTranscriptSearchIndex implements TranscriptSearchIndex, AutoCloseable {
+
+    private static final String ID = "id";
+    private static final String SESSION_ID = "sessionId";
+    private static final String ROLE = "role";
+    private static final String CONTENT = "content";
+    private static final int FRAGMENT_SIZE = 160;
+
+    private final Analyzer analyzer = new EnglishAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public LuceneTranscriptSearchIndex(@Value("${interview.search.lucene.directory:}") String directory) throws IOException {
+        this.directory = directory.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(directory));
+        this.writer = new IndexWriter(this.directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @Override
+    public void index(List<MessageView> messages) {
+        try {
+            for (MessageView message : messages) {
+                String sessionId = String.valueOf(message.getSessionId());
+                Document document = new Document();
+                document.add(new StringField(ID, String.valueOf(message.getId()), Field.Store.YES));
+                document.add(new StringField(SESSION_ID, sessionId, Field.Store.YES));
+                document.add(new SortedDocValuesField(SESSION_ID, new BytesRef(sessionId)));
+                document.add(new StoredField(ROLE, message.getRole().name()));
+                document.add(new TextField(CONTENT, message.getContent(), Field.Store.YES));
+                // Keyed by message id, so a message indexed twice (e.g. during a rebuild) is stored once
+                writer.updateDocument(new Term(ID, String.valueOf(message.getId())), document);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to index messages.", exception);
+        }
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return writer.getDocStats().numDocs == 0;
+    }
+
+    @Override
+    public void archived(Long sessionId, List<MessageView> transcript) {
+    }
+
+    @Override
+    public void purged(List<Long> sessionIds) {
+        try {
+            writer.deleteDocuments(sessionIds.stream().map(id -> new Term(SESSION_ID, String.valueOf(id))).toArray(Term[]::new));
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to remove purged sessions from the search index.", exception);
+        }
+    }
+
+    @Override
+    public void deleted(List<Long> messageIds) {
+        try {
+            writer.deleteDocuments(messageIds.stream().map(id -> new Term(ID, String.valueOf(id))).toArray(Term[]::new));
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to remove deleted messages from the search index.", exception);
+        }
+    }
+
+    // Makes recent changes searchable (and durable, for an index on disk)
+    @Scheduled(fixedDelayString = "${interview.search.lucene.refresh-interval:PT1S}")
+    public void refresh() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    @Override
+    public List<SessionMatch> search(String query, int offset, int limit, int maxSnippets) {
+        Query parsed = parse(query);
+        GroupingSearch grouping = new GroupingSearch(SESSION_ID);
+        grouping.setGroupDocsLimit(maxSnippets);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopGroups<BytesRef> groups = grouping.search(searcher, parsed, offset, limit);
+                if (groups == null) {
+                    return List.of();
+                }
+                Highlighter highlighter = highlighter(parsed);
+                List<SessionMatch> matches = new ArrayList<>(groups.groups.length);
+                for (GroupDocs<BytesRef> group : groups.groups) {
+                    List<Snippet> snippets = new ArrayList<>(group.scoreDocs.length);
+                    for (ScoreDoc hit : group.scoreDocs) {
+                        Document document = searcher.storedFields().document(hit.doc);
+                        snippets.add(new Snippet(Long.valueOf(document.get(ID)), MessageRole.valueOf(document.get(ROLE)),
+                                fragment(highlighter, document.get(CONTENT))));
+                    }
+                    float score = group.scoreDocs.length == 0 ? 0 : group.scoreDocs[0].score;
+                    matches.add(new SessionMatch(Long.valueOf(group.groupValue.utf8ToString()), score, snippets));
+                }
+                return matches;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Search failed.", exception);
+        }
+    }
+
+    // Ranks the messages by their best fragment; messages without a match are left out
+    @Override
+    public List<Snippet> highlight(String query, List<MessageView> messages, int maxSnippets) {
+        Highlighter highlighter = highlighter(parse(query));
+        List<ScoredSnippet> scored = new ArrayList<>();
+        for (MessageView message : messages) {
+            try {
+                TextFragment[] fragments = highlighter.getBestTextFragments(
+                        analyzer.tokenStream(CONTENT, message.getContent()), message.getContent(), false, 1);
+                if (fragments.length > 0 && fragments[0] != null && fragments[0].getScore() > 0) {
+                    scored.add(new ScoredSnippet(new Snippet(message.getId(), message.getRole(), fragments[0].toString()),
+                            fragments[0].getScore()));
+                }
+            } catch (IOException | InvalidTokenOffsetsException exception) {
+                throw new IllegalStateException("Failed to highlight message " + message.getId(), exception);
+            }
+        }
+        return scored.stream()
+                .sorted(Comparator.comparingDouble((ScoredSnippet snippet) -> snippet.score).reversed())
+                .limit(maxSnippets)
+                .map(snippet -> snippet.snippet)
+                .toList();
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // Web-search style: words are required, "phrases" and -exclusions are honoured; nothing searchable matches nothing
+    private Query parse(String query) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, CONTENT);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query parsed = parser.parse(query);
+        return parsed == null ? new MatchNoDocsQuery() : parsed;
+    }
+
+    private static Highlighter highlighter(Query query) {
+        QueryScorer scorer = new QueryScorer(query, CONTENT);
+        Highlighter highlighter = new Highlighter(new SimpleHTMLFormatter(MATCH_START, MATCH_END), scorer);
+        highlighter.setTextFragmenter(new SimpleSpanFragmenter(scorer, FRAGMENT_SIZE));
+        return highlighter;
+    }
+
+    // The best fragment of a hit, or its opening when the match is only in stemmed or phrase form
+    private String fragment(Highlighter highlighter, String content) {
+        try {
+            String fragment = highlighter.getBestFragment(analyzer, CONTENT, content);
+            return fragment != null ? fragment : content.substring(0, Math.min(content.length(), FRAGMENT_SIZE));
+        } catch (IOException | InvalidTokenOffsetsException exception) {
+            throw new IllegalStateException("Failed to highlight a search hit.", exception);
+        }
+    }
+
+    private static final class ScoredSnippet {
+        private final Snippet snippet;
+        private final float score;
+
+        private ScoredSnippet(Snippet snippet, float score) {
+            this.snippet = snippet;
+            this.score = score;
+        }
+    }
+}
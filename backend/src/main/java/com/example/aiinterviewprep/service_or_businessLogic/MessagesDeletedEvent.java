@@ -0,0 +1,22 @@
+package com.example.aiinterviewprep.service;
+
+import java.util.List;
+
+// Published inside the transaction that deletes messages outright (not into an archive), e.g. a candidate message
+// whose turn failed, so the search index drops them once the delete commits
+public final class MessagesDeletedEvent {
+
+    private final List<Long> messageIds;
+
+    public MessagesDeletedEvent(List<Long> messageIds) {
+        this.messageIds = List.copyOf(messageIds);
+    }
+
+    public static MessagesDeletedEvent of(Long messageId) {
+        return new MessagesDeletedEvent(List.of(messageId));
+    }
+
+    public List<Long> getMessageIds() {
+        return messageIds;
+    }
+}
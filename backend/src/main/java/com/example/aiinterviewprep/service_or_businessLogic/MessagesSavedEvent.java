@@ -0,0 +1,32 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.repository.MessageView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Published by the services that store messages, inside the storing transaction. The messages are copied into
+// views, so the event holds no entities once their persistence context is cleared or closed.
+public final class MessagesSavedEvent {
+
+    private final List<MessageView> messages;
+
+    public MessagesSavedEvent(List<Message> saved) {
+        List<MessageView> views = new ArrayList<>(saved.size());
+        for (Message message : saved) {
+            Long sessionId = message.getSession() != null ? message.getSession().getId() : message.getSessionId();
+            views.add(new TranscriptArchiveService.ArchivedMessage(
+                    message.getId(), sessionId, message.getRole(), message.getContent(), message.getCreatedAt()));
+        }
+        this.messages = List.copyOf(views);
+    }
+
+    public static MessagesSavedEvent of(Message message) {
+        return new MessagesSavedEvent(List.of(message));
+    }
+
+    public List<MessageView> getMessages() {
+        return messages;
+    }
+}
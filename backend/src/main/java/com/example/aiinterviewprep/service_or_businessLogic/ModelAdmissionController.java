@@ -0,0 +1,336 @@
+package com.example.aiinterviewprep.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Admits outbound model calls within the provider quota, so excess demand waits (or is shed) here instead of
+// coming back as 429s. Two token buckets, refilled continuously: requests per minute and tokens per minute.
+// A call is charged one request plus its estimated tokens up front; settle() corrects the token charge
+// with the usage the provider reported.
+//
+// Calls that cannot be admitted at once queue by priority class (ModelCallType.getPriority; lower first),
+// and within a class round-robin across flows (one flow per session), so a session sending many calls
+// only delays its own. The queue is bounded: when it is full, a newcomer displaces the newest call of the
+// busiest flow in a lower class, or is shed itself. A call that waits longer than max-wait is shed too.
+// A 429 that reaches the client anyway pauses all admissions for the provider's Retry-After.
+@Component
+public class ModelAdmissionController {
+
+    private static final int PRIORITY_CLASSES = 3;
+
+    private final double requestsPerNano;
+    private final double tokensPerNano;
+    private final double requestCapacity;
+    private final double tokenCapacity;
+    private final int maxQueued;
+    private final int maxQueuedPerFlow;
+    private final long maxWaitNanos;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityClass[] classes = new PriorityClass[PRIORITY_CLASSES];
+    private double requestsAvailable;
+    private double tokensAvailable;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = refilledAt;
+    private int queued;
+
+    public ModelAdmissionController(
+            @Value("${openai.admission.requests-per-minute:500}") int requestsPerMinute,
+            @Value("${openai.admission.tokens-per-minute:200000}") long tokensPerMinute,
+            @Value("${openai.admission.max-queued:500}") int maxQueued,
+            @Value("${openai.admission.max-queued-per-session:4}") int maxQueuedPerFlow,
+            @Value("${openai.admission.max-wait:PT30S}") Duration maxWait,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = requestsPerMinute > 0 && tokensPerMinute > 0;
+        this.requestCapacity = Math.max(1, requestsPerMinute);
+        this.tokenCapacity = Math.max(1, tokensPerMinute);
+        this.requestsPerNano = requestCapacity / TimeUnit.MINUTES.toNanos(1);
+        this.tokensPerNano = tokenCapacity / TimeUnit.MINUTES.toNanos(1);
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerFlow = maxQueuedPerFlow;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.requestsAvailable = requestCapacity;
+        this.tokensAvailable = tokenCapacity;
+
+        for (int priority = 0; priority < PRIORITY_CLASSES; priority++) {
+            PriorityClass priorityClass = new PriorityClass();
+            classes[priority] = priorityClass;
+            Gauge.builder("model.admission.queued", priorityClass, queue -> queue.size)
+                    .description("Model calls waiting for admission")
+                    .tag("priority", Integer.toString(priority))
+                    .register(meterRegistry);
+        }
+    }
+
+    // Admits every call at once; for tests and tools that build OpenAiClientService by hand
+    public static ModelAdmissionController unlimited() {
+        return new ModelAdmissionController(0, 0, 0, 0, Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    // Blocks until the call fits in the quota; throws ModelOverloadedException when it is shed instead.
+    // flow groups the calls that share a fair slot (a session); null puts the call in its type's shared flow.
+    public Admission admit(ModelCallType callType, String flow, long estimatedTokens) {
+        if (!enabled) {
+            return new Admission(0);
+        }
+
+        int priority = Math.min(callType.getPriority(), PRIORITY_CLASSES - 1);
+        Waiter waiter = new Waiter(priority, flow == null ? callType.name() : flow,
+                Math.min(estimatedTokens, (long) tokenCapacity), lock.newCondition());
+        long startedAt = System.nanoTime();
+        String outcome = "shed";
+
+        lock.lock();
+        try {
+            enqueue(waiter);
+            long deadline = startedAt + maxWaitNanos;
+            while (!waiter.admitted) {
+                dispatch();
+                if (waiter.admitted) {
+                    break;
+                }
+                if (waiter.shed) {
+                    throw overloaded("Too many interview requests are queued; this one was dropped for more urgent work.");
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    remove(waiter);
+                    outcome = "timeout";
+                    throw overloaded("Waited too long for model capacity.");
+                }
+                waiter.condition.awaitNanos(Math.min(remaining, nanosUntilAdmissible(waiter)));
+            }
+            outcome = "admitted";
+            return new Admission(waiter.tokens);
+        } catch (InterruptedException exception) {
+            remove(waiter);
+            Thread.currentThread().interrupt();
+            throw new ModelProviderException("Interrupted while waiting for model capacity.", 0, null, exception);
+        } finally {
+            lock.unlock();
+            Timer.builder("model.admission.wait")
+                    .description("Time model calls waited for admission")
+                    .tag("call_type", callType.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Replaces the estimate charged at admission with the tokens the provider reported (0: keep the estimate)
+    public void settle(Admission admission, long actualTokens) {
+        if (!enabled || actualTokens <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            refill();
+            // May go negative: an underestimate is paid back before the next call is admitted
+            tokensAvailable = Math.min(tokenCapacity, tokensAvailable + admission.chargedTokens - actualTokens);
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gives back the tokens charged at admission for a call that failed before the provider answered it,
+    // so a failed call does not hold its estimate until the bucket refills
+    public void refund(Admission admission) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            refill();
+            tokensAvailable = Math.min(tokenCapacity, tokensAvailable + admission.chargedTokens);
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The provider rate-limited us despite the buckets (another client sharing the key, or a lower real quota)
+    public void pause(Duration retryAfter) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + (retryAfter == null ? Duration.ofSeconds(1) : retryAfter).toNanos());
+            requestsAvailable = Math.min(requestsAvailable, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Waiter waiter) {
+        PriorityClass priorityClass = classes[waiter.priority];
+        ArrayDeque<Waiter> flowQueue = priorityClass.flows.get(waiter.flow);
+        if (flowQueue != null && flowQueue.size() >= maxQueuedPerFlow) {
+            throw overloaded("This session already has too many requests waiting for the model.");
+        }
+        if (queued >= maxQueued && !shedLowerThan(waiter.priority)) {
+            throw overloaded("Too many interview requests are queued.");
+        }
+
+        if (flowQueue == null) {
+            flowQueue = new ArrayDeque<>();
+            priorityClass.flows.put(waiter.flow, flowQueue);
+            priorityClass.rotation.addLast(waiter.flow);
+        }
+        flowQueue.addLast(waiter);
+        priorityClass.size++;
+        queued++;
+    }
+
+    // Drops the newest call of the busiest flow in the lowest non-empty class below the given priority
+    private boolean shedLowerThan(int priority) {
+        for (int lower = PRIORITY_CLASSES - 1; lower > priority; lower--) {
+            PriorityClass priorityClass = classes[lower];
+            ArrayDeque<Waiter> busiest = null;
+            for (ArrayDeque<Waiter> flowQueue : priorityClass.flows.values()) {
+                if (busiest == null || flowQueue.size() > busiest.size()) {
+                    busiest = flowQueue;
+                }
+            }
+            if (busiest != null) {
+                Waiter victim = busiest.peekLast();
+                remove(victim);
+                victim.shed = true;
+                victim.condition.signal();
+                Counter.builder("model.admission.shed")
+                        .description("Queued model calls displaced by higher-priority calls")
+                        .tag("priority", Integer.toString(lower))
+                        .register(meterRegistry)
+                        .increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Admits queued calls in order for as long as the buckets allow; the first call that does not fit
+    // holds back the rest, so large calls are not starved by small ones
+    private void dispatch() {
+        refill();
+        Waiter head;
+        while ((head = head()) != null && System.nanoTime() - pausedUntil >= 0
+                && requestsAvailable >= 1 && tokensAvailable >= head.tokens) {
+            requestsAvailable -= 1;
+            tokensAvailable -= head.tokens;
+            head.admitted = true;
+            remove(head);
+            head.condition.signal();
+        }
+    }
+
+    private Waiter head() {
+        for (PriorityClass priorityClass : classes) {
+            String flow = priorityClass.rotation.peekFirst();
+            if (flow != null) {
+                return priorityClass.flows.get(flow).peekFirst();
+            }
+        }
+        return null;
+    }
+
+    // Removes the waiter from its flow; the flow moves to the back of the rotation, or leaves it when empty
+    private void remove(Waiter waiter) {
+        PriorityClass priorityClass = classes[waiter.priority];
+        ArrayDeque<Waiter> flowQueue = priorityClass.flows.get(waiter.flow);
+        if (flowQueue == null || !flowQueue.remove(waiter)) {
+            return;
+        }
+        priorityClass.size--;
+        queued--;
+
+        boolean wasFront = waiter.flow.equals(priorityClass.rotation.peekFirst());
+        if (flowQueue.isEmpty()) {
+            priorityClass.flows.remove(waiter.flow);
+            priorityClass.rotation.remove(waiter.flow);
+        } else if (wasFront && waiter.admitted) {
+            priorityClass.rotation.addLast(priorityClass.rotation.pollFirst());
+        }
+    }
+
+    private void signalHead() {
+        Waiter head = head();
+        if (head != null) {
+            head.condition.signal();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - refilledAt;
+        refilledAt = now;
+        requestsAvailable = Math.min(requestCapacity, requestsAvailable + elapsed * requestsPerNano);
+        tokensAvailable = Math.min(tokenCapacity, tokensAvailable + elapsed * tokensPerNano);
+    }
+
+    // When the head of the queue will fit, so waiters sleep until then rather than polling
+    private long nanosUntilAdmissible(Waiter waiter) {
+        Waiter head = head();
+        Waiter next = head == null ? waiter : head;
+        double requestDeficit = Math.max(0, 1 - requestsAvailable);
+        double tokenDeficit = Math.max(0, next.tokens - tokensAvailable);
+        long untilRefilled = (long) Math.max(requestDeficit / requestsPerNano, tokenDeficit / tokensPerNano);
+        long untilResumed = Math.max(0, pausedUntil - System.nanoTime());
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), Math.max(untilRefilled, untilResumed));
+    }
+
+    private ModelOverloadedException overloaded(String message) {
+        // Roughly how long the current queue takes to drain at the request rate, between 1 second and 1 minute
+        long drainNanos = (long) (queued / requestsPerNano);
+        return new ModelOverloadedException(message,
+                Duration.ofNanos(Math.max(TimeUnit.SECONDS.toNanos(1), Math.min(drainNanos, TimeUnit.MINUTES.toNanos(1)))));
+    }
+
+    // Returned by admit and passed back to settle
+    public static class Admission {
+        private final long chargedTokens;
+
+        private Admission(long chargedTokens) {
+            this.chargedTokens = chargedTokens;
+        }
+    }
+
+    private static class PriorityClass {
+        private final Map<String, ArrayDeque<Waiter>> flows = new HashMap<>();
+        private final ArrayDeque<String> rotation = new ArrayDeque<>();
+        private volatile int size;
+    }
+
+    private static class Waiter {
+        private final int priority;
+        private final String flow;
+        private final long tokens;
+        private final Condition condition;
+        private boolean admitted;
+        private boolean shed;
+
+        private Waiter(int priority, String flow, long tokens, Condition condition) {
+            this.priority = priority;
+            this.flow = flow;
+            this.tokens = tokens;
+            this.condition = condition;
+        }
+    }
+}
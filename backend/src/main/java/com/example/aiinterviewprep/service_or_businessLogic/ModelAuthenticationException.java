@@ -0,0 +1,9 @@
+package com.example.aiinterviewprep.service;
+
+// The provider rejected the API key (401) or the key may not use the configured model (403)
+public class ModelAuthenticationException extends ModelProviderException {
+
+    public ModelAuthenticationException(String message, int statusCode) {
+        super(message, statusCode);
+    }
+}
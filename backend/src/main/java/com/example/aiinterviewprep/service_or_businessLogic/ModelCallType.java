@@ -0,0 +1,21 @@
+package com.example.aiinterviewprep.service;
+
+// What a model call is for; caching, admission priority (lower runs first) and other per-call policies are chosen by this
+public enum ModelCallType {
+    OPENING(0),           // Opening question for a session start that missed the pool
+    OPENING_PREFETCH(2),  // Opening question generated to refill the pool; always a fresh sample
+    REPLY(0),             // Interviewer reply to a candidate message
+    SUMMARY(1),           // Rolling context summary
+    FEEDBACK(2);          // End-of-session evaluation
+
+    // 0: a user is waiting on it, 1: keeps live sessions healthy, 2: batch work that can wait
+    private final int priority;
+
+    ModelCallType(int priority) {
+        this.priority = priority;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+}
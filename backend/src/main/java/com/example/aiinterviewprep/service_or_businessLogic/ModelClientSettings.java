@@ -0,0 +1,72 @@
+package com.example.aiinterviewprep.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Concurrency, retry and circuit-breaker limits for outbound model calls (openai.client.* properties)
+@Component
+public class ModelClientSettings {
+
+    private final int maxConcurrentRequests;
+    private final Duration acquireTimeout;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration maxRetryAfter;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    public ModelClientSettings(
+            @Value("${openai.client.max-concurrent-requests:256}") int maxConcurrentRequests,
+            @Value("${openai.client.acquire-timeout:PT10S}") Duration acquireTimeout,
+            @Value("${openai.client.max-attempts:3}") int maxAttempts,
+            @Value("${openai.client.initial-backoff:PT0.5S}") Duration initialBackoff,
+            @Value("${openai.client.max-backoff:PT8S}") Duration maxBackoff,
+            @Value("${openai.client.max-retry-after:PT20S}") Duration maxRetryAfter,
+            @Value("${openai.client.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${openai.client.circuit-breaker.open-duration:PT30S}") Duration openDuration
+    ) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.acquireTimeout = acquireTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxRetryAfter = maxRetryAfter;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public Duration getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+}
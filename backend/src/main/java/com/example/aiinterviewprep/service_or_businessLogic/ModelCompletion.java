@@ -0,0 +1,43 @@
+package com.example.aiinterviewprep.service;
+
+// A parsed completion or stream chunk; token counts are 0 when the provider omits usage.
+// Chunks carry no provider or model; a finished completion names the provider and model that produced it.
+public class ModelCompletion {
+    private final String content;
+    private final long promptTokens;
+    private final long completionTokens;
+    private final String provider;
+    private final String model;
+
+    ModelCompletion(String content, long promptTokens, long completionTokens) {
+        this(content, promptTokens, completionTokens, null, null);
+    }
+
+    ModelCompletion(String content, long promptTokens, long completionTokens, String provider, String model) {
+        this.content = content;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.provider = provider;
+        this.model = model;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getModel() {
+        return model;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.aiinterviewprep.service;
+
+import java.time.Duration;
+
+// The call was shed before reaching the provider: the admission queue was full, or the call waited longer
+// than the admission controller allows for the provider quota to free up
+public class ModelOverloadedException extends ModelProviderException {
+
+    public ModelOverloadedException(String message, Duration retryAfter) {
+        super(message, 0, retryAfter, null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The messages of one model call. Each provider serializes them with its own model name; a body is built at most
+// once per provider, so the preferred provider's body doubles as the cache key and is not serialized again to send it.
+// estimatedTokens is the most the call can use (prompt tokens plus max_tokens), as admission and budgets charge it.
+final class ModelPrompt {
+
+    private final String systemPrompt;
+    private final String userPrompt;
+    private final List<Message> history;
+    private final int maxTokens;
+    private final long estimatedTokens;
+    private final boolean stream;
+    private final Map<String, String> bodies = new ConcurrentHashMap<>(2);
+
+    ModelPrompt(String systemPrompt, String userPrompt, List<Message> history, int maxTokens, int promptTokens, boolean stream) {
+        this.systemPrompt = systemPrompt;
+        this.userPrompt = userPrompt;
+        this.history = history;
+        this.maxTokens = maxTokens;
+        this.estimatedTokens = (long) promptTokens + maxTokens;
+        this.stream = stream;
+    }
+
+    long getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    String bodyFor(ModelProvider provider) {
+        return bodies.computeIfAbsent(provider.getName(),
+                name -> provider.requestBody(systemPrompt, userPrompt, history, maxTokens, stream));
+    }
+}
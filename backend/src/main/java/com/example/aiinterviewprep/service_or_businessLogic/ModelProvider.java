@@ -0,0 +1,33 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// One backend that can answer chat completions: a hosted API, a cheaper model on the same API, or a local
+// OpenAI-compatible server. The ModelRouter chooses between providers; each provider owns its own
+// connection, retries, circuit breaker and quota admission, and fails with a typed ModelProviderException.
+public interface ModelProvider extends AutoCloseable {
+
+    // Identifies the provider in routes, metrics and logs
+    String getName();
+
+    String getModel();
+
+    // The provider's request body for these messages; equal inputs always produce the same string.
+    // maxTokens caps the completion; 0 leaves it to the provider
+    String requestBody(String systemPrompt, String userPrompt, List<Message> history, int maxTokens, boolean stream);
+
+    // flow is the admission fairness key (one per session), or null for calls not tied to a session;
+    // estimatedTokens (prompt plus max_tokens) is charged at admission until the real usage is known
+    ModelCompletion complete(ModelCallType callType, String flow, String requestBody, long estimatedTokens);
+
+    // Forwards each content delta to onDelta as it arrives and returns the whole reply
+    ModelCompletion stream(ModelCallType callType, String flow, String requestBody, long estimatedTokens, Consumer<String> onDelta);
+
+    CircuitBreaker.State getCircuitState();
+
+    @Override
+    void close();
+}
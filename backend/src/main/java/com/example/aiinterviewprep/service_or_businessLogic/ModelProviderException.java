@@ -0,0 +1,29 @@
+package com.example.aiinterviewprep.service;
+
+import java.time.Duration;
+
+// A model provider call that failed. statusCode is the upstream HTTP status, or 0 when no response was received.
+public class ModelProviderException extends RuntimeException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public ModelProviderException(String message, int statusCode, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public ModelProviderException(String message, int statusCode) {
+        this(message, statusCode, null, null);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    // How long the caller should wait before trying again, when the provider (or the circuit breaker) said so
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
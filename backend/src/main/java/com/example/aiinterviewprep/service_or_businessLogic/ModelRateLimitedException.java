@@ -0,0 +1,11 @@
+package com.example.aiinterviewprep.service;
+
+import java.time.Duration;
+
+// The provider kept answering 429 after the retries allowed by the client
+public class ModelRateLimitedException extends ModelProviderException {
+
+    public ModelRateLimitedException(String message, Duration retryAfter) {
+        super(message, 429, retryAfter, null);
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.aiinterviewprep.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Sends each model call to a provider chosen for its call type (ModelRoutingSettings), using what the router
+// has seen of each provider lately: the latency of its last calls per call type (p50/p95) and their error rate.
+//
+// Candidates are tried in the configured order, except that a provider with an open circuit or an error rate above
+// max-error-rate goes last, and one whose p95 is over latency-budget goes behind those within it. A call that fails
+// falls back to the next candidate (a stream only until its first delta has been forwarded). Calls that shed at
+// admission are not retried elsewhere: the queue dropped them on purpose.
+//
+// Hedged call types don't wait out a slow provider: if the first candidate hasn't answered by its own p95 (or
+// hedge-delay before there are enough samples), the same call is sent to the next candidate as well. The first
+// success wins and the other call is cancelled, so at most one call in twenty pays for a second request.
+public class ModelRouter implements AutoCloseable {
+
+    private final Map<String, ModelProvider> providers = new LinkedHashMap<>();
+    private final ModelRoutingSettings settings;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+    private final ExecutorService hedgeExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("model-hedge-", 0).factory());
+
+    // Routes may name providers that are not configured (an optional local server left blank); they are skipped
+    public ModelRouter(List<ModelProvider> providers, ModelRoutingSettings settings, MeterRegistry meterRegistry) {
+        for (ModelProvider provider : providers) {
+            this.providers.put(provider.getName(), provider);
+        }
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        for (ModelCallType callType : ModelCallType.values()) {
+            if (route(callType).isEmpty()) {
+                throw new IllegalStateException("No configured model provider serves " + callType + " calls; routes: "
+                        + settings.getRoute(callType) + ", providers: " + this.providers.keySet());
+            }
+        }
+    }
+
+    public static ModelRouter single(ModelProvider provider, MeterRegistry meterRegistry) {
+        return new ModelRouter(List.of(provider), ModelRoutingSettings.single(provider.getName()), meterRegistry);
+    }
+
+    @Override
+    public void close() {
+        hedgeExecutor.shutdownNow();
+        providers.values().forEach(ModelProvider::close);
+    }
+
+    // The configured first choice for the call type, whatever its current health; its request body is the cache key
+    ModelProvider preferred(ModelCallType callType) {
+        return route(callType).get(0);
+    }
+
+    ModelCompletion complete(ModelCallType callType, String flow, ModelPrompt prompt) {
+        List<ModelProvider> candidates = candidates(callType);
+        if (settings.isHedged(callType) && candidates.size() > 1) {
+            return hedged(callType, flow, prompt, candidates);
+        }
+
+        ModelProviderException failure = null;
+        for (ModelProvider provider : candidates) {
+            if (failure != null) {
+                fallback(callType, provider);
+            }
+            try {
+                return attempt(callType, provider,
+                        () -> provider.complete(callType, flow, prompt.bodyFor(provider), prompt.getEstimatedTokens()));
+            } catch (ModelProviderException exception) {
+                if (!fallsBack(exception)) {
+                    throw exception;
+                }
+                failure = exception;
+            }
+        }
+        throw failure;
+    }
+
+    ModelCompletion stream(ModelCallType callType, String flow, ModelPrompt prompt, Consumer<String> onDelta) {
+        ModelProviderException failure = null;
+        boolean[] forwarded = new boolean[1];
+        for (ModelProvider provider : candidates(callType)) {
+            if (failure != null) {
+                fallback(callType, provider);
+            }
+            try {
+                return attempt(callType, provider, () -> provider.stream(callType, flow, prompt.bodyFor(provider),
+                        prompt.getEstimatedTokens(), delta -> {
+                            forwarded[0] = true;
+                            onDelta.accept(delta);
+                        }));
+            } catch (ModelProviderException exception) {
+                // The client already shows part of this reply; another provider would start a different one
+                if (forwarded[0] || !fallsBack(exception)) {
+                    throw exception;
+                }
+                failure = exception;
+            }
+        }
+        throw failure;
+    }
+
+    // Runs the first candidate on its own virtual thread so the caller can stop waiting for it after the hedge delay
+    private ModelCompletion hedged(ModelCallType callType, String flow, ModelPrompt prompt, List<ModelProvider> candidates) {
+        ExecutorCompletionService<ModelCompletion> race = new ExecutorCompletionService<>(hedgeExecutor);
+        List<Future<ModelCompletion>> started = new ArrayList<>(2);
+        ModelProviderException failure = null;
+        boolean hedgeSent = false;
+        int next = 0;
+        int running = 0;
+
+        try {
+            started.add(submit(race, callType, flow, prompt, candidates.get(next++)));
+            running++;
+            while (running > 0) {
+                Future<ModelCompletion> done;
+                if (!hedgeSent && next < candidates.size()) {
+                    done = race.poll(hedgeDelayNanos(callType, candidates.get(0)), TimeUnit.NANOSECONDS);
+                } else {
+                    done = race.take();
+                }
+
+                if (done == null) {
+                    hedgeSent = true;
+                    ModelProvider hedge = candidates.get(next++);
+                    Counter.builder("model.route.hedges")
+                            .description("Calls also sent to a second provider because the first was slower than its p95")
+                            .tag("call_type", callType.name())
+                            .tag("provider", hedge.getName())
+                            .register(meterRegistry)
+                            .increment();
+                    started.add(submit(race, callType, flow, prompt, hedge));
+                    running++;
+                    continue;
+                }
+
+                running--;
+                try {
+                    return done.get();
+                } catch (ExecutionException exception) {
+                    if (!(exception.getCause() instanceof ModelProviderException providerFailure) || !fallsBack(providerFailure)) {
+                        throw exception.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(exception.getCause());
+                    }
+                    failure = providerFailure;
+                }
+
+                // Both racers failed (or the first failed before the hedge delay): fall back to the next candidate
+                if (running == 0 && next < candidates.size()) {
+                    ModelProvider provider = candidates.get(next++);
+                    fallback(callType, provider);
+                    hedgeSent = true;
+                    started.add(submit(race, callType, flow, prompt, provider));
+                    running++;
+                }
+            }
+            throw failure;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ModelProviderException("Interrupted while waiting for a model provider.", 0, null, exception);
+        } finally {
+            // Interrupts the losing call; its provider gives up on the HTTP exchange
+            started.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Future<ModelCompletion> submit(ExecutorCompletionService<ModelCompletion> race, ModelCallType callType,
+                                           String flow, ModelPrompt prompt, ModelProvider provider) {
+        return race.submit(() -> attempt(callType, provider,
+                () -> provider.complete(callType, flow, prompt.bodyFor(provider), prompt.getEstimatedTokens())));
+    }
+
+    private long hedgeDelayNanos(ModelCallType callType, ModelProvider provider) {
+        long p95 = stats(provider, callType).percentileNanos(0.95);
+        return p95 > 0 ? p95 : settings.getHedgeDelay().toNanos();
+    }
+
+    // Times the call into the provider's window. Admission shedding and cancelled hedges say nothing about the
+    // provider's health, so they are left out of the error rate.
+    private ModelCompletion attempt(ModelCallType callType, ModelProvider provider, Supplier<ModelCompletion> call) {
+        ProviderStats providerStats = stats(provider, callType);
+        long started = System.nanoTime();
+        try {
+            ModelCompletion completion = call.get();
+            providerStats.record(System.nanoTime() - started, true);
+            count(callType, provider, "success");
+            return completion;
+        } catch (ModelOverloadedException exception) {
+            count(callType, provider, "shed");
+            throw exception;
+        } catch (RuntimeException exception) {
+            if (Thread.currentThread().isInterrupted()) {
+                count(callType, provider, "cancelled");
+            } else {
+                providerStats.record(System.nanoTime() - started, false);
+                count(callType, provider, "failure");
+            }
+            throw exception;
+        }
+    }
+
+    private static boolean fallsBack(ModelProviderException exception) {
+        return !(exception instanceof ModelOverloadedException) && !Thread.currentThread().isInterrupted();
+    }
+
+    // Configured order; providers within the latency budget first, then slow ones by p95, then unhealthy ones
+    private List<ModelProvider> candidates(ModelCallType callType) {
+        List<ModelProvider> route = route(callType);
+        if (route.size() == 1) {
+            return route;
+        }
+        long budget = settings.getLatencyBudget().toNanos();
+        long[] p95 = new long[route.size()];
+        int[] tier = new int[route.size()];
+        for (int index = 0; index < route.size(); index++) {
+            ModelProvider provider = route.get(index);
+            ProviderStats providerStats = stats(provider, callType);
+            p95[index] = providerStats.percentileNanos(0.95);
+            if (provider.getCircuitState() == CircuitBreaker.State.OPEN || providerStats.errorRate() > settings.getMaxErrorRate()) {
+                tier[index] = 2;
+            } else {
+                tier[index] = p95[index] > budget ? 1 : 0;
+            }
+        }
+
+        Integer[] order = new Integer[route.size()];
+        Arrays.setAll(order, index -> index);
+        Arrays.sort(order, Comparator.<Integer>comparingInt(index -> tier[index])
+                .thenComparingLong(index -> tier[index] == 1 ? p95[index] : 0));
+        List<ModelProvider> candidates = new ArrayList<>(route.size());
+        for (Integer index : order) {
+            candidates.add(route.get(index));
+        }
+        return candidates;
+    }
+
+    private List<ModelProvider> route(ModelCallType callType) {
+        List<ModelProvider> route = new ArrayList<>();
+        for (String name : settings.getRoute(callType)) {
+            ModelProvider provider = providers.get(name.trim());
+            if (provider != null && !route.contains(provider)) {
+                route.add(provider);
+            }
+        }
+        return route;
+    }
+
+    private void fallback(ModelCallType callType, ModelProvider provider) {
+        Counter.builder("model.route.fallbacks")
+                .description("Calls retried on another provider after the previous one failed")
+                .tag("call_type", callType.name())
+                .tag("provider", provider.getName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void count(ModelCallType callType, ModelProvider provider, String outcome) {
+        Counter.builder("model.route.calls")
+                .description("Routed model calls by the provider that served them and how they ended")
+                .tag("call_type", callType.name())
+                .tag("provider", provider.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // One window per provider and call type: a feedback evaluation and an opening question have very different latencies
+    private ProviderStats stats(ModelProvider provider, ModelCallType callType) {
+        return stats.computeIfAbsent(provider.getName() + "/" + callType, key -> {
+            ProviderStats providerStats = new ProviderStats(settings.getWindow(), settings.getMinSamples());
+            for (double quantile : new double[] {0.5, 0.95}) {
+                Gauge.builder("model.route.latency", providerStats, window -> window.percentileNanos(quantile) / 1e9)
+                        .description("Latency of the provider's recent successful calls, as seen by the router")
+                        .baseUnit("seconds")
+                        .tag("call_type", callType.name())
+                        .tag("provider", provider.getName())
+                        .tag("quantile", Double.toString(quantile))
+                        .register(meterRegistry);
+            }
+            Gauge.builder("model.route.error.rate", providerStats, ProviderStats::errorRate)
+                    .description("Share of the provider's recent calls that failed")
+                    .tag("call_type", callType.name())
+                    .tag("provider", provider.getName())
+                    .register(meterRegistry);
+            return providerStats;
+        });
+    }
+
+    // The last `window` calls: latencies of the successful ones and the outcome of all of them.
+    // Below minSamples there is not enough to go on, so percentiles read 0 and the error rate reads 0.
+    static class ProviderStats {
+        // ReentrantLock rather than synchronized so callers on virtual threads never pin their carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] latencies;
+        private final boolean[] outcomes;
+        private final int minSamples;
+        private int latencyCount;
+        private int latencyNext;
+        private int outcomeCount;
+        private int outcomeNext;
+        private int failures;
+
+        ProviderStats(int window, int minSamples) {
+            this.latencies = new long[window];
+            this.outcomes = new boolean[window];
+            this.minSamples = minSamples;
+        }
+
+        void record(long latencyNanos, boolean success) {
+            lock.lock();
+            try {
+                if (outcomeCount == outcomes.length && !outcomes[outcomeNext]) {
+                    failures--;
+                }
+                outcomes[outcomeNext] = success;
+                outcomeNext = (outcomeNext + 1) % outcomes.length;
+                outcomeCount = Math.min(outcomeCount + 1, outcomes.length);
+                if (!success) {
+                    failures++;
+                    return;
+                }
+                latencies[latencyNext] = latencyNanos;
+                latencyNext = (latencyNext + 1) % latencies.length;
+                latencyCount = Math.min(latencyCount + 1, latencies.length);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long percentileNanos(double quantile) {
+            long[] sorted;
+            lock.lock();
+            try {
+                if (latencyCount < minSamples) {
+                    return 0;
+                }
+                sorted = Arrays.copyOf(latencies, latencyCount);
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+        }
+
+        double errorRate() {
+            lock.lock();
+            try {
+                return outcomeCount < minSamples ? 0 : (double) failures / outcomeCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.aiinterviewprep.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Which providers serve each call type, in order of preference, and how the router reacts to their
+// live latency and errors (model.routing.* properties)
+@Component
+public class ModelRoutingSettings {
+
+    private final Map<ModelCallType, List<String>> routes = new EnumMap<>(ModelCallType.class);
+    private final Set<ModelCallType> hedged;
+    private final Duration hedgeDelay;
+    private final Duration latencyBudget;
+    private final double maxErrorRate;
+    private final int window;
+    private final int minSamples;
+
+    public ModelRoutingSettings(
+            @Value("${model.routing.opening:openai,openai-fast}") List<String> opening,
+            @Value("${model.routing.opening-prefetch:openai-fast,openai}") List<String> openingPrefetch,
+            @Value("${model.routing.reply:openai,local}") List<String> reply,
+            @Value("${model.routing.summary:openai-fast,openai}") List<String> summary,
+            @Value("${model.routing.feedback:openai,openai-fast}") List<String> feedback,
+            @Value("${model.routing.hedged:OPENING,REPLY}") Set<ModelCallType> hedged,
+            @Value("${model.routing.hedge-delay:PT3S}") Duration hedgeDelay,
+            @Value("${model.routing.latency-budget:PT20S}") Duration latencyBudget,
+            @Value("${model.routing.max-error-rate:0.5}") double maxErrorRate,
+            @Value("${model.routing.window:200}") int window,
+            @Value("${model.routing.min-samples:20}") int minSamples
+    ) {
+        routes.put(ModelCallType.OPENING, List.copyOf(opening));
+        routes.put(ModelCallType.OPENING_PREFETCH, List.copyOf(openingPrefetch));
+        routes.put(ModelCallType.REPLY, List.copyOf(reply));
+        routes.put(ModelCallType.SUMMARY, List.copyOf(summary));
+        routes.put(ModelCallType.FEEDBACK, List.copyOf(feedback));
+        this.hedged = hedged.isEmpty() ? EnumSet.noneOf(ModelCallType.class) : EnumSet.copyOf(hedged);
+        this.hedgeDelay = hedgeDelay;
+        this.latencyBudget = latencyBudget;
+        this.maxErrorRate = maxErrorRate;
+        this.window = Math.max(1, window);
+        this.minSamples = Math.max(1, Math.min(minSamples, this.window));
+    }
+
+    // Every call type goes to the one provider, never hedged; for tests and tools that build OpenAiClientService by hand
+    public static ModelRoutingSettings single(String provider) {
+        List<String> route = List.of(provider);
+        return new ModelRoutingSettings(route, route, route, route, route, Set.of(), Duration.ofSeconds(3),
+                Duration.ofSeconds(20), 0.5, 200, 20);
+    }
+
+    public List<String> getRoute(ModelCallType callType) {
+        return routes.get(callType);
+    }
+
+    public boolean isHedged(ModelCallType callType) {
+        return hedged.contains(callType);
+    }
+
+    public Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public Duration getLatencyBudget() {
+        return latencyBudget;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.aiinterviewprep.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Size limits of model calls (model.max-tokens.* and model.max-prompt-tokens): the max_tokens sent for each call type,
+// and the largest prompt sent at all, beyond which the oldest history messages are left out
+@Component
+public class ModelTokenSettings {
+
+    private final Map<ModelCallType, Integer> maxTokens = new EnumMap<>(ModelCallType.class);
+    private final int maxPromptTokens;
+
+    public ModelTokenSettings(
+            @Value("${model.max-tokens.opening:200}") int opening,
+            @Value("${model.max-tokens.opening-prefetch:200}") int openingPrefetch,
+            @Value("${model.max-tokens.reply:400}") int reply,
+            @Value("${model.max-tokens.summary:500}") int summary,
+            @Value("${model.max-tokens.feedback:800}") int feedback,
+            @Value("${model.max-prompt-tokens:16000}") int maxPromptTokens
+    ) {
+        maxTokens.put(ModelCallType.OPENING, Math.max(1, opening));
+        maxTokens.put(ModelCallType.OPENING_PREFETCH, Math.max(1, openingPrefetch));
+        maxTokens.put(ModelCallType.REPLY, Math.max(1, reply));
+        maxTokens.put(ModelCallType.SUMMARY, Math.max(1, summary));
+        maxTokens.put(ModelCallType.FEEDBACK, Math.max(1, feedback));
+        this.maxPromptTokens = Math.max(1, maxPromptTokens);
+    }
+
+    // The property defaults; for tests and tools that build OpenAiClientService by hand
+    public static ModelTokenSettings defaults() {
+        return new ModelTokenSettings(200, 200, 400, 500, 800, 16000);
+    }
+
+    public int getMaxTokens(ModelCallType callType) {
+        return maxTokens.get(callType);
+    }
+
+    public int getMaxPromptTokens() {
+        return maxPromptTokens;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.aiinterviewprep.service;
+
+import java.time.Duration;
+
+// The provider is degraded: 5xx or connection failures outlasted the retries, the circuit breaker is open,
+// or too many calls to it are already in flight
+public class ModelUnavailableException extends ModelProviderException {
+
+    public ModelUnavailableException(String message, int statusCode, Duration retryAfter, Throwable cause) {
+        super(message, statusCode, retryAfter, cause);
+    }
+}
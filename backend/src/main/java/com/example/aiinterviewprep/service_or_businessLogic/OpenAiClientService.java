@@ -2,79 +2,186 @@ package com.example.aiinterviewprep.service;
 
 import com.example.aiinterviewprep.entity.DifficultyLevel;
 import com.example.aiinterviewprep.entity.Message;
-import com.example.aiinterviewprep.entity.MessageRole;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+// Builds the interview prompts and hands each call to the ModelRouter, which picks the provider
 @Service
 public class OpenAiClientService {
 
-    private final String apiKey;
-    private final String model;
-    private final String baseUrl;
-    private final ObjectMapper objectMapper;
-    private final HttpClient httpClient;
+    // Call types whose oldest history may be left out of an oversized prompt. Feedback is not among them: it is
+    // meant to judge the whole transcript, and one missing its start would score a different interview.
+    private static final Set<ModelCallType> TRIMMABLE = EnumSet.of(ModelCallType.REPLY, ModelCallType.SUMMARY);
 
+    private final ModelRouter router;
+    private final JsonFactory jsonFactory;
+    private final CompletionCache completionCache;
+    private final Tokenizer tokenizer;
+    private final ModelTokenSettings tokenSettings;
+    private final SessionTokenBudget sessionTokenBudget;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public OpenAiClientService(
+            ModelRouter router,
+            CompletionCache completionCache,
+            Tokenizer tokenizer,
+            ModelTokenSettings tokenSettings,
+            SessionTokenBudget sessionTokenBudget,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper
+    ) {
+        this.router = router;
+        this.jsonFactory = objectMapper.getFactory();
+        this.completionCache = completionCache;
+        this.tokenizer = tokenizer;
+        this.tokenSettings = tokenSettings;
+        this.sessionTokenBudget = sessionTokenBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Default token limits and no session budget, counted with the encoding of the preferred reply model;
+    // for tests and tools that build the router by hand
     public OpenAiClientService(
-            @Value("${openai.api.key}") String apiKey,
-            @Value("${openai.model}") String model,
-            @Value("${openai.base-url}") String baseUrl,
+            ModelRouter router,
+            CompletionCache completionCache,
+            MeterRegistry meterRegistry,
             ObjectMapper objectMapper
     ) {
-        this.apiKey = apiKey;
-        this.model = model;
-        this.baseUrl = baseUrl;
-        this.objectMapper = objectMapper;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(20))
-                .build();
+        this(router, completionCache, Tokenizer.forModel(router.preferred(ModelCallType.REPLY).getModel()),
+                ModelTokenSettings.defaults(), SessionTokenBudget.unlimited(), meterRegistry, objectMapper);
+    }
+
+    // A client with a single OpenAI-compatible provider for every call type; for tests and tools that build it by hand
+    public OpenAiClientService(
+            String apiKey,
+            String model,
+            String baseUrl,
+            boolean virtualThreads,
+            ModelClientSettings settings,
+            CompletionCache completionCache,
+            ModelAdmissionController admissionController,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper
+    ) {
+        this(ModelRouter.single(new OpenAiCompatibleProvider("openai", apiKey, model, baseUrl, virtualThreads, settings,
+                admissionController, meterRegistry, objectMapper), meterRegistry), completionCache, meterRegistry, objectMapper);
+    }
+
+    // The circuit of the provider preferred for interviewer replies
+    public CircuitBreaker.State getCircuitState() {
+        return router.preferred(ModelCallType.REPLY).getCircuitState();
     }
 
     public String generateOpeningQuestion(String role, DifficultyLevel difficulty) {
-        String systemPrompt = "You are a realistic technical interviewer. Ask one interview question at a time. " +
+        return chatCompletion(ModelCallType.OPENING, null, difficulty, openingSystemPrompt(difficulty), openingUserPrompt(role), List.of());
+    }
+
+    // Same prompt as generateOpeningQuestion, but never answered from the completion cache, so every
+    // question prefetched into the OpeningQuestionPool is a separate sample
+    public String generateFreshOpeningQuestion(String role, DifficultyLevel difficulty) {
+        return chatCompletion(ModelCallType.OPENING_PREFETCH, null, difficulty, openingSystemPrompt(difficulty), openingUserPrompt(role), List.of());
+    }
+
+    public String generateInterviewerReply(String role, DifficultyLevel difficulty, ConversationContext context) {
+        return chatCompletion(ModelCallType.REPLY, context.getSessionId(), difficulty, interviewerReplyPrompt(role, difficulty, context), null, context.getRecentMessages());
+    }
+
+    // Same prompt as generateInterviewerReply, but forwards each content delta as the provider produces it
+    public String streamInterviewerReply(String role, DifficultyLevel difficulty, ConversationContext context, Consumer<String> onDelta) {
+        return streamChatCompletion(context.getSessionId(), difficulty, interviewerReplyPrompt(role, difficulty, context), null, context.getRecentMessages(), onDelta);
+    }
+
+    // Merges older messages into the session's rolling summary (see ConversationContextManager)
+    public String summarizeConversation(Long sessionId, String role, DifficultyLevel difficulty, String previousSummary, List<Message> messages) {
+        String systemPrompt = "You keep running notes on a mock interview for a " + role + " role at " + difficulty + " difficulty. " +
+                "Record each question asked, the substance of the candidate's answers, and notable strengths or gaps. " +
+                "Write plain prose under 200 words.";
+        String userPrompt = (previousSummary == null || previousSummary.isBlank() ? "" : "Notes so far: " + previousSummary + "\n\n") +
+                "Update the notes with the transcript above and return only the updated notes.";
+        return chatCompletion(ModelCallType.SUMMARY, sessionId, difficulty, systemPrompt, userPrompt, messages);
+    }
+
+    private String openingSystemPrompt(DifficultyLevel difficulty) {
+        return "You are a realistic technical interviewer. Ask one interview question at a time. " +
                 "Keep responses concise and professional. Difficulty level is " + difficulty + ".";
-        String userPrompt = "Start a mock interview for a " + role + " candidate. Ask the first question only.";
-        return chatCompletion(systemPrompt, userPrompt, List.of());
     }
 
-    public String generateInterviewerReply(String role, DifficultyLevel difficulty, List<Message> history) {
-        String systemPrompt = "You are a realistic technical interviewer for a " + role + " role. " +
+    private String openingUserPrompt(String role) {
+        return "Start a mock interview for a " + role + " candidate. Ask the first question only.";
+    }
+
+    private String interviewerReplyPrompt(String role, DifficultyLevel difficulty, ConversationContext context) {
+        String prompt = "You are a realistic technical interviewer for a " + role + " role. " +
                 "Difficulty level is " + difficulty + ". " +
                 "For each candidate response: briefly acknowledge it, give concise feedback, then ask the next question. " +
                 "Keep the total response under 140 words.";
-        return chatCompletion(systemPrompt, null, history);
+        if (context.getSummary() != null && !context.getSummary().isBlank()) {
+            prompt += " Summary of the interview before the messages below: " + context.getSummary();
+        }
+        return prompt;
+    }
+
+    public SessionFeedback generateSessionFeedback(Long sessionId, String role, DifficultyLevel difficulty, List<Message> history) {
+        return sessionFeedback(sessionId, sessionId, role, difficulty, history);
+    }
+
+    // Batch re-scoring: admitted in the session's fair slot like its own feedback, but the usage is the scoring
+    // job's and is not added to the session's token totals
+    public SessionFeedback rescoreSession(Long sessionId, String role, DifficultyLevel difficulty, List<Message> history) {
+        return sessionFeedback(sessionId, null, role, difficulty, history);
     }
 
-    public SessionFeedback generateSessionFeedback(String role, DifficultyLevel difficulty, List<Message> history) {
+    private SessionFeedback sessionFeedback(Long sessionId, Long usageSessionId, String role, DifficultyLevel difficulty,
+                                            List<Message> history) {
         String systemPrompt = "You are an interview evaluator for role " + role + " at " + difficulty + " difficulty. " +
                 "Return STRICT JSON with fields: strengths, areasForImprovement, overallComments, score. " +
                 "score must be an integer from 1 to 10.";
 
         String userPrompt = "Based on the full transcript, provide final feedback JSON only.";
-        String raw = chatCompletion(systemPrompt, userPrompt, history);
+        return parseFeedback(chatCompletion(ModelCallType.FEEDBACK, sessionId, usageSessionId, difficulty, systemPrompt, userPrompt, history));
+    }
 
-        try {
-            JsonNode jsonNode = objectMapper.readTree(raw);
-            SessionFeedback feedback = new SessionFeedback();
-            feedback.setStrengths(readTextOrDefault(jsonNode, "strengths", "Good effort and communication."));
-            feedback.setAreasForImprovement(readTextOrDefault(jsonNode, "areasForImprovement", "Add more concrete examples and deeper trade-off analysis."));
-            feedback.setOverallComments(readTextOrDefault(jsonNode, "overallComments", "Solid attempt. Continue practicing with structured examples."));
-            feedback.setScore(readScore(jsonNode));
-            return feedback;
-        } catch (Exception parseException) {
+    // Binds the evaluator's JSON to SessionFeedback field by field from the token stream, without building a tree.
+    // Missing or mistyped fields get defaults; anything unparseable becomes a fallback with the raw text.
+    // Package-private for the JMH benchmarks.
+    SessionFeedback parseFeedback(String raw) {
+        SessionFeedback feedback = new SessionFeedback();
+        try (JsonParser parser = jsonFactory.createParser(raw)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Feedback is not a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "strengths" -> feedback.setStrengths(readText(parser, value));
+                    case "areasForImprovement" -> feedback.setAreasForImprovement(readText(parser, value));
+                    case "overallComments" -> feedback.setOverallComments(readText(parser, value));
+                    case "score" -> feedback.setScore(readScore(parser, value));
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException parseException) {
             SessionFeedback fallback = new SessionFeedback();
             fallback.setStrengths("Good communication and effort across the session.");
             fallback.setAreasForImprovement("Provide more specific examples and clearer technical trade-offs.");
@@ -82,82 +189,147 @@ public class OpenAiClientService {
             fallback.setScore(7);
             return fallback;
         }
-    }
 
-    private int readScore(JsonNode jsonNode) {
-        if (jsonNode.has("score") && jsonNode.get("score").isInt()) {
-            int score = jsonNode.get("score").asInt();
-            return Math.max(1, Math.min(10, score));
+        if (feedback.getStrengths() == null) {
+            feedback.setStrengths("Good effort and communication.");
+        }
+        if (feedback.getAreasForImprovement() == null) {
+            feedback.setAreasForImprovement("Add more concrete examples and deeper trade-off analysis.");
+        }
+        if (feedback.getOverallComments() == null) {
+            feedback.setOverallComments("Solid attempt. Continue practicing with structured examples.");
+        }
+        if (feedback.getScore() == null) {
+            feedback.setScore(7);
         }
-        return 7;
+        return feedback;
     }
 
-    private String readTextOrDefault(JsonNode jsonNode, String field, String fallback) {
-        if (jsonNode.has(field) && jsonNode.get(field).isTextual()) {
-            String value = jsonNode.get(field).asText().trim();
-            if (!value.isEmpty()) {
-                return value;
-            }
+    // An int clamped to 1..10, or null (so the default applies) for any other value
+    private static Integer readScore(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_NUMBER_INT || parser.getNumberType() != JsonParser.NumberType.INT) {
+            parser.skipChildren();
+            return null;
         }
-        return fallback;
+        return Math.max(1, Math.min(10, parser.getIntValue()));
     }
 
-    private String chatCompletion(String systemPrompt, String userPrompt, List<Message> history) {
-        if (apiKey == null || apiKey.isBlank()) {
-            throw new IllegalStateException("OpenAI API key is missing. Set OPENAI_API_KEY environment variable.");
+    // The trimmed string value, or null (so the default applies) when it is blank or not a string
+    private static String readText(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return null;
         }
+        String text = parser.getText().trim();
+        return text.isEmpty() ? null : text;
+    }
 
-        List<Map<String, String>> messages = new ArrayList<>();
-        messages.add(Map.of("role", "system", "content", systemPrompt));
+    // Identical payloads are served or coalesced by the CompletionCache according to the call type, keyed by the
+    // request body of the call type's preferred provider (whichever provider ends up answering).
+    // Cache hits make no upstream call, so they record no latency or tokens and skip admission.
+    // sessionId (null for calls not tied to a session) is the admission controller's fairness key.
+    private String chatCompletion(ModelCallType callType, Long sessionId, DifficultyLevel difficulty,
+                                  String systemPrompt, String userPrompt, List<Message> history) {
+        return chatCompletion(callType, sessionId, sessionId, difficulty, systemPrompt, userPrompt, history);
+    }
 
-        for (Message message : history) {
-            messages.add(Map.of(
-                    "role", message.getRole() == MessageRole.CANDIDATE ? "user" : "assistant",
-                    "content", message.getContent()
-            ));
-        }
+    // usageSessionId is the session whose token budget and totals the call counts against (null for none)
+    private String chatCompletion(ModelCallType callType, Long sessionId, Long usageSessionId, DifficultyLevel difficulty,
+                                  String systemPrompt, String userPrompt, List<Message> history) {
+        ModelPrompt prompt = prompt(callType, usageSessionId, systemPrompt, userPrompt, history, false);
+        String requestBody = timePayload(callType, "serialize", () -> prompt.bodyFor(router.preferred(callType)));
+        return completionCache.get(callType, sha256(requestBody), () -> {
+            ModelCompletion completion = router.complete(callType, flow(sessionId), prompt);
+            recordUsage(callType, usageSessionId, difficulty, completion);
+            return completion.getContent();
+        });
+    }
+
+    // Streamed replies are never cached; the preferred provider's body is built up front only so serialization is timed
+    private String streamChatCompletion(Long sessionId, DifficultyLevel difficulty, String systemPrompt, String userPrompt,
+                                        List<Message> history, Consumer<String> onDelta) {
+        ModelPrompt prompt = prompt(ModelCallType.REPLY, sessionId, systemPrompt, userPrompt, history, true);
+        timePayload(ModelCallType.REPLY, "serialize", () -> prompt.bodyFor(router.preferred(ModelCallType.REPLY)));
+        ModelCompletion completion = router.stream(ModelCallType.REPLY, flow(sessionId), prompt, onDelta);
+        recordUsage(ModelCallType.REPLY, sessionId, difficulty, completion);
+        return completion.getContent();
+    }
 
-        if (userPrompt != null && !userPrompt.isBlank()) {
-            messages.add(Map.of("role", "user", "content", userPrompt));
+    // Counts the prompt before anything is sent. Past model.max-prompt-tokens the oldest history messages of a reply or
+    // summary are left out (the newest is always kept); a prompt still too long without them, or an oversized prompt
+    // of any other call type, is refused. The call's estimate, prompt plus the call type's max_tokens, is then
+    // checked against the session's token budget.
+    private ModelPrompt prompt(ModelCallType callType, Long sessionId, String systemPrompt, String userPrompt,
+                               List<Message> history, boolean stream) {
+        int maxPromptTokens = tokenSettings.getMaxPromptTokens();
+        int promptTokens = tokenizer.countPrompt(systemPrompt, userPrompt, history);
+        if (promptTokens > maxPromptTokens) {
+            if (!TRIMMABLE.contains(callType)) {
+                throw new IllegalArgumentException("The transcript is too long to send in one " + callType + " call ("
+                        + promptTokens + " of " + maxPromptTokens + " tokens); none of it is left out for this call type.");
+            }
+            int dropped = 0;
+            while (dropped < history.size() - 1 && promptTokens > maxPromptTokens) {
+                promptTokens -= Tokenizer.TOKENS_PER_MESSAGE + tokenizer.count(history.get(dropped));
+                dropped++;
+            }
+            if (promptTokens > maxPromptTokens) {
+                throw new IllegalArgumentException("The message is too long for the interviewer to read ("
+                        + promptTokens + " of " + maxPromptTokens + " tokens). Please shorten it.");
+            }
+            history = history.subList(dropped, history.size());
+            Counter.builder("model.prompt.trimmed")
+                    .description("History messages left out of prompts that were over model.max-prompt-tokens")
+                    .tag("call_type", callType.name())
+                    .register(meterRegistry)
+                    .increment(dropped);
         }
 
-        Map<String, Object> payload = new LinkedHashMap<>();
-        payload.put("model", model);
-        payload.put("temperature", 0.7);
-        payload.put("messages", messages);
+        ModelPrompt prompt = new ModelPrompt(systemPrompt, userPrompt, history, tokenSettings.getMaxTokens(callType),
+                promptTokens, stream);
+        sessionTokenBudget.check(callType, sessionId, prompt.getEstimatedTokens());
+        return prompt;
+    }
 
-        try {
-            String requestBody = objectMapper.writeValueAsString(payload);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/chat/completions"))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(60))
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() >= 400) {
-                throw new RuntimeException("OpenAI request failed with status " + response.statusCode() + ": " + response.body());
-            }
+    private static String flow(Long sessionId) {
+        return sessionId == null ? null : "session-" + sessionId;
+    }
 
-            JsonNode root = objectMapper.readTree(response.body());
-            JsonNode choices = root.path("choices");
-            if (!choices.isArray() || choices.isEmpty()) {
-                throw new RuntimeException("OpenAI response did not include choices.");
-            }
+    // Per-session spend is not tagged here (one series per session would be unbounded); only the totals by
+    // call type, provider, model and difficulty. It is added to the session's own totals instead.
+    private void recordUsage(ModelCallType callType, Long sessionId, DifficultyLevel difficulty, ModelCompletion completion) {
+        tokenCounter(callType, difficulty, completion, "prompt").increment(completion.getPromptTokens());
+        tokenCounter(callType, difficulty, completion, "completion").increment(completion.getCompletionTokens());
+        sessionTokenBudget.record(sessionId, completion.getPromptTokens(), completion.getCompletionTokens());
+    }
 
-            String content = choices.get(0).path("message").path("content").asText();
-            if (content == null || content.isBlank()) {
-                throw new RuntimeException("OpenAI response content was empty.");
-            }
-            return content.trim();
+    private Counter tokenCounter(ModelCallType callType, DifficultyLevel difficulty, ModelCompletion completion, String kind) {
+        return Counter.builder("model.tokens")
+                .description("Tokens reported in the provider's usage field")
+                .baseUnit("tokens")
+                .tag("call_type", callType.name())
+                .tag("provider", completion.getProvider())
+                .tag("model", completion.getModel())
+                .tag("difficulty", String.valueOf(difficulty))
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
 
-        } catch (InterruptedException exception) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Failed to call OpenAI API.", exception);
-        } catch (IOException exception) {
-            throw new RuntimeException("Failed to call OpenAI API.", exception);
+    // Request serialization and response parsing, kept apart from the upstream wait
+    private <T> T timePayload(ModelCallType callType, String phase, Supplier<T> step) {
+        return Timer.builder("model.payload")
+                .description("Time spent serializing completion requests and parsing responses")
+                .tag("call_type", callType.name())
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(step);
+    }
+
+    static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available.", exception);
         }
     }
 
@@ -0,0 +1,524 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// A /chat/completions endpoint in the OpenAI wire format: OpenAI itself, or a local server that speaks it
+// (Ollama, vLLM, llama.cpp). Each provider has its own HTTP client, concurrency permits and circuit breaker.
+public class OpenAiCompatibleProvider implements ModelProvider {
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(500, 502, 503, 504);
+
+    private final String name;
+    private final String apiKey;
+    private final String model;
+    private final String baseUrl;
+    private final JsonFactory jsonFactory;
+    private final ObjectMapper canonicalMapper;
+    private final ModelClientSettings settings;
+    private final ModelAdmissionController admissionController;
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+    private final Semaphore permits;
+    private final CircuitBreaker circuitBreaker;
+    private final Object clientLock = new Object();
+    private volatile HttpClient httpClient;
+    private ExecutorService httpExecutor;
+    private boolean closed;
+
+    // admissionController is the quota this provider draws on: shared by providers behind the same account,
+    // ModelAdmissionController.unlimited() for a local server
+    public OpenAiCompatibleProvider(
+            String name,
+            String apiKey,
+            String model,
+            String baseUrl,
+            boolean virtualThreads,
+            ModelClientSettings settings,
+            ModelAdmissionController admissionController,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper
+    ) {
+        this.name = name;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.baseUrl = baseUrl;
+        this.jsonFactory = objectMapper.getFactory();
+        this.canonicalMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.settings = settings;
+        this.admissionController = admissionController;
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+        this.permits = new Semaphore(settings.getMaxConcurrentRequests(), true);
+        this.circuitBreaker = new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void close() {
+        synchronized (clientLock) {
+            closed = true;
+            if (httpExecutor != null) {
+                httpExecutor.shutdownNow();
+            }
+        }
+    }
+
+    // Waits for room in the provider quota first (see ModelAdmissionController); retries are not charged again.
+    // The body is parsed as it arrives rather than buffered into a String first, so "parse" here
+    // includes reading the body; model.upstream.latency covers the wait for the response headers.
+    // The concurrency permit is held until the body has been read, so it bounds generations in flight.
+    @Override
+    public ModelCompletion complete(ModelCallType callType, String flow, String requestBody, long estimatedTokens) {
+        HttpRequest request = buildRequest(requestBody, false);
+        ModelAdmissionController.Admission admission = admissionController.admit(callType, flow, estimatedTokens);
+        HttpResponse<InputStream> response = sendAdmitted(callType, request, HttpResponse.BodyHandlers.ofInputStream(), admission);
+        // A body that cannot be read or parsed settles at the estimate, as a broken stream does: the provider
+        // answered, so it bills the call anyway
+        long usedTokens = estimatedTokens;
+        try {
+            ModelCompletion completion = timePayload(callType, "parse", () -> parseCompletion(response.body(), response.statusCode()));
+            usedTokens = completion.getPromptTokens() + completion.getCompletionTokens();
+            return completion;
+        } finally {
+            permits.release();
+            admissionController.settle(admission, usedTokens);
+        }
+    }
+
+    // Reads the "stream": true response line by line. Each "data:" line carries one chunk whose
+    // choices[0].delta.content is forwarded as soon as it arrives; "data: [DONE]" ends the stream.
+    // Only opening the stream is retried: once a delta has been forwarded a failure ends the turn.
+    // The request asks for include_usage, so the provider sends token counts in a last chunk with no choices.
+    @Override
+    public ModelCompletion stream(ModelCallType callType, String flow, String requestBody, long estimatedTokens,
+                                  Consumer<String> onDelta) {
+        HttpRequest request = buildRequest(requestBody, true);
+        ModelAdmissionController.Admission admission = admissionController.admit(callType, flow, estimatedTokens);
+        HttpResponse<Stream<String>> response = sendAdmitted(callType, request, HttpResponse.BodyHandlers.ofLines(), admission);
+        StringBuilder content = new StringBuilder();
+        long promptTokens = 0;
+        long completionTokens = 0;
+
+        // The permit is held until the stream is closed, however it ends
+        try (Stream<String> lines = response.body()) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+
+                String data = line.substring("data:".length()).trim();
+                if (data.equals("[DONE]")) {
+                    break;
+                }
+
+                ModelCompletion chunk;
+                try (JsonParser parser = jsonFactory.createParser(data)) {
+                    chunk = readCompletion(parser, "delta");
+                }
+                if (chunk.getPromptTokens() > 0 || chunk.getCompletionTokens() > 0) {
+                    promptTokens = chunk.getPromptTokens();
+                    completionTokens = chunk.getCompletionTokens();
+                }
+
+                String delta = chunk.getContent();
+                if (delta != null && !delta.isEmpty()) {
+                    content.append(delta);
+                    onDelta.accept(delta);
+                }
+            }
+        } catch (IOException | UncheckedIOException exception) {
+            // Counted against the provider like an I/O failure in send(), though the response had already started
+            circuitBreaker.onFailure();
+            throw new ModelUnavailableException(name + " stream ended unexpectedly.", response.statusCode(), null, exception);
+        } finally {
+            permits.release();
+            // A stream that broke off before its usage chunk keeps the estimate charged: the provider bills it anyway
+            admissionController.settle(admission, promptTokens + completionTokens);
+        }
+
+        if (content.toString().isBlank()) {
+            throw new ModelProviderException(name + " response content was empty.", response.statusCode());
+        }
+        return new ModelCompletion(content.toString().trim(), promptTokens, completionTokens, name, model);
+    }
+
+    // Pulls choices[0].message.content and the usage token counts out of a non-streamed completion,
+    // skipping every other field; closes the body when done. Package-private for the JMH benchmarks.
+    ModelCompletion parseCompletion(InputStream body, int statusCode) {
+        ModelCompletion completion;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            completion = readCompletion(parser, "message");
+        } catch (IOException exception) {
+            throw new ModelProviderException(name + " response could not be parsed.", statusCode, null, exception);
+        }
+
+        if (completion.getContent() == null) {
+            throw new ModelProviderException(name + " response did not include choices.", statusCode);
+        }
+        if (completion.getContent().isBlank()) {
+            throw new ModelProviderException(name + " response content was empty.", statusCode);
+        }
+        return new ModelCompletion(completion.getContent().trim(), completion.getPromptTokens(), completion.getCompletionTokens(),
+                name, model);
+    }
+
+    // Reads one completion object (choiceField "message") or stream chunk (choiceField "delta") token by token.
+    // Content is null when there are no choices and "" when the first choice has no text content.
+    private static ModelCompletion readCompletion(JsonParser parser, String choiceField) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object.");
+        }
+        String content = null;
+        long promptTokens = 0;
+        long completionTokens = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("choices") && value == JsonToken.START_ARRAY) {
+                content = readFirstChoiceContent(parser, choiceField);
+            } else if (field.equals("usage") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String usageField = parser.currentName();
+                    parser.nextToken();
+                    switch (usageField) {
+                        case "prompt_tokens" -> promptTokens = parser.getValueAsLong(0);
+                        case "completion_tokens" -> completionTokens = parser.getValueAsLong(0);
+                        default -> parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new ModelCompletion(content, promptTokens, completionTokens);
+    }
+
+    // Positioned on the choices array; returns choices[0].<choiceField>.content and consumes the whole array
+    private static String readFirstChoiceContent(JsonParser parser, String choiceField) throws IOException {
+        String content = null;
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!first || parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            first = false;
+            content = "";
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT || !field.equals(choiceField)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String messageField = parser.currentName();
+                    if (parser.nextToken() == JsonToken.VALUE_STRING && messageField.equals("content")) {
+                        content = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return content;
+    }
+
+    // Sends with bounded concurrency, the circuit breaker and retries. 429, 5xx and dropped connections are
+    // retried with jittered exponential backoff, or after the provider's Retry-After when it sends one.
+    // Built on the first call rather than at startup: creating a client initialises TLS and starts its selector
+    // thread, which is wasted work for providers a deployment never routes to (e.g. the fast model).
+    // One shared client keeps its connections alive between calls. Over TLS it negotiates HTTP/2,
+    // so concurrent completions are multiplexed on a few connections instead of opening one each.
+    // In virtual-thread mode the client's response handling also runs on virtual threads,
+    // so thousands of in-flight completions don't need thousands of platform threads
+    private HttpClient httpClient() {
+        HttpClient client = httpClient;
+        if (client != null) {
+            return client;
+        }
+        synchronized (clientLock) {
+            if (httpClient == null) {
+                if (closed) {
+                    throw new ModelUnavailableException(name + " has been shut down.", 0, null, null);
+                }
+                HttpClient.Builder builder = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofSeconds(20));
+                if (virtualThreads) {
+                    httpExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-http-", 0).factory());
+                    builder.executor(httpExecutor);
+                }
+                httpClient = builder.build();
+            }
+            return httpClient;
+        }
+    }
+
+    // send() for an admitted call: when no response is returned, the provider has nothing to bill, so the
+    // admission's charge is refunded
+    private <T> HttpResponse<T> sendAdmitted(ModelCallType callType, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                                             ModelAdmissionController.Admission admission) {
+        try {
+            return send(callType, request, bodyHandler);
+        } catch (RuntimeException exception) {
+            admissionController.refund(admission);
+            throw exception;
+        }
+    }
+
+    // Returns only 2xx/3xx responses; everything else becomes a typed ModelProviderException.
+    // A returned response still holds its concurrency permit: the caller releases it once the body is read.
+    // Every attempt that reaches the provider is timed under model.upstream.latency, tagged with its status.
+    private <T> HttpResponse<T> send(ModelCallType callType, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt >= settings.getMaxAttempts();
+            AtomicReference<String> errorBody = new AtomicReference<>();
+            HttpResponse<T> response;
+
+            acquirePermit();
+            boolean keepPermit = false;
+            try {
+                if (!circuitBreaker.tryAcquire()) {
+                    throw new ModelUnavailableException(name + " is unavailable; failing fast until it recovers.",
+                            0, circuitBreaker.remainingOpen(), null);
+                }
+                long started = System.nanoTime();
+                try {
+                    // Error bodies are captured as text whatever the caller's handler, so they can be reported
+                    response = httpClient().send(request, responseInfo -> responseInfo.statusCode() >= 400
+                            ? OpenAiCompatibleProvider.<T>captureErrorBody(errorBody)
+                            : bodyHandler.apply(responseInfo));
+                    recordUpstream(callType, String.valueOf(response.statusCode()), started);
+                    keepPermit = response.statusCode() < 400;
+                } catch (IOException exception) {
+                    recordUpstream(callType, "IO_ERROR", started);
+                    circuitBreaker.onFailure();
+                    if (lastAttempt) {
+                        throw new ModelUnavailableException("Failed to call " + name + ".", 0, null, exception);
+                    }
+                    response = null;
+                } catch (InterruptedException exception) {
+                    circuitBreaker.onIgnored();
+                    Thread.currentThread().interrupt();
+                    throw new ModelProviderException("Interrupted while calling " + name + ".", 0, null, exception);
+                }
+            } finally {
+                if (!keepPermit) {
+                    permits.release();
+                }
+            }
+
+            Duration retryAfter = null;
+            if (response != null) {
+                int status = response.statusCode();
+                if (status < 400) {
+                    circuitBreaker.onSuccess();
+                    return response;
+                }
+
+                retryAfter = parseRetryAfter(response);
+                boolean canWait = !lastAttempt && (retryAfter == null || retryAfter.compareTo(settings.getMaxRetryAfter()) <= 0);
+                String message = name + " request failed with status " + status + ": " + errorBody.get();
+                if (status == 429) {
+                    circuitBreaker.onIgnored();
+                    admissionController.pause(retryAfter);
+                    if (!canWait) {
+                        throw new ModelRateLimitedException(message, retryAfter);
+                    }
+                } else if (RETRYABLE_STATUSES.contains(status)) {
+                    circuitBreaker.onFailure();
+                    if (!canWait) {
+                        throw new ModelUnavailableException(message, status, retryAfter, null);
+                    }
+                } else {
+                    circuitBreaker.onSuccess();
+                    if (status == 401 || status == 403) {
+                        throw new ModelAuthenticationException(message, status);
+                    }
+                    throw new ModelProviderException(message, status);
+                }
+            }
+
+            sleep(retryAfter != null ? retryAfter : backoff(attempt));
+        }
+    }
+
+    // Responses are returned once their headers arrive (bodies are read by the caller), so this is time to first byte
+    private void recordUpstream(ModelCallType callType, String status, long startedNanos) {
+        Timer.builder("model.upstream.latency")
+                .description("Time the provider took to answer one attempt of a completion request")
+                .tag("call_type", callType.name())
+                .tag("provider", name)
+                .tag("model", model)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private <T> T timePayload(ModelCallType callType, String phase, Supplier<T> step) {
+        return Timer.builder("model.payload")
+                .description("Time spent serializing completion requests and parsing responses")
+                .tag("call_type", callType.name())
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(step);
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(settings.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ModelUnavailableException("Too many " + name + " requests are already in flight.", 0, null, null);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ModelProviderException("Interrupted while waiting to call " + name + ".", 0, null, exception);
+        }
+    }
+
+    // Full jitter: a random delay up to initialBackoff * 2^(attempt - 1), capped at maxBackoff
+    private Duration backoff(int attempt) {
+        long ceiling = Math.min(settings.getMaxBackoff().toMillis(),
+                settings.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ModelProviderException("Interrupted while waiting to retry " + name + ".", 0, null, exception);
+        }
+    }
+
+    // Retry-After is either delay-seconds or an HTTP date
+    private static Duration parseRetryAfter(HttpResponse<?> response) {
+        Optional<String> header = response.headers().firstValue("Retry-After");
+        if (header.isEmpty()) {
+            return null;
+        }
+        String value = header.get().trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                Duration untilDate = Duration.between(Instant.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    private static <T> HttpResponse.BodySubscriber<T> captureErrorBody(AtomicReference<String> errorBody) {
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), body -> {
+            errorBody.set(body);
+            return null;
+        });
+    }
+
+    // Serialized with sorted map keys, so equal requests always produce the same bytes (and cache key)
+    @Override
+    public String requestBody(String systemPrompt, String userPrompt, List<Message> history, int maxTokens, boolean stream) {
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+
+        for (Message message : history) {
+            messages.add(Map.of(
+                    "role", message.getRole() == MessageRole.CANDIDATE ? "user" : "assistant",
+                    "content", message.getContent()
+            ));
+        }
+
+        if (userPrompt != null && !userPrompt.isBlank()) {
+            messages.add(Map.of("role", "user", "content", userPrompt));
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("model", model);
+        payload.put("temperature", 0.7);
+        payload.put("messages", messages);
+        if (maxTokens > 0) {
+            payload.put("max_tokens", maxTokens);
+        }
+        if (stream) {
+            payload.put("stream", true);
+            payload.put("stream_options", Map.of("include_usage", true));
+        }
+
+        try {
+            return canonicalMapper.writeValueAsString(payload);
+        } catch (IOException exception) {
+            throw new ModelProviderException("Failed to build " + name + " request.", 0, null, exception);
+        }
+    }
+
+    private HttpRequest buildRequest(String requestBody, boolean stream) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("API key for model provider " + name + " is missing. Set OPENAI_API_KEY environment variable.");
+        }
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/chat/completions"))
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pre-generated opening questions per normalized (role, difficulty). The opening prompt depends on nothing
+// else, so a session start takes a question from the pool instead of waiting on the model. Each question is
+// handed out once; the pool is refilled in the background when it runs low and a live call covers a miss.
+// Keys are only prefetched once they have been asked for min-requests times, so one-off roles cost nothing extra.
+@Service
+public class OpeningQuestionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(OpeningQuestionPool.class);
+
+    private final OpenAiClientService openAiClientService;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final int poolSize;
+    private final int lowWaterMark;
+    private final int minRequests;
+    private final long ttlNanos;
+    private final List<String> warmRoles;
+    // Bounded and idle-expiring, so cold keys and their questions are dropped
+    private final Cache<String, KeyPool> pools;
+
+    public OpeningQuestionPool(
+            OpenAiClientService openAiClientService,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${interview.openings.pool-size:3}") int poolSize,
+            @Value("${interview.openings.low-water-mark:1}") int lowWaterMark,
+            @Value("${interview.openings.min-requests:2}") int minRequests,
+            @Value("${interview.openings.ttl:PT6H}") Duration ttl,
+            @Value("${interview.openings.max-keys:500}") long maxKeys,
+            @Value("${interview.openings.idle-expiry:PT24H}") Duration idleExpiry,
+            @Value("${interview.openings.warm-roles:}") List<String> warmRoles
+    ) {
+        this.openAiClientService = openAiClientService;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.poolSize = poolSize;
+        this.lowWaterMark = lowWaterMark;
+        this.minRequests = minRequests;
+        this.ttlNanos = ttl.toNanos();
+        this.warmRoles = warmRoles;
+        this.pools = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    // Fills the pools of the configured popular roles for every difficulty, before the first session asks
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (String role : warmRoles) {
+            if (role.isBlank()) {
+                continue;
+            }
+            for (DifficultyLevel difficulty : DifficultyLevel.values()) {
+                KeyPool pool = pools.get(key(role, difficulty), ignored -> new KeyPool(role.trim(), difficulty));
+                pool.requests.set(minRequests);
+                refillInBackground(pool);
+            }
+        }
+    }
+
+    public String take(String role, DifficultyLevel difficulty) {
+        KeyPool pool = pools.get(key(role, difficulty), ignored -> new KeyPool(role.trim(), difficulty));
+        pool.requests.incrementAndGet();
+
+        String question = pool.poll(ttlNanos);
+        if (pool.questions.size() < lowWaterMark || question == null) {
+            refillInBackground(pool);
+        }
+        return question != null ? question : openAiClientService.generateOpeningQuestion(role, difficulty);
+    }
+
+    // Roles differing only in case or spacing share a pool
+    static String key(String role, DifficultyLevel difficulty) {
+        return role.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) + "|" + difficulty;
+    }
+
+    private void refillInBackground(KeyPool pool) {
+        if (pool.requests.get() < minRequests || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        backgroundTaskExecutor.execute(() -> {
+            try {
+                while (pool.questions.size() < poolSize) {
+                    pool.questions.add(new PooledQuestion(openAiClientService.generateFreshOpeningQuestion(pool.role, pool.difficulty)));
+                }
+            } catch (RuntimeException exception) {
+                log.warn("Could not prefetch opening questions for {} ({}); sessions fall back to live calls.",
+                        pool.role, pool.difficulty, exception);
+            } finally {
+                pool.refilling.set(false);
+            }
+        });
+    }
+
+    private static class KeyPool {
+        private final String role;
+        private final DifficultyLevel difficulty;
+        private final Queue<PooledQuestion> questions = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        private KeyPool(String role, DifficultyLevel difficulty) {
+            this.role = role;
+            this.difficulty = difficulty;
+        }
+
+        // Oldest unexpired question, dropping expired ones on the way
+        private String poll(long ttlNanos) {
+            PooledQuestion question;
+            while ((question = questions.poll()) != null) {
+                if (System.nanoTime() - question.createdAtNanos < ttlNanos) {
+                    return question.text;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class PooledQuestion {
+        private final String text;
+        private final long createdAtNanos = System.nanoTime();
+
+        private PooledQuestion(String text) {
+            this.text = text;
+        }
+    }
+}
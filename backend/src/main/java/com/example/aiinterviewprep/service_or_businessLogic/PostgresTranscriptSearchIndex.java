@@ -0,0 +1,158 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.MessageView;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Search kept by PostgreSQL: messages.search_vector is a generated tsvector column, so every insert indexes
+// itself in its own transaction, and transcript_archives.search_vector is filled when a transcript is archived.
+// Both have GIN indexes (db/search-index.sql, applied at startup once Hibernate or Flyway has set up the schema).
+// Sessions are ranked by their best ts_rank; snippets come from ts_headline over the best matching messages.
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "interview.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresTranscriptSearchIndex implements TranscriptSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresTranscriptSearchIndex.class);
+
+    // A tsvector is limited to 1 MB; longer transcripts are indexed by their first quarter million characters
+    private static final int MAX_ARCHIVE_TEXT = 262_144;
+    private static final String HEADLINE_OPTIONS = "StartSel=\"" + MATCH_START + "\", StopSel=\"" + MATCH_END + "\", MaxWords=30, MinWords=12";
+
+    private static final String SEARCH_SESSIONS =
+            "select h.session_id, max(h.rank) as rank from (" +
+            " select m.session_id, ts_rank(m.search_vector, q.query) as rank" +
+            " from messages m, websearch_to_tsquery('english', ?) as q(query) where m.search_vector @@ q.query" +
+            " union all" +
+            " select a.session_id, ts_rank(a.search_vector, q.query)" +
+            " from transcript_archives a, websearch_to_tsquery('english', ?) as q(query) where a.search_vector @@ q.query" +
+            ") h group by h.session_id order by rank desc, h.session_id desc offset ? limit ?";
+
+    // ts_headline is costly, so it only runs for the best maxSnippets messages of each session on the page
+    private static final String SESSION_SNIPPETS =
+            "select s.session_id, s.id, s.role, ts_headline('english', s.content, s.query, ?) as snippet from (" +
+            " select m.session_id, m.id, m.role, m.content, q.query," +
+            " row_number() over (partition by m.session_id order by ts_rank(m.search_vector, q.query) desc, m.id asc) as position" +
+            " from messages m, websearch_to_tsquery('english', ?) as q(query)" +
+            " where m.session_id = any(?) and m.search_vector @@ q.query" +
+            ") s where s.position <= ? order by s.session_id, s.position";
+
+    private static final String HIGHLIGHT =
+            "select t.position, ts_headline('english', t.content, q.query, ?) as snippet" +
+            " from unnest(?::text[]) with ordinality as t(content, position), websearch_to_tsquery('english', ?) as q(query)" +
+            " where to_tsvector('english', t.content) @@ q.query" +
+            " order by ts_rank(to_tsvector('english', t.content), q.query) desc, t.position asc limit ?";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresTranscriptSearchIndex(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Skipped on other databases, which cannot serve this engine's queries anyway; that lets a build step such as
+    // the fast-startup profile's class-data-sharing training run start the application against H2
+    @PostConstruct
+    public void ensureSchema() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.warn("interview.search.engine=postgres needs PostgreSQL, not {}; search requests will fail.", database);
+            return;
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("db/search-index.sql")).execute(dataSource);
+    }
+
+    @Override
+    public void index(List<MessageView> messages) {
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return false;
+    }
+
+    // Runs on the archiving transaction's connection, after the archive row has been flushed
+    @Override
+    public void archived(Long sessionId, List<MessageView> transcript) {
+        String text = transcript.stream().map(MessageView::getContent).collect(Collectors.joining("\n"));
+        jdbcTemplate.update("update transcript_archives set search_vector = to_tsvector('english', ?) where session_id = ?",
+                text.length() > MAX_ARCHIVE_TEXT ? text.substring(0, MAX_ARCHIVE_TEXT) : text, sessionId);
+    }
+
+    // Deleting the archive row removed its search_vector with it
+    @Override
+    public void purged(List<Long> sessionIds) {
+    }
+
+    // Likewise the messages row, with its search_vector
+    @Override
+    public void deleted(List<Long> messageIds) {
+    }
+
+    @Override
+    public List<SessionMatch> search(String query, int offset, int limit, int maxSnippets) {
+        List<Long> sessionIds = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        jdbcTemplate.query(SEARCH_SESSIONS, resultSet -> {
+            sessionIds.add(resultSet.getLong("session_id"));
+            scores.add(resultSet.getDouble("rank"));
+        }, query, query, offset, limit);
+        if (sessionIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<List<Snippet>> snippets = new ArrayList<>();
+        sessionIds.forEach(id -> snippets.add(new ArrayList<>()));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SESSION_SNIPPETS);
+            statement.setString(1, HEADLINE_OPTIONS);
+            statement.setString(2, query);
+            statement.setArray(3, connection.createArrayOf("bigint", sessionIds.toArray()));
+            statement.setInt(4, maxSnippets);
+            return statement;
+        }, resultSet -> {
+            snippets.get(sessionIds.indexOf(resultSet.getLong("session_id"))).add(new Snippet(
+                    resultSet.getLong("id"), MessageRole.valueOf(resultSet.getString("role")), resultSet.getString("snippet")));
+        });
+
+        List<SessionMatch> matches = new ArrayList<>(sessionIds.size());
+        for (int index = 0; index < sessionIds.size(); index++) {
+            matches.add(new SessionMatch(sessionIds.get(index), scores.get(index), snippets.get(index)));
+        }
+        return matches;
+    }
+
+    @Override
+    public List<Snippet> highlight(String query, List<MessageView> messages, int maxSnippets) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(HIGHLIGHT);
+            statement.setString(1, HEADLINE_OPTIONS);
+            statement.setArray(2, connection.createArrayOf("text", messages.stream().map(MessageView::getContent).toArray()));
+            statement.setString(3, query);
+            statement.setInt(4, maxSnippets);
+            return statement;
+        }, (resultSet, rowNum) -> {
+            MessageView message = messages.get(resultSet.getInt("position") - 1);
+            return new Snippet(message.getId(), message.getRole(), resultSet.getString("snippet"));
+        });
+    }
+}
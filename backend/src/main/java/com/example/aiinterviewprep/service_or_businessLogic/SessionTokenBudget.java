@@ -0,0 +1,111 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-session token accounting. Every model call made for a session adds the provider-reported usage to the
+// session's totals (InterviewSession.promptTokens/completionTokens). Before a reply or summary is sent, its estimate
+// (prompt tokens plus max_tokens) is checked against interview.tokens.session-budget; feedback is never refused,
+// so a session over budget can still be ended and evaluated. The totals are cached per session while it is in use
+// and dropped when another instance announces a change to the session, which then reloads them from the row.
+@Service
+public class SessionTokenBudget {
+
+    private static final Set<ModelCallType> BUDGETED = EnumSet.of(ModelCallType.REPLY, ModelCallType.SUMMARY);
+
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long budget;
+    private final Cache<Long, AtomicLong> usedTokens;
+    private final Counter rejected;
+
+    public SessionTokenBudget(
+            InterviewSessionRepository interviewSessionRepository,
+            PlatformTransactionManager transactionManager,
+            ClusterCoordinator clusterCoordinator,
+            MeterRegistry meterRegistry,
+            @Value("${interview.tokens.session-budget:250000}") long budget,
+            @Value("${interview.sessions.max-cached:10000}") long maxCached,
+            @Value("${interview.sessions.idle-expiry:PT30M}") Duration idleExpiry
+    ) {
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.transactionTemplate = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        this.budget = budget;
+        this.usedTokens = Caffeine.newBuilder()
+                .maximumSize(maxCached)
+                .expireAfterAccess(idleExpiry)
+                .build();
+        this.rejected = Counter.builder("interview.tokens.budget.rejected")
+                .description("Model calls refused because their session had used its token budget")
+                .register(meterRegistry);
+        clusterCoordinator.subscribe(ClusterCoordinator.Topic.SESSION, usedTokens::invalidate, usedTokens::invalidateAll);
+    }
+
+    // No budget and no stored totals, for components built outside Spring (tests)
+    public static SessionTokenBudget unlimited() {
+        return new SessionTokenBudget(null, null, ClusterCoordinator.standalone(), new SimpleMeterRegistry(), 0, 1, Duration.ofMinutes(1));
+    }
+
+    // Throws TokenBudgetExceededException when a call of this size would take the session over its budget
+    public void check(ModelCallType callType, Long sessionId, long estimatedTokens) {
+        if (budget <= 0 || sessionId == null || !BUDGETED.contains(callType)) {
+            return;
+        }
+        long used = used(sessionId);
+        if (used + estimatedTokens > budget) {
+            rejected.increment();
+            throw new TokenBudgetExceededException(sessionId, used, budget);
+        }
+    }
+
+    // Adds a finished call's usage to the session's totals, in a short transaction of its own
+    public void record(Long sessionId, long promptTokens, long completionTokens) {
+        if (interviewSessionRepository == null || sessionId == null || promptTokens + completionTokens == 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                interviewSessionRepository.addTokenUsage(sessionId, promptTokens, completionTokens));
+        AtomicLong used = usedTokens.getIfPresent(sessionId);
+        if (used != null) {
+            used.addAndGet(promptTokens + completionTokens);
+        }
+    }
+
+    // Seeds the total of a session this instance just created, so its first turn reads no session row either
+    public void started(Long sessionId) {
+        if (interviewSessionRepository != null) {
+            usedTokens.put(sessionId, new AtomicLong());
+        }
+    }
+
+    // Tokens the session has used so far; 0 for an unknown session
+    public long used(Long sessionId) {
+        AtomicLong used = usedTokens.getIfPresent(sessionId);
+        if (used == null) {
+            // Loaded outside Caffeine's compute so the DB read never runs while a map bin is locked
+            AtomicLong loaded = new AtomicLong(interviewSessionRepository.findTokensUsed(sessionId).orElse(0L));
+            used = usedTokens.asMap().putIfAbsent(sessionId, loaded);
+            if (used == null) {
+                used = loaded;
+            }
+        }
+        return used.get();
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.aiinterviewprep.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Runs a session's turns one at a time on this instance, in arrival order, so two tabs or a double-click
+// cannot interleave the transcript or pay for two model calls against the same history.
+// Each session gets its own fair lock rather than a fixed stripe: a turn holds its lock for the whole model
+// call, and unrelated sessions sharing a stripe would wait seconds behind it. Locks are held weakly, so a
+// session's lock disappears once no turn is using it.
+// Submissions carrying an idempotency key are also coalesced: a duplicate that arrives while the first is
+// running, or within idempotency-window after it succeeded, gets the first one's response.
+// In cluster mode a turn also holds the session's cluster-wide lock (see ClusterCoordinator), so turns of one
+// session queue up across instances too.
+@Component
+public class SessionTurnCoordinator {
+
+    private final LoadingCache<Long, ReentrantLock> locks = Caffeine.newBuilder()
+            .weakValues()
+            .build(sessionId -> new ReentrantLock(true));
+    private final Cache<String, CompletableFuture<InterviewConversationService.MessageResponse>> submissions;
+    private final Duration lockTimeout;
+    private final ClusterCoordinator clusterCoordinator;
+
+    public SessionTurnCoordinator(Duration lockTimeout, Duration idempotencyWindow, long maxRememberedSubmissions) {
+        this(lockTimeout, idempotencyWindow, maxRememberedSubmissions, ClusterCoordinator.standalone());
+    }
+
+    @Autowired
+    public SessionTurnCoordinator(
+            @Value("${interview.turns.lock-timeout:PT90S}") Duration lockTimeout,
+            @Value("${interview.turns.idempotency-window:PT10M}") Duration idempotencyWindow,
+            @Value("${interview.turns.max-remembered-submissions:100000}") long maxRememberedSubmissions,
+            ClusterCoordinator clusterCoordinator
+    ) {
+        this.lockTimeout = lockTimeout;
+        this.clusterCoordinator = clusterCoordinator;
+        this.submissions = Caffeine.newBuilder()
+                .maximumSize(maxRememberedSubmissions)
+                .expireAfterWrite(idempotencyWindow)
+                .build();
+    }
+
+    public InterviewConversationService.MessageResponse submit(
+            Long sessionId,
+            String idempotencyKey,
+            Supplier<InterviewConversationService.MessageResponse> turn
+    ) {
+        if (idempotencyKey == null) {
+            return runExclusively(sessionId, turn);
+        }
+
+        String key = sessionId + "/" + idempotencyKey;
+        CompletableFuture<InterviewConversationService.MessageResponse> submission = new CompletableFuture<>();
+        CompletableFuture<InterviewConversationService.MessageResponse> first = submissions.asMap().putIfAbsent(key, submission);
+        if (first != null) {
+            return await(first);
+        }
+
+        try {
+            InterviewConversationService.MessageResponse response = runExclusively(sessionId, turn);
+            submission.complete(response);
+            return response;
+        } catch (RuntimeException exception) {
+            // A failed submission is forgotten, so retrying with the same key runs the turn again
+            submissions.asMap().remove(key, submission);
+            submission.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    // Waits for any turn already running for the session; gives up after lock-timeout with a 409
+    public <T> T runExclusively(Long sessionId, Supplier<T> turn) {
+        ReentrantLock lock = locks.get(sessionId);
+        long started = System.nanoTime();
+        try {
+            if (!lock.tryLock(lockTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new OptimisticLockingFailureException("Session " + sessionId + " is still processing an earlier message.");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for session " + sessionId + ".", exception);
+        }
+        try {
+            Duration remaining = lockTimeout.minusNanos(System.nanoTime() - started);
+            return clusterCoordinator.runLocked(sessionId, remaining.isNegative() ? Duration.ZERO : remaining, turn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static InterviewConversationService.MessageResponse await(
+            CompletableFuture<InterviewConversationService.MessageResponse> submission
+    ) {
+        try {
+            return submission.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+}
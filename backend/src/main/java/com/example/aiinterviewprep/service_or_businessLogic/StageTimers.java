@@ -0,0 +1,40 @@
+package com.example.aiinterviewprep.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.function.Supplier;
+
+// Timers for the steps of a session operation, so a slow turn shows whether it waited on the database or the model.
+// interview.operation times a whole operation and interview.stage each step of it; both are tagged with the
+// outcome (success or error). Stage names are fixed strings, never ids, to keep the number of series bounded.
+final class StageTimers {
+
+    private StageTimers() {
+    }
+
+    static <T> T operation(MeterRegistry meterRegistry, String operation, Supplier<T> body) {
+        return time(meterRegistry, Timer.builder("interview.operation")
+                .description("Duration of a session operation")
+                .tag("operation", operation), body);
+    }
+
+    static <T> T stage(MeterRegistry meterRegistry, String operation, String stage, Supplier<T> step) {
+        return time(meterRegistry, Timer.builder("interview.stage")
+                .description("Duration of one step of a session operation")
+                .tag("operation", operation)
+                .tag("stage", stage), step);
+    }
+
+    private static <T> T time(MeterRegistry meterRegistry, Timer.Builder timer, Supplier<T> body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = body.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(timer.tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry));
+        }
+    }
+}
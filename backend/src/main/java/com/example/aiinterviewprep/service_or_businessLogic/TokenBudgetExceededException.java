@@ -0,0 +1,29 @@
+package com.example.aiinterviewprep.service;
+
+// A model call for a session that has used (or would exceed) its token budget (interview.tokens.session-budget).
+// Raised before anything is sent; waiting does not help, the session has to be ended.
+public class TokenBudgetExceededException extends RuntimeException {
+
+    private final Long sessionId;
+    private final long usedTokens;
+    private final long budget;
+
+    public TokenBudgetExceededException(Long sessionId, long usedTokens, long budget) {
+        super("This interview has used its token budget (" + usedTokens + " of " + budget + " tokens). End the session to get feedback.");
+        this.sessionId = sessionId;
+        this.usedTokens = usedTokens;
+        this.budget = budget;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public long getUsedTokens() {
+        return usedTokens;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.Message;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Counts tokens in process with the BPE encoding of openai.model (o200k_base for the gpt-4o and o-series models,
+// cl100k_base for gpt-4 and gpt-3.5), so a request's size is known before it is sent. model.tokenizer.encoding
+// overrides the choice, e.g. for a local model; other providers' models are counted with the same encoding,
+// which makes their counts an estimate. A message's count is computed once and kept on the Message.
+@Component
+public class Tokenizer {
+
+    // Chat format overhead: each message's role and delimiters, and the priming of the reply
+    static final int TOKENS_PER_MESSAGE = 4;
+    static final int TOKENS_PER_REQUEST = 3;
+
+    // Encodings are loaded on first use and shared by every Tokenizer
+    private static final EncodingRegistry REGISTRY = Encodings.newLazyEncodingRegistry();
+
+    private final Encoding encoding;
+
+    public Tokenizer(
+            @Value("${openai.model}") String model,
+            @Value("${model.tokenizer.encoding:}") String encodingName
+    ) {
+        this.encoding = encodingName.isBlank()
+                ? REGISTRY.getEncodingForModel(model).orElseGet(() -> REGISTRY.getEncoding(defaultEncoding(model)))
+                : REGISTRY.getEncoding(encodingName.trim())
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown tokenizer encoding: " + encodingName));
+    }
+
+    // For components built outside Spring (tests)
+    public static Tokenizer forModel(String model) {
+        return new Tokenizer(model, "");
+    }
+
+    // Model names the registry does not know yet (dated snapshots, newer releases) fall back by family
+    private static EncodingType defaultEncoding(String model) {
+        String name = model.trim().toLowerCase();
+        return name.startsWith("gpt-4o") || name.startsWith("gpt-4.1") || name.startsWith("gpt-5") || name.matches("o\\d.*")
+                ? EncodingType.O200K_BASE
+                : EncodingType.CL100K_BASE;
+    }
+
+    public String getEncodingName() {
+        return encoding.getName();
+    }
+
+    // Special-token markup in the text (e.g. "<|endoftext|>") is counted as ordinary text, as the API treats it
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    public int count(Message message) {
+        int tokens = message.getTokenCount();
+        if (tokens < 0) {
+            tokens = count(message.getContent());
+            message.setTokenCount(tokens);
+        }
+        return tokens;
+    }
+
+    // The prompt tokens of a chat request with these messages (blank prompts are not sent)
+    public int countPrompt(String systemPrompt, String userPrompt, List<Message> history) {
+        int tokens = TOKENS_PER_REQUEST + countMessage(systemPrompt) + countMessage(userPrompt);
+        for (Message message : history) {
+            tokens += TOKENS_PER_MESSAGE + count(message);
+        }
+        return tokens;
+    }
+
+    int countMessage(String content) {
+        return content == null || content.isBlank() ? 0 : TOKENS_PER_MESSAGE + count(content);
+    }
+}
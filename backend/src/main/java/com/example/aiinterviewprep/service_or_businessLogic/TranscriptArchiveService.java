@@ -0,0 +1,315 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.entity.TranscriptArchive;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.example.aiinterviewprep.repository.MessageView;
+import com.example.aiinterviewprep.repository.TranscriptArchiveRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Moves the transcripts of ended sessions out of the hot messages table into one compressed blob per session
+// (transcript_archives), so that table and its indexes only hold sessions that are still being read and written.
+// A session is archived once it ended more than interview.archive.after ago and its feedback is settled;
+// archives older than interview.archive.retention are deleted (P0D keeps them forever).
+// Readers go through transcript() and stay unaware of where a transcript lives. The search index is told when a
+// transcript moves to an archive and when an archive is deleted.
+@Service
+public class TranscriptArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptArchiveService.class);
+    static final String FORMAT = "json+deflate";
+
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final MessageRepository messageRepository;
+    private final TranscriptArchiveRepository transcriptArchiveRepository;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TranscriptSearchIndex transcriptSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonFactory jsonFactory;
+    private final MeterRegistry meterRegistry;
+    private final Duration archiveAfter;
+    private final Duration retention;
+    private final int batchSize;
+    // Decoded archives, so paging through an archived transcript inflates it once
+    private final Cache<Long, List<MessageView>> decoded;
+
+    public TranscriptArchiveService(
+            InterviewSessionRepository interviewSessionRepository,
+            MessageRepository messageRepository,
+            TranscriptArchiveRepository transcriptArchiveRepository,
+            ClusterCoordinator clusterCoordinator,
+            TranscriptSearchIndex transcriptSearchIndex,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${interview.archive.after:P1D}") Duration archiveAfter,
+            @Value("${interview.archive.retention:P0D}") Duration retention,
+            @Value("${interview.archive.batch-size:100}") int batchSize,
+            @Value("${interview.archive.max-cached-transcripts:256}") long maxCachedTranscripts
+    ) {
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.messageRepository = messageRepository;
+        this.transcriptArchiveRepository = transcriptArchiveRepository;
+        this.clusterCoordinator = clusterCoordinator;
+        this.transcriptSearchIndex = transcriptSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jsonFactory = objectMapper.getFactory();
+        this.meterRegistry = meterRegistry;
+        this.archiveAfter = archiveAfter;
+        this.retention = retention;
+        this.batchSize = Math.max(1, batchSize);
+        this.decoded = Caffeine.newBuilder()
+                .maximumSize(maxCachedTranscripts)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    // Runs at startup and then every interval, on the leader only; each session is archived in its own short transaction
+    @Scheduled(fixedDelayString = "${interview.archive.interval:PT10M}")
+    public int archiveEndedSessions() {
+        if (!clusterCoordinator.isLeader()) {
+            return 0;
+        }
+        int archived = 0;
+        List<Long> batch;
+        int archivedInBatch;
+        do {
+            batch = interviewSessionRepository.findArchivableSessionIds(
+                    LocalDateTime.now().minus(archiveAfter), FeedbackStatus.PENDING, PageRequest.of(0, batchSize));
+            archivedInBatch = 0;
+            for (Long sessionId : batch) {
+                if (archive(sessionId)) {
+                    archivedInBatch++;
+                }
+            }
+            archived += archivedInBatch;
+            // Sessions that failed stay archivable and come back in the next batch; a batch that archived
+            // nothing would be fetched again unchanged, so it ends this run
+        } while (batch.size() == batchSize && archivedInBatch > 0);
+        return archived;
+    }
+
+    // Setting transcriptArchivedAt bumps the session's version, so of two instances archiving the same
+    // session only one commits; the other rolls back and skips it
+    boolean archive(Long sessionId) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                InterviewSession session = interviewSessionRepository.findById(sessionId).orElse(null);
+                if (session == null || Boolean.TRUE.equals(session.getActive()) || session.getTranscriptArchivedAt() != null) {
+                    return false;
+                }
+                List<MessageView> messages = messageRepository.findTranscriptPage(sessionId, Pageable.unpaged());
+                byte[] json = encode(messages);
+                byte[] compressed = deflate(json);
+                transcriptArchiveRepository.save(new TranscriptArchive(sessionId, FORMAT, messages.size(), json.length, compressed));
+                messageRepository.deleteBySessionId(sessionId);
+                session.setTranscriptArchivedAt(LocalDateTime.now());
+                interviewSessionRepository.saveAndFlush(session);
+                transcriptSearchIndex.archived(sessionId, messages);
+
+                archivedBytes("raw").increment(json.length);
+                archivedBytes("compressed").increment(compressed.length);
+                return true;
+            }));
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException exception) {
+            log.debug("Session {} was archived concurrently.", sessionId, exception);
+            return false;
+        }
+    }
+
+    private Counter archivedBytes(String kind) {
+        return Counter.builder("interview.archive.bytes")
+                .description("Size of archived transcripts before (raw) and after compression")
+                .baseUnit("bytes")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${interview.archive.interval:PT10M}")
+    public void purgeExpired() {
+        if (retention.isZero() || !clusterCoordinator.isLeader()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        List<Long> purged = transactionTemplate.execute(status -> {
+            List<Long> sessionIds = transcriptArchiveRepository.findSessionIdsArchivedBefore(cutoff);
+            transcriptArchiveRepository.deleteArchivedBefore(cutoff);
+            return sessionIds;
+        });
+        decoded.invalidateAll();
+        if (!purged.isEmpty()) {
+            transcriptSearchIndex.purged(purged);
+        }
+    }
+
+    // The whole transcript of an archived session, oldest first; empty once its archive has passed retention.
+    // Call only for sessions whose getTranscriptArchivedAt() is set.
+    public List<MessageView> archivedTranscript(Long sessionId) {
+        return decoded.get(sessionId, id -> transcriptArchiveRepository.findById(id)
+                .map(archive -> decode(id, inflate(archive.getContent())))
+                .orElse(List.of()));
+    }
+
+    // The session's messages in creation order, from the messages table or the archive.
+    // Archived messages come back as detached entities without a session reference.
+    public List<Message> transcript(InterviewSession session) {
+        if (session.getTranscriptArchivedAt() == null) {
+            return messageRepository.findBySessionIdOrderByCreatedAtAsc(session.getId());
+        }
+        List<Message> messages = new ArrayList<>();
+        for (MessageView view : archivedTranscript(session.getId())) {
+            Message message = new Message(null, view.getRole(), view.getContent());
+            message.setId(view.getId());
+            message.setSessionId(view.getSessionId());
+            message.setCreatedAt(view.getCreatedAt());
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    // [{"id":..,"role":..,"content":..,"createdAt":..}, ...]; the session id is the archive's key
+    byte[] encode(List<MessageView> messages) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            generator.writeStartArray();
+            for (MessageView message : messages) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", message.getId());
+                generator.writeStringField("role", message.getRole().name());
+                generator.writeStringField("content", message.getContent());
+                generator.writeStringField("createdAt", message.getCreatedAt().toString());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to encode transcript.", exception);
+        }
+        return output.toByteArray();
+    }
+
+    List<MessageView> decode(Long sessionId, InputStream json) {
+        List<MessageView> messages = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Archived transcript is not a JSON array.");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Long id = null;
+                MessageRole role = null;
+                String content = null;
+                LocalDateTime createdAt = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "id" -> id = parser.getLongValue();
+                        case "role" -> role = MessageRole.valueOf(parser.getText());
+                        case "content" -> content = parser.getText();
+                        case "createdAt" -> createdAt = LocalDateTime.parse(parser.getText());
+                        default -> parser.skipChildren();
+                    }
+                }
+                messages.add(new ArchivedMessage(id, sessionId, role, content, createdAt));
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Archived transcript of session " + sessionId + " could not be read.", exception);
+        }
+        return messages;
+    }
+
+    private static byte[] deflate(byte[] json) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(json.length / 4 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(output, deflater)) {
+            stream.write(json);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to compress transcript.", exception);
+        } finally {
+            deflater.end();
+        }
+        return output.toByteArray();
+    }
+
+    private static InputStream inflate(byte[] compressed) {
+        return new InflaterInputStream(new ByteArrayInputStream(compressed));
+    }
+
+    // A message read back from an archive
+    static final class ArchivedMessage implements MessageView {
+        private final Long id;
+        private final Long sessionId;
+        private final MessageRole role;
+        private final String content;
+        private final LocalDateTime createdAt;
+
+        ArchivedMessage(Long id, Long sessionId, MessageRole role, String content, LocalDateTime createdAt) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.role = role;
+            this.content = content;
+            this.createdAt = createdAt;
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getSessionId() {
+            return sessionId;
+        }
+
+        @Override
+        public MessageRole getRole() {
+            return role;
+        }
+
+        @Override
+        public String getContent() {
+            return content;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bulk write path for many sessions and messages at once (imports, seeded sessions). Entities are persisted
+// in one transaction and flushed every batch-size rows, so Hibernate sends them as JDBC batches and the
+// persistence context never holds more than one batch.
+@Service
+public class TranscriptImportService {
+
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public TranscriptImportService(
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize
+    ) {
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Returns the new session ids in input order. Joins the caller's transaction if there is one.
+    public List<Long> importSessions(List<SessionImport> sessions) {
+        return transactionTemplate.execute(status -> {
+            List<Long> sessionIds = new ArrayList<>(sessions.size());
+            List<Message> saved = new ArrayList<>();
+            int pending = 0;
+
+            for (SessionImport sessionImport : sessions) {
+                InterviewSession session = new InterviewSession(sessionImport.getRole(), sessionImport.getDifficulty());
+                session.setActive(sessionImport.isActive());
+                if (sessionImport.getCreatedAt() != null) {
+                    session.setCreatedAt(sessionImport.getCreatedAt());
+                }
+                session.setEndedAt(sessionImport.getEndedAt());
+                entityManager.persist(session);
+                Long sessionId = session.getId();
+                sessionIds.add(sessionId);
+                pending++;
+
+                for (MessageImport messageImport : sessionImport.getMessages()) {
+                    if (pending >= batchSize) {
+                        pending = flushBatch();
+                        session = entityManager.getReference(InterviewSession.class, sessionId);
+                    }
+                    Message message = new Message(session, messageImport.getRole(), messageImport.getContent());
+                    if (messageImport.getCreatedAt() != null) {
+                        message.setCreatedAt(messageImport.getCreatedAt());
+                    }
+                    entityManager.persist(message);
+                    saved.add(message);
+                    pending++;
+                }
+                if (pending >= batchSize) {
+                    pending = flushBatch();
+                }
+            }
+
+            entityManager.flush();
+            entityManager.clear();
+            // One event for the whole import; the search index takes the messages when the transaction commits
+            eventPublisher.publishEvent(new MessagesSavedEvent(saved));
+            return sessionIds;
+        });
+    }
+
+    private int flushBatch() {
+        entityManager.flush();
+        entityManager.clear();
+        return 0;
+    }
+
+    public static class SessionImport {
+        private String role;
+        private DifficultyLevel difficulty;
+        private boolean active;
+        private LocalDateTime createdAt;
+        private LocalDateTime endedAt;
+        private List<MessageImport> messages = new ArrayList<>();
+
+        public String getRole() {
+            return role;
+        }
+
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        public DifficultyLevel getDifficulty() {
+            return difficulty;
+        }
+
+        public void setDifficulty(DifficultyLevel difficulty) {
+            this.difficulty = difficulty;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getEndedAt() {
+            return endedAt;
+        }
+
+        public void setEndedAt(LocalDateTime endedAt) {
+            this.endedAt = endedAt;
+        }
+
+        public List<MessageImport> getMessages() {
+            return messages;
+        }
+
+        public void setMessages(List<MessageImport> messages) {
+            this.messages = messages;
+        }
+    }
+
+    public static class MessageImport {
+        private MessageRole role;
+        private String content;
+        private LocalDateTime createdAt;
+
+        public MessageImport() {
+        }
+
+        public MessageImport(MessageRole role, String content, LocalDateTime createdAt) {
+            this.role = role;
+            this.content = content;
+            this.createdAt = createdAt;
+        }
+
+        public MessageRole getRole() {
+            return role;
+        }
+
+        public void setRole(MessageRole role) {
+            this.role = role;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public void setContent(String content) {
+            this.content = content;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+}
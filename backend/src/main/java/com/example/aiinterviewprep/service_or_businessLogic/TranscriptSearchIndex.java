@@ -0,0 +1,86 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.MessageView;
+
+import java.util.List;
+
+// Full-text index over transcripts, chosen by interview.search.engine: "postgres" keeps it in the database
+// (tsvector + GIN, maintained by PostgreSQL itself), "lucene" in an embedded Lucene index fed as messages commit.
+// Queries use web-search syntax: words are ANDed, "quoted phrases" match in order, -word excludes.
+// Snippets are plain text with matches wrapped in **.
+public interface TranscriptSearchIndex {
+
+    String MATCH_START = "**";
+    String MATCH_END = "**";
+
+    // Messages that were just committed, or read back during a rebuild. Indexes kept by the database ignore them.
+    void index(List<MessageView> messages);
+
+    // True when the index is empty while the database may hold messages (e.g. an in-memory index after a restart)
+    boolean needsRebuild();
+
+    // Called in the transaction that moved a session's messages into its archive
+    void archived(Long sessionId, List<MessageView> transcript);
+
+    // Sessions whose archives passed retention; their text must no longer be found
+    void purged(List<Long> sessionIds);
+
+    // Messages deleted from the database without being archived (e.g. the candidate message of a failed turn)
+    void deleted(List<Long> messageIds);
+
+    // Matching sessions, best first, paged by offset over sessions. Each comes with up to maxSnippets snippets of
+    // its best matching messages, or none when its text is only in an archive the index cannot quote from.
+    List<SessionMatch> search(String query, int offset, int limit, int maxSnippets);
+
+    // Snippets of the best matching messages among the given ones
+    List<Snippet> highlight(String query, List<MessageView> messages, int maxSnippets);
+
+    final class SessionMatch {
+        private final Long sessionId;
+        private final double score;
+        private final List<Snippet> snippets;
+
+        public SessionMatch(Long sessionId, double score, List<Snippet> snippets) {
+            this.sessionId = sessionId;
+            this.score = score;
+            this.snippets = snippets;
+        }
+
+        public Long getSessionId() {
+            return sessionId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public List<Snippet> getSnippets() {
+            return snippets;
+        }
+    }
+
+    final class Snippet {
+        private final Long messageId;
+        private final MessageRole role;
+        private final String text;
+
+        public Snippet(Long messageId, MessageRole role, String text) {
+            this.messageId = messageId;
+            this.role = role;
+            this.text = text;
+        }
+
+        public Long getMessageId() {
+            return messageId;
+        }
+
+        public MessageRole getRole() {
+            return role;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
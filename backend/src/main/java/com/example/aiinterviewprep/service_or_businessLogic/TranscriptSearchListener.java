@@ -0,0 +1,27 @@
+package com.example.aiinterviewprep.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Hands saved messages (MessagesSavedEvent) to the search index once their transaction commits, so rolled-back
+// messages are never indexed, and removes deleted ones (MessagesDeletedEvent) the same way. An event published
+// outside a transaction is applied straight away.
+@Component
+public class TranscriptSearchListener {
+
+    private final TranscriptSearchIndex transcriptSearchIndex;
+
+    public TranscriptSearchListener(TranscriptSearchIndex transcriptSearchIndex) {
+        this.transcriptSearchIndex = transcriptSearchIndex;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void messagesSaved(MessagesSavedEvent event) {
+        transcriptSearchIndex.index(event.getMessages());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void messagesDeleted(MessagesDeletedEvent event) {
+        transcriptSearchIndex.deleted(event.getMessageIds());
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.example.aiinterviewprep.repository.MessageView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Finds past sessions by what was said in them (GET /api/search), over live and archived transcripts alike.
+// The index itself is a TranscriptSearchIndex; this adds paging, the sessions' details and, for archived
+// sessions the index cannot quote from, snippets taken from the archive.
+@Service
+public class TranscriptSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptSearchService.class);
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final TranscriptSearchIndex transcriptSearchIndex;
+    private final TranscriptArchiveService transcriptArchiveService;
+    private final InterviewSessionRepository interviewSessionRepository;
+    private final MessageRepository messageRepository;
+    private final TaskExecutor backgroundTaskExecutor;
+    private final int maxPageSize;
+    private final int snippetsPerSession;
+
+    public TranscriptSearchService(
+            TranscriptSearchIndex transcriptSearchIndex,
+            TranscriptArchiveService transcriptArchiveService,
+            InterviewSessionRepository interviewSessionRepository,
+            MessageRepository messageRepository,
+            @Qualifier("backgroundTaskExecutor") TaskExecutor backgroundTaskExecutor,
+            @Value("${interview.search.max-page-size:50}") int maxPageSize,
+            @Value("${interview.search.snippets-per-session:3}") int snippetsPerSession
+    ) {
+        this.transcriptSearchIndex = transcriptSearchIndex;
+        this.transcriptArchiveService = transcriptArchiveService;
+        this.interviewSessionRepository = interviewSessionRepository;
+        this.messageRepository = messageRepository;
+        this.backgroundTaskExecutor = backgroundTaskExecutor;
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.snippetsPerSession = Math.max(1, snippetsPerSession);
+    }
+
+    // Sessions ranked by relevance; page is zero-based
+    public SearchPage search(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty.");
+        }
+        String trimmed = query.trim();
+        if (trimmed.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at most " + MAX_QUERY_LENGTH + " characters.");
+        }
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+
+        // One extra match tells whether there is a next page
+        List<TranscriptSearchIndex.SessionMatch> matches =
+                transcriptSearchIndex.search(trimmed, pageNumber * pageSize, pageSize + 1, snippetsPerSession);
+        boolean hasMore = matches.size() > pageSize;
+        List<TranscriptSearchIndex.SessionMatch> pageMatches = hasMore ? matches.subList(0, pageSize) : matches;
+
+        Map<Long, InterviewSession> sessions = interviewSessionRepository.findAllById(
+                        pageMatches.stream().map(TranscriptSearchIndex.SessionMatch::getSessionId).toList())
+                .stream()
+                .collect(Collectors.toMap(InterviewSession::getId, Function.identity()));
+
+        List<SearchResult> results = new ArrayList<>(pageMatches.size());
+        for (TranscriptSearchIndex.SessionMatch match : pageMatches) {
+            InterviewSession session = sessions.get(match.getSessionId());
+            if (session == null) {
+                continue;
+            }
+            List<TranscriptSearchIndex.Snippet> snippets = match.getSnippets();
+            if (snippets.isEmpty() && session.getTranscriptArchivedAt() != null) {
+                snippets = transcriptSearchIndex.highlight(trimmed,
+                        transcriptArchiveService.archivedTranscript(session.getId()), snippetsPerSession);
+            }
+            results.add(SearchResult.of(session, match.getScore(), snippets));
+        }
+
+        SearchPage response = new SearchPage();
+        response.setQuery(trimmed);
+        response.setPage(pageNumber);
+        response.setSize(pageSize);
+        response.setHasMore(hasMore);
+        response.setResults(results);
+        return response;
+    }
+
+    // An index that starts empty (the in-memory Lucene index, or a new index directory) is filled from the
+    // database in the background; messages saved meanwhile are indexed as usual, and indexing twice is harmless
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (!transcriptSearchIndex.needsRebuild()) {
+            return;
+        }
+        backgroundTaskExecutor.execute(() -> {
+            try {
+                log.info("Search index rebuilt with {} messages.", rebuild());
+            } catch (RuntimeException exception) {
+                log.warn("Search index rebuild failed; only messages saved from now on are searchable.", exception);
+            }
+        });
+    }
+
+    long rebuild() {
+        long indexed = 0;
+        long afterId = 0;
+        List<MessageView> batch;
+        do {
+            batch = messageRepository.findPageAfterId(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (!batch.isEmpty()) {
+                transcriptSearchIndex.index(batch);
+                indexed += batch.size();
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+
+        long afterSessionId = 0;
+        List<Long> archived;
+        do {
+            archived = interviewSessionRepository.findArchivedSessionIds(afterSessionId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (Long sessionId : archived) {
+                List<MessageView> transcript = transcriptArchiveService.archivedTranscript(sessionId);
+                transcriptSearchIndex.index(transcript);
+                indexed += transcript.size();
+                afterSessionId = sessionId;
+            }
+        } while (archived.size() == REBUILD_BATCH_SIZE);
+        return indexed;
+    }
+
+    public static class SearchPage {
+        private String query;
+        private int page;
+        private int size;
+        private boolean hasMore;
+        private List<SearchResult> results;
+
+        public String getQuery() {
+            return query;
+        }
+
+        public void setQuery(String query) {
+            this.query = query;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public void setPage(int page) {
+            this.page = page;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        public void setHasMore(boolean hasMore) {
+            this.hasMore = hasMore;
+        }
+
+        public List<SearchResult> getResults() {
+            return results;
+        }
+
+        public void setResults(List<SearchResult> results) {
+            this.results = results;
+        }
+    }
+
+    public static class SearchResult {
+        private Long sessionId;
+        private String role;
+        private DifficultyLevel difficulty;
+        private LocalDateTime createdAt;
+        private LocalDateTime endedAt;
+        private double score;
+        private List<TranscriptSearchIndex.Snippet> snippets;
+
+        static SearchResult of(InterviewSession session, double score, List<TranscriptSearchIndex.Snippet> snippets) {
+            SearchResult result = new SearchResult();
+            result.setSessionId(session.getId());
+            result.setRole(session.getRole());
+            result.setDifficulty(session.getDifficulty());
+            result.setCreatedAt(session.getCreatedAt());
+            result.setEndedAt(session.getEndedAt());
+            result.setScore(score);
+            result.setSnippets(snippets);
+            return result;
+        }
+
+        public Long getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        public DifficultyLevel getDifficulty() {
+            return difficulty;
+        }
+
+        public void setDifficulty(DifficultyLevel difficulty) {
+            this.difficulty = difficulty;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public LocalDateTime getEndedAt() {
+            return endedAt;
+        }
+
+        public void setEndedAt(LocalDateTime endedAt) {
+            this.endedAt = endedAt;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+
+        public List<TranscriptSearchIndex.Snippet> getSnippets() {
+            return snippets;
+        }
+
+        public void setSnippets(List<TranscriptSearchIndex.Snippet> snippets) {
+            this.snippets = snippets;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- One-off for PostgreSQL databases whose messages/interview_sessions ids were generated with IDENTITY.
+-- Starts the pooled id sequences (allocation size 50) past every existing id. Safe to re-run.
+CREATE SEQUENCE IF NOT EXISTS interview_sessions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS messages_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('interview_sessions_seq', (SELECT COALESCE(MAX(id), 0) FROM interview_sessions) + 50);
+SELECT setval('messages_seq', (SELECT COALESCE(MAX(id), 0) FROM messages) + 50);
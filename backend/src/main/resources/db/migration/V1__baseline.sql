@@ -0,0 +1,118 @@
+-- Schema as of the fast-startup profile's introduction, for spring.flyway.enabled=true (profile "startup").
+-- Written to run on PostgreSQL and on H2 in PostgreSQL mode. Databases that Hibernate already created with
+-- ddl-auto=update are baselined at this version instead (spring.flyway.baseline-on-migrate).
+-- The search columns for interview.search.engine=postgres stay in db/search-index.sql, applied at startup.
+-- Entity changes from here on need a new V<n>__*.sql next to this file.
+
+CREATE SEQUENCE interview_sessions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE messages_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE interview_sessions (
+    id bigint NOT NULL,
+    role varchar(255) NOT NULL,
+    difficulty varchar(255) NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    ended_at timestamp(6),
+    active boolean NOT NULL,
+    version bigint DEFAULT 0 NOT NULL,
+    context_summary text,
+    summarized_through timestamp(6),
+    transcript_archived_at timestamp(6),
+    CONSTRAINT interview_sessions_pkey PRIMARY KEY (id)
+);
+CREATE INDEX idx_interview_sessions_ended_at ON interview_sessions (ended_at);
+
+CREATE TABLE messages (
+    id bigint NOT NULL,
+    session_id bigint NOT NULL,
+    role varchar(255) NOT NULL,
+    content text NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    idempotency_key varchar(100),
+    CONSTRAINT messages_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_messages_session_idempotency_key UNIQUE (session_id, idempotency_key),
+    CONSTRAINT fk_messages_session FOREIGN KEY (session_id) REFERENCES interview_sessions (id)
+);
+CREATE INDEX idx_messages_session_created_id ON messages (session_id, created_at, id);
+
+CREATE TABLE interview_feedback (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    session_id bigint NOT NULL,
+    status varchar(255) NOT NULL,
+    strengths text,
+    areas_for_improvement text,
+    overall_comments text,
+    score integer,
+    attempts integer NOT NULL,
+    requested_at timestamp(6) NOT NULL,
+    completed_at timestamp(6),
+    CONSTRAINT interview_feedback_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_interview_feedback_session UNIQUE (session_id),
+    CONSTRAINT fk_interview_feedback_session FOREIGN KEY (session_id) REFERENCES interview_sessions (id)
+);
+
+CREATE TABLE completion_cache (
+    cache_key varchar(64) NOT NULL,
+    call_type varchar(32) NOT NULL,
+    content text NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    expires_at timestamp(6) NOT NULL,
+    CONSTRAINT completion_cache_pkey PRIMARY KEY (cache_key)
+);
+CREATE INDEX idx_completion_cache_expires_at ON completion_cache (expires_at);
+
+CREATE TABLE transcript_archives (
+    session_id bigint NOT NULL,
+    format varchar(32) NOT NULL,
+    message_count integer NOT NULL,
+    raw_bytes bigint NOT NULL,
+    content bytea NOT NULL,
+    archived_at timestamp(6) NOT NULL,
+    CONSTRAINT transcript_archives_pkey PRIMARY KEY (session_id)
+);
+CREATE INDEX idx_transcript_archives_archived_at ON transcript_archives (archived_at);
+
+CREATE TABLE scoring_jobs (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    status varchar(255) NOT NULL,
+    ended_after timestamp(6) NOT NULL,
+    ended_before timestamp(6) NOT NULL,
+    checkpoint_session_id bigint NOT NULL,
+    scored integer NOT NULL,
+    failed integer NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    heartbeat_at timestamp(6) NOT NULL,
+    completed_at timestamp(6),
+    version bigint DEFAULT 0 NOT NULL,
+    CONSTRAINT scoring_jobs_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE session_scores (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    job_id bigint NOT NULL,
+    session_id bigint NOT NULL,
+    status varchar(255) NOT NULL,
+    strengths text,
+    areas_for_improvement text,
+    overall_comments text,
+    score integer,
+    scored_at timestamp(6) NOT NULL,
+    CONSTRAINT session_scores_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_session_scores_job_session UNIQUE (job_id, session_id)
+);
+
+CREATE TABLE analytics_rollups (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    role_key varchar(255) NOT NULL,
+    role varchar(255) NOT NULL,
+    difficulty varchar(255) NOT NULL,
+    sessions bigint NOT NULL,
+    total_turns bigint NOT NULL,
+    total_duration_seconds bigint NOT NULL,
+    scored_sessions bigint NOT NULL,
+    score_sum bigint NOT NULL,
+    score_histogram bigint ARRAY NOT NULL,
+    updated_at timestamp(6) NOT NULL,
+    CONSTRAINT analytics_rollups_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_analytics_rollups_role_difficulty UNIQUE (role_key, difficulty)
+);
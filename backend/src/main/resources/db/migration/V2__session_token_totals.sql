@@ -0,0 +1,4 @@
+-- Per-session token totals (InterviewSession.promptTokens / completionTokens). IF NOT EXISTS: a database that
+-- ddl-auto=update created already has them when Flyway baselines it at version 1.
+ALTER TABLE interview_sessions ADD COLUMN IF NOT EXISTS prompt_tokens bigint DEFAULT 0 NOT NULL;
+ALTER TABLE interview_sessions ADD COLUMN IF NOT EXISTS completion_tokens bigint DEFAULT 0 NOT NULL;
@@ -0,0 +1,11 @@
+-- The rolling summary's cut-off becomes a (created_at, id) keyset (InterviewSession.summarizedThroughId).
+-- Existing summaries already covered every message created at summarized_through, so they are cut off at the
+-- highest such id; 0 when none is left, which keeps nothing at that instant out of the verbatim window.
+-- A database that ddl-auto=update created may already have the column (and ids in it) when Flyway baselines it
+-- at version 1, so the column is only added when missing and only empty cut-offs are filled in.
+ALTER TABLE interview_sessions ADD COLUMN IF NOT EXISTS summarized_through_id bigint;
+
+UPDATE interview_sessions SET summarized_through_id = COALESCE(
+        (SELECT MAX(m.id) FROM messages m
+         WHERE m.session_id = interview_sessions.id AND m.created_at = interview_sessions.summarized_through), 0)
+WHERE summarized_through IS NOT NULL AND summarized_through_id IS NULL;
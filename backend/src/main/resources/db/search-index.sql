@@ -0,0 +1,9 @@
+-- Full-text search for interview.search.engine=postgres. Applied at startup and safe to re-run; on a large
+-- messages table run it ahead of the upgrade, since adding the generated column rewrites the table.
+-- Archives written before this ran have no search_vector and are not found by search.
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+CREATE INDEX IF NOT EXISTS idx_messages_search_vector ON messages USING GIN (search_vector);
+
+ALTER TABLE transcript_archives ADD COLUMN IF NOT EXISTS search_vector tsvector;
+CREATE INDEX IF NOT EXISTS idx_transcript_archives_search_vector ON transcript_archives USING GIN (search_vector);
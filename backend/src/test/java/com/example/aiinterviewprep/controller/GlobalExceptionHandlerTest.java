@@ -0,0 +1,37 @@
+package com.example.aiinterviewprep.controller;
+
+import com.example.aiinterviewprep.service.ModelAuthenticationException;
+import com.example.aiinterviewprep.service.ModelProviderException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The mapping streamed responses use for their error events: typed messages, no provider details
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void modelFailuresKeepTheProviderResponseOutOfTheMessage() {
+        ResponseEntity<Map<String, String>> authentication = handler.toResponse(
+                new ModelAuthenticationException("openai request failed with status 401: {\"error\":\"bad key sk-123\"}", 401));
+        ResponseEntity<Map<String, String>> provider = handler.toResponse(
+                new ModelProviderException("openai request failed with status 400: {\"error\":\"context\"}", 400));
+
+        assertThat(authentication.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(authentication.getBody().get("message")).doesNotContain("401", "sk-123");
+        assertThat(provider.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(provider.getBody().get("message")).doesNotContain("400", "context");
+    }
+
+    @Test
+    void aFullStreamingExecutorIsServiceUnavailable() {
+        assertThat(handler.toResponse(new TaskRejectedException("Executor is full")).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
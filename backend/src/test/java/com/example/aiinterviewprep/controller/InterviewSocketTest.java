@@ -0,0 +1,204 @@
+package com.example.aiinterviewprep.controller;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.service.InterviewConversationService;
+import com.example.aiinterviewprep.service.StubModelServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.net.http.WebSocketHandshakeException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+// The WebSocket channel end to end: Tomcat, the handler and the conversation service against a stub model
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.jpa.show-sql=false",
+                "openai.api.key=test-key"
+        }
+)
+@ActiveProfiles("dev")
+class InterviewSocketTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterEach
+    void resetLatency() {
+        stubModel.withLatency(Duration.ZERO);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void aTurnIsStreamedToEveryTabAndEndingClosesThem() throws Exception {
+        Long sessionId = startSession();
+        Client first = connect(sessionId);
+        Client second = connect(sessionId);
+
+        first.send("{\"type\":\"message\",\"content\":\"I would shard by tenant.\",\"idempotencyKey\":\"answer-1\"}");
+
+        for (Client client : List.of(first, second)) {
+            StringBuilder streamed = new StringBuilder();
+            JsonNode frame = client.next();
+            while (frame.path("type").asText().equals("delta")) {
+                streamed.append(frame.path("content").asText());
+                frame = client.next();
+            }
+            assertThat(frame.path("type").asText()).isEqualTo("reply");
+            assertThat(frame.path("interviewerMessage").asText()).isEqualTo("Tell me about a system you designed.");
+            assertThat(streamed.toString()).isEqualTo("Tell me about a system you designed.");
+        }
+
+        second.send("{\"type\":\"typing\"}");
+        assertThat(first.next().path("type").asText()).isEqualTo("typing");
+        first.send("{\"type\":\"heartbeat\"}");
+        assertThat(first.next().path("type").asText()).isEqualTo("heartbeat");
+
+        second.send("{\"type\":\"end\"}");
+        for (Client client : List.of(first, second)) {
+            JsonNode ended = client.next();
+            assertThat(ended.path("type").asText()).isEqualTo("ended");
+            assertThat(ended.path("sessionId").asLong()).isEqualTo(sessionId);
+            assertThat(ended.path("status").asText()).isIn(FeedbackStatus.PENDING.name(), FeedbackStatus.READY.name());
+            assertThat(client.closed.get(5, TimeUnit.SECONDS)).isEqualTo(1000);
+        }
+    }
+
+    @Test
+    void aConnectionRunsOneTurnAtATime() throws Exception {
+        Long sessionId = startSession();
+        Client client = connect(sessionId);
+        stubModel.withLatency(Duration.ofMillis(500));
+
+        client.send("{\"type\":\"message\",\"content\":\"First answer.\"}");
+        client.send("{\"type\":\"message\",\"content\":\"Second answer.\"}");
+
+        JsonNode rejected = client.next();
+        assertThat(rejected.path("type").asText()).isEqualTo("error");
+        assertThat(rejected.path("message").asText()).contains("Wait for the interviewer's reply");
+        List<String> types = new ArrayList<>();
+        JsonNode frame;
+        do {
+            frame = client.next();
+            types.add(frame.path("type").asText());
+        } while (!frame.path("type").asText().equals("reply"));
+        assertThat(types).doesNotContain("error");
+    }
+
+    @Test
+    void unknownAndEndedSessionsAreRejectedAtTheHandshake() {
+        Long ended = startSession();
+        interviewConversationService.endSession(ended);
+
+        assertThat(handshakeStatus(() -> connect(Long.MAX_VALUE))).isEqualTo(404);
+        assertThat(handshakeStatus(() -> connect(ended))).isEqualTo(409);
+    }
+
+    private Long startSession() {
+        return interviewConversationService.startSession("Socket Engineer", DifficultyLevel.MEDIUM).getSessionId();
+    }
+
+    // The status the server refused the handshake with. The WebSocketHandshakeException sits somewhere in the
+    // cause chain of the failed connect; its own causes are JDK internals.
+    private static int handshakeStatus(ThrowingCallable connect) {
+        Throwable thrown = catchThrowable(connect);
+        for (Throwable cause = thrown; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebSocketHandshakeException handshake) {
+                return handshake.getResponse().statusCode();
+            }
+        }
+        throw new AssertionError("Expected the handshake to be refused", thrown);
+    }
+
+    private Client connect(Long sessionId) throws Exception {
+        Client client = new Client();
+        client.socket = httpClient.newWebSocketBuilder()
+                .buildAsync(URI.create("ws://localhost:" + port + "/api/interview/session/" + sessionId + "/ws"), client)
+                .get(5, TimeUnit.SECONDS);
+        return client;
+    }
+
+    private class Client implements WebSocket.Listener {
+        private final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Integer> closed = new CompletableFuture<>();
+        private final StringBuilder partial = new StringBuilder();
+        private WebSocket socket;
+
+        void send(String frame) {
+            socket.sendText(frame, true).join();
+        }
+
+        JsonNode next() throws Exception {
+            String frame = frames.poll(5, TimeUnit.SECONDS);
+            assertThat(frame).as("no frame within 5 seconds").isNotNull();
+            return objectMapper.readTree(frame);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                frames.add(partial.toString());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            closed.complete(statusCode);
+            return null;
+        }
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer();
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageView;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Turns of a session started on this instance read no session row; ending the session drops its entry
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.aiinterviewprep.service.ActiveSessionCacheTest$SessionRowReads",
+        "openai.api.key=test-key"
+})
+@ActiveProfiles("dev")
+class ActiveSessionCacheTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private ActiveSessionCache activeSessionCache;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void turnsReadNoSessionRowAndEndingTheSessionInvalidatesIt() {
+        Long sessionId = interviewConversationService.startSession("Cache Engineer", DifficultyLevel.HARD).getSessionId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        double hitsBefore = hits();
+
+        SessionRowReads.start();
+        try {
+            interviewConversationService.processCandidateMessage(sessionId, "I would put a cache in front of it.");
+            interviewConversationService.processCandidateMessage(sessionId, "And invalidate it on every write.");
+        } finally {
+            SessionRowReads.stop();
+        }
+
+        // Scalar projections are no entity loads, so the prepared statements are checked as well
+        assertThat(SessionRowReads.statements()).isEmpty();
+        assertThat(statistics.getEntityStatistics(InterviewSession.class.getName()).getLoadCount()).isZero();
+        assertThat(hits() - hitsBefore).isEqualTo(2);
+
+        interviewConversationService.endSession(sessionId);
+
+        assertThatThrownBy(() -> interviewConversationService.processCandidateMessage(sessionId, "One more thing."))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void aStaleVersionIsEvictedOnConflict() {
+        Long sessionId = interviewConversationService.startSession("Cache Engineer", DifficultyLevel.EASY).getSessionId();
+        ActiveSessionCache.ActiveSession cached = activeSessionCache.get(sessionId);
+        // Another instance answers a turn of this session meanwhile
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                interviewSessionRepository.advanceVersion(sessionId, cached.getVersion()));
+
+        assertThatThrownBy(() -> interviewConversationService.processCandidateMessage(sessionId, "First answer."))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(interviewConversationService.processCandidateMessage(sessionId, "First answer, again.").getInterviewerMessage())
+                .isNotBlank();
+        assertThat(activeSessionCache.get(sessionId).getVersion()).isEqualTo(cached.getVersion() + 2);
+    }
+
+    @Test
+    void aSessionEndedBeforeItsInvalidationArrivesRejectsTheTurn() {
+        Long sessionId = interviewConversationService.startSession("Cache Engineer", DifficultyLevel.MEDIUM).getSessionId();
+        activeSessionCache.get(sessionId);
+        // Another instance ends the session; this instance's entry still says it is active
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                interviewSessionRepository.findById(sessionId).orElseThrow().setActive(false));
+
+        assertThatThrownBy(() -> interviewConversationService.processCandidateMessage(sessionId, "Late answer."))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(interviewConversationService.getSessionMessages(sessionId, null, 50).getMessages())
+                .extracting(MessageView::getContent)
+                .doesNotContain("Late answer.");
+        // The stale entry is gone, so the next turn sees the session has ended
+        assertThatThrownBy(() -> interviewConversationService.processCandidateMessage(sessionId, "Later answer."))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not active");
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tags("cache", "interview.sessions", "result", "hit").functionCounter().count();
+    }
+
+    // Records the statements the recording thread prepares that read interview_sessions; Hibernate creates it
+    // from hibernate.session_factory.statement_inspector
+    public static class SessionRowReads implements StatementInspector {
+
+        private static final List<String> statements = new CopyOnWriteArrayList<>();
+        private static volatile Thread recording;
+
+        static void start() {
+            statements.clear();
+            recording = Thread.currentThread();
+        }
+
+        static void stop() {
+            recording = null;
+        }
+
+        static List<String> statements() {
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            String statement = sql.toLowerCase(Locale.ROOT).trim();
+            if (Thread.currentThread() == recording && statement.startsWith("select")
+                    && statement.contains("interview_sessions")) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer();
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Each test uses its own role, so its rollups start empty
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test-key",
+        "interview.feedback.sweep-interval=PT1H"
+})
+@ActiveProfiles("dev")
+class AnalyticsServiceTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private FeedbackService feedbackService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void endedSessionsAreAddedToTheirRoleAndDifficulty() throws Exception {
+        endSession("Analytics Engineer", DifficultyLevel.HARD, 2);
+        endSession("  analytics   ENGINEER ", DifficultyLevel.HARD, 4);
+        endSession("Analytics Engineer", DifficultyLevel.EASY, 1);
+
+        List<AnalyticsService.RollupResponse> hard = analyticsService.getRollups("analytics engineer", DifficultyLevel.HARD);
+        assertThat(hard).singleElement().satisfies(rollup -> {
+            assertThat(rollup.getRole()).isEqualTo("Analytics Engineer");
+            assertThat(rollup.getSessions()).isEqualTo(2);
+            assertThat(rollup.getScoredSessions()).isEqualTo(2);
+            assertThat(rollup.getMeanScore()).isEqualTo(7.0);
+            assertThat(rollup.getScoreHistogram()).containsEntry(7, 2L).containsEntry(1, 0L).hasSize(10);
+            assertThat(rollup.getAverageTurns()).isEqualTo(3.0);
+            assertThat(rollup.getAverageDurationSeconds()).isGreaterThanOrEqualTo(0.0);
+        });
+        assertThat(analyticsService.getRollups("Analytics Engineer", null))
+                .extracting(AnalyticsService.RollupResponse::getDifficulty)
+                .containsExactlyInAnyOrder(DifficultyLevel.HARD, DifficultyLevel.EASY);
+    }
+
+    @Test
+    void concurrentlyEndedSessionsAreAllCounted() {
+        List<CompletableFuture<Void>> endings = IntStream.range(0, 12)
+                .mapToObj(index -> CompletableFuture.runAsync(() -> endSession("Concurrent Analyst", DifficultyLevel.MEDIUM, 1)))
+                .toList();
+        CompletableFuture.allOf(endings.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(analyticsService.getRollups("Concurrent Analyst", DifficultyLevel.MEDIUM)).singleElement().satisfies(rollup -> {
+            assertThat(rollup.getSessions()).isEqualTo(12);
+            assertThat(rollup.getScoreHistogram()).containsEntry(7, 12L);
+            assertThat(rollup.getAverageTurns()).isEqualTo(1.0);
+        });
+    }
+
+    private void endSession(String role, DifficultyLevel difficulty, int turns) {
+        Long sessionId = interviewConversationService.startSession(role, difficulty).getSessionId();
+        for (int turn = 0; turn < turns; turn++) {
+            interviewConversationService.processCandidateMessage(sessionId, "Answer " + turn + ": cache the hot path.");
+        }
+        interviewConversationService.endSession(sessionId);
+        try {
+            FeedbackService.FeedbackResponse feedback = feedbackService.awaitFeedback(sessionId).get(10, TimeUnit.SECONDS);
+            assertThat(feedback.getStatus()).isEqualTo(FeedbackStatus.READY);
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer()
+                    .withReply("{\"strengths\":\"Pragmatic\",\"areasForImprovement\":\"Depth\",\"overallComments\":\"Solid\",\"score\":7}");
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.entity.ScoringJob;
+import com.example.aiinterviewprep.entity.ScoringJobStatus;
+import com.example.aiinterviewprep.entity.SessionScore;
+import com.example.aiinterviewprep.repository.InterviewFeedbackRepository;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.example.aiinterviewprep.repository.ScoringJobRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sessions are re-scored in chunks of two; each test uses its own range of end times
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test-key",
+        "interview.scoring.chunk-size=2",
+        "interview.scoring.parallelism=2",
+        "interview.scoring.sweep-interval=PT1H"
+})
+@ActiveProfiles("dev")
+class BatchScoringTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private BatchScoringService batchScoringService;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private InterviewFeedbackRepository interviewFeedbackRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ScoringJobRepository scoringJobRepository;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void aJobScoresEverySessionInItsRangeWithoutChangingTheSessions() {
+        LocalDateTime from = LocalDateTime.of(2001, 1, 1, 0, 0);
+        List<InterviewSession> sessions = endedSessions(from, 5);
+        endedSessions(from.plusDays(1), 1);
+
+        BatchScoringService.ScoringJobResponse started = batchScoringService.start(from, from.plusDays(1));
+        BatchScoringService.ScoringJobResponse finished = awaitFinished(started.getId());
+
+        assertThat(finished.getStatus()).isEqualTo(ScoringJobStatus.COMPLETED);
+        assertThat(finished.getScored()).isEqualTo(5);
+        assertThat(finished.getFailed()).isZero();
+
+        BatchScoringService.ScorePage first = batchScoringService.getScores(started.getId(), null, 3);
+        BatchScoringService.ScorePage second = batchScoringService.getScores(started.getId(), first.getNextAfterSessionId(), 3);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(second.isHasMore()).isFalse();
+        List<SessionScore> scores = new ArrayList<>(first.getScores());
+        scores.addAll(second.getScores());
+        assertThat(scores).extracting(SessionScore::getSessionId)
+                .containsExactlyElementsOf(sessions.stream().map(InterviewSession::getId).toList());
+        assertThat(scores).allSatisfy(score -> {
+            assertThat(score.getStatus()).isEqualTo(FeedbackStatus.READY);
+            assertThat(score.getScore()).isEqualTo(6);
+        });
+
+        for (InterviewSession session : sessions) {
+            InterviewSession stored = interviewSessionRepository.findById(session.getId()).orElseThrow();
+            assertThat(stored.getActive()).isFalse();
+            assertThat(stored.getEndedAt()).isEqualTo(session.getEndedAt());
+            assertThat(stored.getVersion()).isEqualTo(session.getVersion());
+            // The job's model usage is not added to the session's own token totals
+            assertThat(stored.getPromptTokens()).isEqualTo(session.getPromptTokens());
+            assertThat(stored.getCompletionTokens()).isEqualTo(session.getCompletionTokens());
+            assertThat(interviewFeedbackRepository.findBySessionId(session.getId())).isEmpty();
+        }
+    }
+
+    @Test
+    void anInterruptedJobResumesAfterItsCheckpoint() {
+        LocalDateTime from = LocalDateTime.of(2002, 1, 1, 0, 0);
+        List<InterviewSession> sessions = endedSessions(from, 4);
+        // What a runner that died after its first chunk leaves behind
+        ScoringJob interrupted = new ScoringJob(from, from.plusDays(1));
+        interrupted.setCheckpointSessionId(sessions.get(1).getId());
+        interrupted.setScored(2);
+        interrupted.setHeartbeatAt(LocalDateTime.now().minusHours(1));
+        interrupted = scoringJobRepository.save(interrupted);
+
+        batchScoringService.resumeStale();
+        BatchScoringService.ScoringJobResponse finished = awaitFinished(interrupted.getId());
+
+        assertThat(finished.getStatus()).isEqualTo(ScoringJobStatus.COMPLETED);
+        assertThat(finished.getScored()).isEqualTo(4);
+        assertThat(batchScoringService.getScores(interrupted.getId(), null, 10).getScores())
+                .extracting(SessionScore::getSessionId)
+                .containsExactly(sessions.get(2).getId(), sessions.get(3).getId());
+    }
+
+    private List<InterviewSession> endedSessions(LocalDateTime firstEndedAt, int count) {
+        List<InterviewSession> sessions = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            InterviewSession session = new InterviewSession("Scoring Engineer", DifficultyLevel.MEDIUM);
+            session.setActive(false);
+            session.setEndedAt(firstEndedAt.plusMinutes(index));
+            session = interviewSessionRepository.save(session);
+            messageRepository.save(new Message(session, MessageRole.INTERVIEWER, "How would you size a connection pool?"));
+            messageRepository.save(new Message(session, MessageRole.CANDIDATE, "Answer " + session.getId() + ": measure first."));
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private BatchScoringService.ScoringJobResponse awaitFinished(Long jobId) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        BatchScoringService.ScoringJobResponse job = batchScoringService.getJob(jobId);
+        while (job.getStatus() == ScoringJobStatus.RUNNING && System.nanoTime() < deadline) {
+            sleep(50);
+            job = batchScoringService.getJob(jobId);
+        }
+        return job;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer()
+                    .withReply("{\"strengths\":\"Measured\",\"areasForImprovement\":\"Depth\",\"overallComments\":\"Re-scored\",\"score\":6}");
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
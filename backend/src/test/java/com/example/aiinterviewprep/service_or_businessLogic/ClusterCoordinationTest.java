@@ -0,0 +1,144 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.AiInterviewPrepApplication;
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Two instances of the application against one PostgreSQL database: leader election, session locks and
+// cache invalidation between them. Set CLUSTER_DB_URL, e.g. jdbc:postgresql://localhost:5432/interview_prep
+// Run with: mvn test -Pcluster-tests
+@Tag("cluster")
+class ClusterCoordinationTest {
+
+    private static StubModelServer stubModel;
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        assumeTrue(System.getenv("CLUSTER_DB_URL") != null, "CLUSTER_DB_URL is not set");
+        stubModel = new StubModelServer();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stubModel != null) {
+            stubModel.close();
+        }
+    }
+
+    @BeforeEach
+    void startInstances() {
+        first = instance("first");
+        second = instance("second");
+    }
+
+    @AfterEach
+    void stopInstances() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void exactlyOneInstanceLeadsAndAnotherTakesOverWhenItStops() {
+        ClusterCoordinator firstCoordinator = first.getBean(ClusterCoordinator.class);
+        ClusterCoordinator secondCoordinator = second.getBean(ClusterCoordinator.class);
+        assertThat(firstCoordinator.isLeader()).isNotEqualTo(secondCoordinator.isLeader());
+
+        ConfigurableApplicationContext leader = firstCoordinator.isLeader() ? first : second;
+        ClusterCoordinator follower = firstCoordinator.isLeader() ? secondCoordinator : firstCoordinator;
+        leader.close();
+
+        awaitTrue(follower::isLeader);
+    }
+
+    @Test
+    void aSessionLockedOnOneInstanceIsBusyOnTheOther() throws Exception {
+        ClusterCoordinator firstCoordinator = first.getBean(ClusterCoordinator.class);
+        ClusterCoordinator secondCoordinator = second.getBean(ClusterCoordinator.class);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(() -> firstCoordinator.runLocked(42L, Duration.ofSeconds(5), () -> {
+            locked.countDown();
+            return await(release);
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(secondCoordinator.tryRunLocked(42L, () -> { })).isFalse();
+        release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(secondCoordinator.tryRunLocked(42L, () -> { })).isTrue();
+    }
+
+    @Test
+    void aTurnOnOneInstanceEvictsTheSessionCachedOnTheOther() {
+        InterviewConversationService firstService = first.getBean(InterviewConversationService.class);
+        ActiveSessionCache secondCache = second.getBean(ActiveSessionCache.class);
+        Long sessionId = firstService.startSession("Cluster Engineer", DifficultyLevel.MEDIUM).getSessionId();
+        long version = secondCache.get(sessionId).getVersion();
+
+        firstService.processCandidateMessage(sessionId, "I would partition by session id.");
+
+        awaitTrue(() -> secondCache.get(sessionId).getVersion() == version + 1);
+    }
+
+    // Command-line args, not builder properties: those are only defaults, which application.properties overrides
+    private static ConfigurableApplicationContext instance(String nodeId) {
+        return new SpringApplicationBuilder(AiInterviewPrepApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + System.getenv("CLUSTER_DB_URL"),
+                        "--spring.datasource.username=" + System.getenv().getOrDefault("CLUSTER_DB_USERNAME", "postgres"),
+                        "--spring.datasource.password=" + System.getenv().getOrDefault("CLUSTER_DB_PASSWORD", ""),
+                        "--spring.jpa.show-sql=false",
+                        "--openai.api.key=test-key",
+                        "--openai.base-url=" + stubModel.baseUrl(),
+                        "--interview.cluster.enabled=true",
+                        "--interview.cluster.node-id=" + nodeId,
+                        "--interview.cluster.heartbeat-interval=PT0.2S");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            sleep(50);
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
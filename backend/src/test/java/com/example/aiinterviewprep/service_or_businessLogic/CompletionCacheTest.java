@@ -0,0 +1,79 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Per-call-type cache policies, checked by counting the requests that reach the stub
+class CompletionCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StubModelServer stub;
+    private OpenAiClientService client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = new StubModelServer().withLatency(Duration.ofMillis(300)).withReply("Next: how would you shard it?");
+        CompletionCache cache = new CompletionCache(null, null, meterRegistry, true, 100, false, Duration.ofHours(1), Duration.ofDays(1));
+        client = new OpenAiClientService("test-key", "gpt-4o-mini", stub.baseUrl(), false,
+                OpenAiResilienceTest.fastRetries(), cache, ModelAdmissionController.unlimited(),
+                new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void openingsAndFeedbackAreServedFromTheCache() {
+        client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+        client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+        client.generateSessionFeedback(1L, "Backend Engineer", DifficultyLevel.HARD, List.of());
+        client.generateSessionFeedback(1L, "Backend Engineer", DifficultyLevel.HARD, List.of());
+
+        assertThat(stub.requestCount()).isEqualTo(2);
+        assertThat(lookups("OPENING", "memory_hit")).isEqualTo(1);
+        assertThat(lookups("FEEDBACK", "memory_hit")).isEqualTo(1);
+    }
+
+    @Test
+    void prefetchedOpeningsAreAlwaysFreshSamples() {
+        client.generateFreshOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+        client.generateFreshOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void identicalRepliesInFlightShareOneCallButAreNotCached() throws Exception {
+        ConversationContext context = new ConversationContext(null, List.of());
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = callers.submit(() -> client.generateInterviewerReply("Backend Engineer", DifficultyLevel.EASY, context));
+            Thread.sleep(100);
+            Future<String> second = callers.submit(() -> client.generateInterviewerReply("Backend Engineer", DifficultyLevel.EASY, context));
+            assertThat(second.get()).isEqualTo(first.get());
+        }
+        assertThat(stub.requestCount()).isEqualTo(1);
+        assertThat(lookups("REPLY", "deduplicated")).isEqualTo(1);
+
+        client.generateInterviewerReply("Backend Engineer", DifficultyLevel.EASY, context);
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    private double lookups(String type, String result) {
+        return meterRegistry.counter("model.completion.cache.lookups", "type", type, "result", result).count();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.AiInterviewPrepApplication;
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two instances (each with its own turn lock) answering the same session at once: the model calls run with no
+// connection held, and the version check in the reply's transaction lets exactly one of them through. The
+// other gets a conflict and its candidate message is removed, so the transcript never interleaves.
+class ConcurrentTurnTest {
+
+    private static StubModelServer stubModel;
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        stubModel = new StubModelServer().withLatency(Duration.ofSeconds(1));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @BeforeEach
+    void startInstances() {
+        first = instance();
+        second = instance();
+    }
+
+    @AfterEach
+    void stopInstances() {
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void onlyOneOfTwoRacingTurnsIsStored() throws Exception {
+        InterviewConversationService firstService = first.getBean(InterviewConversationService.class);
+        InterviewConversationService secondService = second.getBean(InterviewConversationService.class);
+        Long sessionId = firstService.startSession("Concurrency Engineer", DifficultyLevel.MEDIUM).getSessionId();
+
+        CompletableFuture<InterviewConversationService.MessageResponse> fromFirst = CompletableFuture.supplyAsync(() ->
+                firstService.processCandidateMessage(sessionId, "Answer sent to the first instance."));
+        CompletableFuture<InterviewConversationService.MessageResponse> fromSecond = CompletableFuture.supplyAsync(() ->
+                secondService.processCandidateMessage(sessionId, "Answer sent to the second instance."));
+
+        // Both model calls are waiting on the stub; neither turn holds a connection meanwhile
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stubModel.inFlight() < 2) {
+            assertThat(System.nanoTime()).as("both turns reach the model").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        assertThat(activeConnections(first)).isZero();
+        assertThat(activeConnections(second)).isZero();
+
+        List<Throwable> failures = Stream.of(fromFirst, fromSecond)
+                .map(ConcurrentTurnTest::failure)
+                .filter(Objects::nonNull)
+                .toList();
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0)).isInstanceOf(OptimisticLockingFailureException.class);
+
+        String winner = fromFirst.isCompletedExceptionally() ? "second" : "first";
+        String loser = winner.equals("first") ? "second" : "first";
+        List<Message> transcript = first.getBean(MessageRepository.class).findBySessionIdOrderByCreatedAtAsc(sessionId);
+        assertThat(transcript).extracting(Message::getRole)
+                .containsExactly(MessageRole.INTERVIEWER, MessageRole.CANDIDATE, MessageRole.INTERVIEWER);
+        assertThat(transcript.get(1).getContent()).isEqualTo("Answer sent to the " + winner + " instance.");
+        assertThat(transcript).extracting(Message::getContent).doesNotContain("Answer sent to the " + loser + " instance.");
+    }
+
+    // Both instances share one in-memory database; openings are never prefetched so the stub sees only the turns.
+    // Passed as command-line args: builder properties are only defaults, which application-dev.properties overrides.
+    private static ConfigurableApplicationContext instance() {
+        return new SpringApplicationBuilder(AiInterviewPrepApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:concurrent_turns;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "--spring.jpa.show-sql=false",
+                        "--openai.api.key=test-key",
+                        "--openai.base-url=" + stubModel.baseUrl(),
+                        "--interview.openings.min-requests=1000000");
+    }
+
+    private static int activeConnections(ConfigurableApplicationContext context) {
+        return ((HikariDataSource) context.getBean(DataSource.class)).getHikariPoolMXBean().getActiveConnections();
+    }
+
+    private static Throwable failure(CompletableFuture<?> turn) {
+        try {
+            turn.get(20, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException exception) {
+            return exception.getCause();
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test-key",
+        "interview.context.verbatim-messages=4",
+        "interview.context.token-budget=100000"
+})
+@ActiveProfiles("dev")
+class ConversationContextManagerTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private ConversationContextManager conversationContextManager;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void foldedMessagesLeaveThePromptAndAReloadRebuildsTheSameContext() throws InterruptedException {
+        Long sessionId = interviewConversationService.startSession("Context Engineer", DifficultyLevel.MEDIUM).getSessionId();
+        for (int turn = 0; turn < 4; turn++) {
+            interviewConversationService.processCandidateMessage(sessionId, "Answer marker" + turn + ": I would add a read replica.");
+        }
+        ConversationContext compacted = awaitCompacted(sessionId);
+
+        InterviewSession session = interviewSessionRepository.findById(sessionId).orElseThrow();
+        List<Message> stored = messageRepository.findBySessionIdOrderByCreatedAtAscIdAsc(sessionId);
+        List<Message> folded = stored.subList(0, indexOf(stored, session.getSummarizedThroughId()) + 1);
+        assertThat(folded).isNotEmpty();
+        assertThat(compacted.getSummary()).isEqualTo(session.getContextSummary());
+        assertThat(compacted.getRecentMessages()).extracting(Message::getId)
+                .containsExactlyElementsOf(stored.subList(folded.size(), stored.size()).stream().map(Message::getId).toList());
+
+        // A reload after compaction (another node, or the cache entry expiring) starts from the stored summary
+        conversationContextManager.evict(sessionId);
+        ConversationContext reloaded = conversationContextManager.append(sessionId, stored.get(stored.size() - 1));
+        assertThat(reloaded.getSummary()).isEqualTo(compacted.getSummary());
+        assertThat(reloaded.getRecentMessages()).extracting(Message::getId)
+                .containsExactlyElementsOf(compacted.getRecentMessages().stream().map(Message::getId).toList());
+
+        // The next reply's prompt carries the summary instead of the folded answers
+        interviewConversationService.processCandidateMessage(sessionId, "Answer marker4: I would partition by tenant.");
+        String prompt = stubModel.requestBodies().stream()
+                .filter(body -> body.contains("realistic technical interviewer") && body.contains("marker4:"))
+                .findFirst().orElseThrow();
+        assertThat(prompt).contains("Summary of the interview before the messages below: " + session.getContextSummary());
+        folded.stream()
+                .filter(message -> message.getRole() == MessageRole.CANDIDATE)
+                .forEach(message -> assertThat(prompt).doesNotContain(message.getContent()));
+        compacted.getRecentMessages().forEach(message -> assertThat(prompt).contains(message.getContent()));
+    }
+
+    // The summary is cut off by (createdAt, id): a message created in the same instant as the last folded one
+    // is still part of the verbatim window after a reload
+    @Test
+    void aReloadKeepsMessagesCreatedInTheSameInstantAsTheLastFoldedOne() {
+        Long sessionId = interviewConversationService.startSession("Keyset Engineer", DifficultyLevel.MEDIUM).getSessionId();
+        InterviewSession session = interviewSessionRepository.findById(sessionId).orElseThrow();
+        LocalDateTime instant = LocalDateTime.now().plusSeconds(1);
+        List<Message> saved = messageRepository.saveAll(List.of(
+                message(session, "Folded answer.", instant),
+                message(session, "Answer from the same instant.", instant),
+                message(session, "Later answer.", instant.plusSeconds(1))));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                interviewSessionRepository.updateContextSummary(sessionId, "Notes.", instant, saved.get(0).getId()));
+
+        conversationContextManager.evict(sessionId);
+        ConversationContext reloaded = conversationContextManager.append(sessionId, saved.get(2));
+
+        assertThat(reloaded.getSummary()).isEqualTo("Notes.");
+        assertThat(reloaded.getRecentMessages()).extracting(Message::getId)
+                .containsExactly(saved.get(1).getId(), saved.get(2).getId());
+    }
+
+    private static Message message(InterviewSession session, String content, LocalDateTime createdAt) {
+        Message message = new Message(session, MessageRole.CANDIDATE, content);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+
+    private static int indexOf(List<Message> messages, Long id) {
+        for (int index = 0; index < messages.size(); index++) {
+            if (messages.get(index).getId().equals(id)) {
+                return index;
+            }
+        }
+        throw new AssertionError("Message " + id + " is not in the transcript.");
+    }
+
+    // Waits until the background fold has been stored and applied, and nothing more is left to fold. A turn
+    // that ends while a fold is running does not start another, so the wait asks again as the next turn would.
+    private ConversationContext awaitCompacted(Long sessionId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        List<Message> stored = messageRepository.findBySessionIdOrderByCreatedAtAscIdAsc(sessionId);
+        Message last = stored.get(stored.size() - 1);
+        while (true) {
+            ConversationContext context = conversationContextManager.append(sessionId, last);
+            Long summarizedThroughId = interviewSessionRepository.findById(sessionId).orElseThrow().getSummarizedThroughId();
+            int firstRecent = stored.indexOf(stored.stream()
+                    .filter(message -> message.getId().equals(context.getRecentMessages().get(0).getId()))
+                    .findFirst().orElseThrow());
+            if (summarizedThroughId != null && firstRecent > 0 && context.getRecentMessages().size() <= 4
+                    && stored.get(firstRecent - 1).getId().equals(summarizedThroughId)) {
+                return context;
+            }
+            assertThat(System.nanoTime()).as("compaction finished in time").isLessThan(deadline);
+            conversationContextManager.compactInBackground(sessionId, "Context Engineer", DifficultyLevel.MEDIUM);
+            Thread.sleep(50);
+        }
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer().withReply("Noted. Next question: how would you scale the writes?");
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewFeedback;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.repository.InterviewFeedbackRepository;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test-key",
+        "interview.feedback.sweep-interval=PT1H"
+})
+@ActiveProfiles("dev")
+class FeedbackServiceTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private FeedbackService feedbackService;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private InterviewFeedbackRepository interviewFeedbackRepository;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void endingASessionReturnsBeforeFeedbackAndTheWaiterGetsIt() throws Exception {
+        Long sessionId = interviewConversationService.startSession("Feedback Engineer", DifficultyLevel.HARD).getSessionId();
+        interviewConversationService.processCandidateMessage(sessionId, "I would use a write-ahead log.");
+
+        InterviewConversationService.EndSessionResponse ended = interviewConversationService.endSession(sessionId);
+
+        assertThat(ended.getStatus()).isEqualTo(FeedbackStatus.PENDING);
+        assertThat(ended.getScore()).isNull();
+        assertThat(interviewSessionRepository.findById(sessionId).orElseThrow().getActive()).isFalse();
+
+        FeedbackService.FeedbackResponse feedback = feedbackService.awaitFeedback(sessionId).get(10, TimeUnit.SECONDS);
+        assertThat(feedback.getStatus()).isEqualTo(FeedbackStatus.READY);
+        assertThat(feedback.getScore()).isEqualTo(8);
+        assertThat(feedback.getStrengths()).isEqualTo("Clear structure");
+
+        // Ending again reports the stored feedback instead of generating it a second time
+        int requests = stubModel.requestCount();
+        assertThat(interviewConversationService.endSession(sessionId).getStatus()).isEqualTo(FeedbackStatus.READY);
+        assertThat(stubModel.requestCount()).isEqualTo(requests);
+    }
+
+    @Test
+    void feedbackLeftPendingByARestartIsPickedUpByTheSweep() throws Exception {
+        // What a node that went down between ending the session and running the job leaves behind
+        InterviewSession session = new InterviewSession("Recovered Engineer", DifficultyLevel.EASY);
+        session.setActive(false);
+        session.setEndedAt(LocalDateTime.now());
+        session = interviewSessionRepository.save(session);
+        interviewFeedbackRepository.save(new InterviewFeedback(session));
+
+        feedbackService.enqueuePending();
+
+        FeedbackService.FeedbackResponse feedback = feedbackService.awaitFeedback(session.getId()).get(10, TimeUnit.SECONDS);
+        assertThat(feedback.getStatus()).isEqualTo(FeedbackStatus.READY);
+        assertThat(interviewFeedbackRepository.findBySessionId(session.getId()).orElseThrow().getCompletedAt()).isNotNull();
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer()
+                    .withLatency(Duration.ofMillis(300))
+                    .withReply("{\"strengths\":\"Clear structure\",\"areasForImprovement\":\"Quantify trade-offs\",\"overallComments\":\"Good session\",\"score\":8}");
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
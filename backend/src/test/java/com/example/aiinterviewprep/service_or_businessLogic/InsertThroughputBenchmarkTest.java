@@ -0,0 +1,113 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.MessageRole;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Insert throughput of the bulk write path with JDBC batching (batch size 50) against one row per round-trip
+// (batch size 1, which is what IDENTITY ids forced). Runs on the in-memory H2 dev database, or on PostgreSQL
+// when BENCHMARK_DB_URL is set, e.g. jdbc:postgresql://localhost:5432/interview_prep?reWriteBatchedInserts=true
+// Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "openai.api.key=test-key"})
+@ActiveProfiles("dev")
+class InsertThroughputBenchmarkTest {
+
+    private static final int SESSIONS = 200;
+    private static final int MESSAGES_PER_SESSION = 24;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private TranscriptImportService transcriptImportService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        String url = System.getenv("BENCHMARK_DB_URL");
+        if (url != null && !url.isBlank()) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+            registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("BENCHMARK_DB_USERNAME", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("BENCHMARK_DB_PASSWORD", ""));
+        }
+    }
+
+    @Test
+    void batchedInsertsOutperformOneRowPerRoundTrip() {
+        List<TranscriptImportService.SessionImport> sessions = sessions();
+        int rows = SESSIONS * (MESSAGES_PER_SESSION + 1);
+
+        // Warm up both paths (JIT, connection pool, sequence caches) before measuring
+        importWithBatchSize(sessions, 1);
+        importWithBatchSize(sessions, 50);
+
+        long unbatchedNanos = 0;
+        long batchedNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            unbatchedNanos += importWithBatchSize(sessions, 1);
+            batchedNanos += importWithBatchSize(sessions, 50);
+        }
+
+        double unbatchedRate = rows * ROUNDS / (unbatchedNanos / 1e9);
+        double batchedRate = rows * ROUNDS / (batchedNanos / 1e9);
+        System.out.printf("insert-throughput database=%s rows=%d unbatched=%.0f rows/s batched=%.0f rows/s speedup=%.2fx%n",
+                System.getenv("BENCHMARK_DB_URL") == null ? "h2" : "postgresql", rows, unbatchedRate, batchedRate,
+                batchedRate / unbatchedRate);
+
+        assertThat(batchedRate).isGreaterThan(unbatchedRate);
+    }
+
+    // The import joins this transaction, so the session's JDBC batch size applies to all of its inserts
+    private long importWithBatchSize(List<TranscriptImportService.SessionImport> sessions, int batchSize) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long started = System.nanoTime();
+        List<Long> ids = transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            return transcriptImportService.importSessions(sessions);
+        });
+        long elapsed = System.nanoTime() - started;
+        assertThat(ids).hasSize(SESSIONS);
+        return elapsed;
+    }
+
+    private static List<TranscriptImportService.SessionImport> sessions() {
+        List<TranscriptImportService.SessionImport> sessions = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        for (int index = 0; index < SESSIONS; index++) {
+            TranscriptImportService.SessionImport session = new TranscriptImportService.SessionImport();
+            session.setRole("Imported Engineer");
+            session.setDifficulty(DifficultyLevel.MEDIUM);
+            session.setCreatedAt(start);
+            session.setEndedAt(start.plusMinutes(30));
+            for (int turn = 0; turn < MESSAGES_PER_SESSION; turn++) {
+                session.getMessages().add(new TranscriptImportService.MessageImport(
+                        turn % 2 == 0 ? MessageRole.INTERVIEWER : MessageRole.CANDIDATE,
+                        "Imported message " + turn + " of session " + index + ". I would start with the read path.",
+                        start.plusSeconds(turn)));
+            }
+            sessions.add(session);
+        }
+        return sessions;
+    }
+}
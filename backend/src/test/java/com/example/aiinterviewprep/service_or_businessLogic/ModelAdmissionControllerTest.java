@@ -0,0 +1,136 @@
+package com.example.aiinterviewprep.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Queue order (priority classes, then round-robin across sessions), shedding and the wait bound.
+// 600 requests per minute refill one request every 100 ms once the initial burst is used up.
+class ModelAdmissionControllerTest {
+
+    private static final int REQUESTS_PER_MINUTE = 600;
+
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<String> admitted = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void liveRepliesAreAdmittedBeforeQueuedBatchWork() throws Exception {
+        ModelAdmissionController controller = drained(controller(10, 10, Duration.ofSeconds(5)));
+
+        CompletableFuture<Void> feedback = call(controller, ModelCallType.FEEDBACK, "session-1", "feedback");
+        Thread.sleep(20);
+        CompletableFuture<Void> reply = call(controller, ModelCallType.REPLY, "session-2", "reply");
+        CompletableFuture.allOf(feedback, reply).get(5, TimeUnit.SECONDS);
+
+        assertThat(admitted).containsExactly("reply", "feedback");
+    }
+
+    @Test
+    void sessionsTakeTurnsWithinAPriorityClass() throws Exception {
+        ModelAdmissionController controller = drained(controller(10, 10, Duration.ofSeconds(5)));
+
+        List<CompletableFuture<Void>> calls = new CopyOnWriteArrayList<>();
+        for (String label : List.of("a1", "a2", "a3")) {
+            calls.add(call(controller, ModelCallType.REPLY, "session-a", label));
+            Thread.sleep(10);
+        }
+        calls.add(call(controller, ModelCallType.REPLY, "session-b", "b1"));
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(admitted).containsExactly("a1", "b1", "a2", "a3");
+    }
+
+    @Test
+    void aFullQueueShedsLowerPriorityCallsFirst() throws Exception {
+        ModelAdmissionController controller = drained(controller(1, 10, Duration.ofSeconds(5)));
+
+        CompletableFuture<Void> feedback = call(controller, ModelCallType.FEEDBACK, "session-1", "feedback");
+        Thread.sleep(20);
+        CompletableFuture<Void> reply = call(controller, ModelCallType.REPLY, "session-2", "reply");
+        reply.get(5, TimeUnit.SECONDS);
+
+        assertThat(feedback).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .havingRootCause()
+                .isInstanceOfSatisfying(ModelOverloadedException.class,
+                        exception -> assertThat(exception.getRetryAfter()).isPositive());
+        assertThat(admitted).containsExactly("reply");
+    }
+
+    @Test
+    void oneSessionCannotFillTheQueue() throws Exception {
+        ModelAdmissionController controller = drained(controller(10, 1, Duration.ofSeconds(5)));
+
+        CompletableFuture<Void> first = call(controller, ModelCallType.REPLY, "session-1", "first");
+        Thread.sleep(20);
+
+        assertThatThrownBy(() -> controller.admit(ModelCallType.REPLY, "session-1", 1))
+                .isInstanceOf(ModelOverloadedException.class);
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callsThatWaitTooLongAreShed() {
+        ModelAdmissionController controller = drained(controller(10, 10, Duration.ofMillis(30)));
+
+        assertThatThrownBy(() -> controller.admit(ModelCallType.REPLY, "session-1", 1))
+                .isInstanceOf(ModelOverloadedException.class);
+    }
+
+    @Test
+    void aRefundedCallGivesItsTokensBack() {
+        ModelAdmissionController controller = new ModelAdmissionController(REQUESTS_PER_MINUTE, 60_000, 10, 10,
+                Duration.ofMillis(100), new SimpleMeterRegistry());
+        ModelAdmissionController.Admission failed = controller.admit(ModelCallType.REPLY, "session-1", 60_000);
+        assertThatThrownBy(() -> controller.admit(ModelCallType.REPLY, "session-1", 30_000))
+                .isInstanceOf(ModelOverloadedException.class);
+
+        controller.refund(failed);
+        controller.admit(ModelCallType.REPLY, "session-1", 30_000);
+    }
+
+    @Test
+    void unlimitedAdmitsEverythingAtOnce() {
+        ModelAdmissionController controller = ModelAdmissionController.unlimited();
+        for (int call = 0; call < 10_000; call++) {
+            controller.admit(ModelCallType.FEEDBACK, "session-1", 1_000_000);
+        }
+    }
+
+    private static ModelAdmissionController controller(int maxQueued, int maxQueuedPerSession, Duration maxWait) {
+        return new ModelAdmissionController(REQUESTS_PER_MINUTE, 1_000_000, maxQueued, maxQueuedPerSession, maxWait,
+                new SimpleMeterRegistry());
+    }
+
+    // Uses up the initial burst so the next calls have to queue
+    private static ModelAdmissionController drained(ModelAdmissionController controller) {
+        for (int call = 0; call < REQUESTS_PER_MINUTE; call++) {
+            controller.admit(ModelCallType.REPLY, "drain", 1);
+        }
+        return controller;
+    }
+
+    private CompletableFuture<Void> call(ModelAdmissionController controller, ModelCallType callType, String flow, String label) {
+        return CompletableFuture.runAsync(() -> {
+            controller.admit(callType, flow, 1);
+            admitted.add(label);
+        }, callers);
+    }
+}
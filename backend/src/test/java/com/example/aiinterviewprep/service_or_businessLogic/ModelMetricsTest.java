@@ -0,0 +1,76 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Upstream latency by status and token usage by call type, as recorded against the stub's usage blocks
+class ModelMetricsTest {
+
+    private StubModelServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private OpenAiClientService client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = new StubModelServer().withReply("How would you shard this table?");
+        meterRegistry = new SimpleMeterRegistry();
+        client = new OpenAiClientService("test-key", "gpt-4o-mini", stub.baseUrl(), false,
+                OpenAiResilienceTest.fastRetries(), CompletionCache.disabled(), ModelAdmissionController.unlimited(),
+                meterRegistry, new ObjectMapper());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void everyAttemptIsTimedWithItsStatus() {
+        stub.failNext(503, null);
+
+        client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+
+        assertThat(meterRegistry.get("model.upstream.latency").tags("call_type", "OPENING", "status", "503").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("model.upstream.latency").tags("call_type", "OPENING", "status", "200").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void usageIsCountedByCallTypeModelAndDifficulty() {
+        client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+        client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.HARD);
+
+        assertThat(tokens("OPENING", "HARD", "prompt")).isEqualTo(2.0 * StubModelServer.PROMPT_TOKENS);
+        assertThat(tokens("OPENING", "HARD", "completion")).isEqualTo(2.0 * 6);
+    }
+
+    @Test
+    void streamedRepliesReportUsageFromTheFinalChunk() {
+        ConversationContext context = new ConversationContext(null,
+                List.of(new Message(null, MessageRole.CANDIDATE, "I would start from the access patterns.")));
+
+        client.streamInterviewerReply("Backend Engineer", DifficultyLevel.EASY, context, delta -> { });
+
+        assertThat(stub.requestBodies()).singleElement().asString().contains("\"include_usage\":true");
+        assertThat(tokens("REPLY", "EASY", "prompt")).isEqualTo(StubModelServer.PROMPT_TOKENS);
+        assertThat(tokens("REPLY", "EASY", "completion")).isEqualTo(6);
+    }
+
+    private double tokens(String callType, String difficulty, String kind) {
+        return meterRegistry.get("model.tokens")
+                .tags("call_type", callType, "model", "gpt-4o-mini", "difficulty", difficulty, "kind", kind)
+                .counter().count();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fallback, demotion of failing providers and hedging of slow ones, across two local stubs.
+// Opening questions are hedged after 100 ms; two calls are enough for a provider's error rate to count.
+class ModelRouterTest {
+
+    private StubModelServer primary;
+    private StubModelServer secondary;
+    private SimpleMeterRegistry meterRegistry;
+    private ModelRouter router;
+    private OpenAiClientService client;
+
+    @BeforeEach
+    void startStubs() throws IOException {
+        primary = new StubModelServer().withReply("Primary question?");
+        secondary = new StubModelServer().withReply("Secondary question?");
+        meterRegistry = new SimpleMeterRegistry();
+        List<String> route = List.of("primary", "secondary");
+        router = new ModelRouter(List.of(provider("primary", primary), provider("secondary", secondary)),
+                new ModelRoutingSettings(route, route, route, route, route, Set.of(ModelCallType.OPENING),
+                        Duration.ofMillis(100), Duration.ofSeconds(20), 0.5, 200, 2),
+                meterRegistry);
+        client = new OpenAiClientService(router, CompletionCache.disabled(), meterRegistry, new ObjectMapper());
+    }
+
+    @AfterEach
+    void stopStubs() {
+        router.close();
+        primary.close();
+        secondary.close();
+    }
+
+    @Test
+    void aFailedCallFallsBackToTheNextProvider() {
+        primary.failNext(400, null);
+
+        assertThat(summarize()).isEqualTo("Secondary question?");
+        assertThat(primary.requestCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("model.route.fallbacks").tags("provider", "secondary").counter().count()).isEqualTo(1);
+        assertThat(secondary.requestBodies()).singleElement().asString().contains("\"model\":\"secondary-model\"");
+    }
+
+    @Test
+    void aProviderThatKeepsFailingIsTriedLast() {
+        primary.failNext(400, null).failNext(400, null);
+        summarize();
+        summarize();
+
+        assertThat(summarize()).isEqualTo("Secondary question?");
+        assertThat(primary.requestCount()).as("the third call skips the failing provider").isEqualTo(2);
+        assertThat(meterRegistry.get("model.route.error.rate").tags("call_type", "SUMMARY", "provider", "primary").gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void aSlowProviderIsHedgedAndTheFasterAnswerWins() {
+        primary.withLatency(Duration.ofSeconds(2));
+        long started = System.nanoTime();
+
+        assertThat(client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.MEDIUM)).isEqualTo("Secondary question?");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("model.route.hedges").tags("call_type", "OPENING").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("model.tokens").tags("provider", "secondary", "kind", "prompt").counter().count())
+                .isEqualTo(StubModelServer.PROMPT_TOKENS);
+    }
+
+    @Test
+    void providersThatAnswerInTimeAreNotHedged() {
+        assertThat(client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.MEDIUM)).isEqualTo("Primary question?");
+        assertThat(secondary.requestCount()).isZero();
+    }
+
+    private String summarize() {
+        return client.summarizeConversation(1L, "Backend Engineer", DifficultyLevel.MEDIUM, null, List.of());
+    }
+
+    private ModelProvider provider(String name, StubModelServer stub) {
+        return new OpenAiCompatibleProvider(name, "test-key", name + "-model", stub.baseUrl(), false,
+                OpenAiResilienceTest.fastRetries(), ModelAdmissionController.unlimited(), meterRegistry, new ObjectMapper());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Retries, backoff and the circuit breaker against a stub that answers 429s, 5xx and dropped connections
+class OpenAiResilienceTest {
+
+    private StubModelServer stub;
+    private OpenAiClientService client;
+
+    // Three attempts with millisecond backoff; the circuit opens after three consecutive failures
+    static ModelClientSettings fastRetries() {
+        return new ModelClientSettings(16, Duration.ofSeconds(1), 3, Duration.ofMillis(1), Duration.ofMillis(5),
+                Duration.ofSeconds(2), 3, Duration.ofMinutes(1));
+    }
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = new StubModelServer().withReply("What is a B-tree?");
+        client = new OpenAiClientService("test-key", "gpt-4o-mini", stub.baseUrl(), false,
+                fastRetries(), CompletionCache.disabled(), ModelAdmissionController.unlimited(),
+                new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void rateLimitIsRetriedAfterTheProvidersRetryAfter() {
+        stub.failNext(429, "1");
+        long started = System.nanoTime();
+
+        assertThat(open()).isEqualTo("What is a B-tree?");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+        assertThat(stub.requestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void retryAfterLongerThanTheClientWillWaitIsReportedToTheCaller() {
+        stub.failNext(429, "120");
+
+        assertThatThrownBy(this::open)
+                .isInstanceOfSatisfying(ModelRateLimitedException.class,
+                        exception -> assertThat(exception.getRetryAfter()).isEqualTo(Duration.ofSeconds(120)));
+        assertThat(stub.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void droppedConnectionsAndServerErrorsAreRetried() {
+        stub.resetNext().failNext(503, null);
+
+        assertThat(open()).isEqualTo("What is a B-tree?");
+        assertThat(stub.requestCount()).isEqualTo(3);
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void authenticationFailuresAreNotRetried() {
+        stub.failNext(401, null);
+
+        assertThatThrownBy(this::open).isInstanceOf(ModelAuthenticationException.class);
+        assertThat(stub.requestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndThenFailsFast() {
+        stub.failNext(500, null).failNext(502, null).failNext(503, null);
+
+        assertThatThrownBy(this::open)
+                .isInstanceOfSatisfying(ModelUnavailableException.class,
+                        exception -> assertThat(exception.getStatusCode()).isEqualTo(503));
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(this::open)
+                .isInstanceOfSatisfying(ModelUnavailableException.class,
+                        exception -> assertThat(exception.getRetryAfter()).isPositive());
+        assertThat(stub.requestCount()).isEqualTo(3);
+    }
+
+    private String open() {
+        return client.generateOpeningQuestion("Backend Engineer", DifficultyLevel.MEDIUM);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Streamed interviewer replies against a local OpenAI-compatible stub
+class OpenAiStreamingTest {
+
+    private final List<String> deltas = new CopyOnWriteArrayList<>();
+    private StubModelServer primary;
+    private OpenAiClientService client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        primary = new StubModelServer().withReply("Tell me about your last project.");
+        client = new OpenAiClientService("test-key", "gpt-4o-mini", primary.baseUrl(), false,
+                OpenAiResilienceTest.fastRetries(), CompletionCache.disabled(), ModelAdmissionController.unlimited(),
+                new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void stopStub() {
+        primary.close();
+    }
+
+    @Test
+    void deltasAreForwardedAsTheyArrive() {
+        String reply = stream();
+
+        assertThat(deltas).containsExactly("Tell ", "me ", "about ", "your ", "last ", "project.");
+        assertThat(reply).isEqualTo("Tell me about your last project.");
+        assertThat(primary.requestBodies()).singleElement().asString().contains("\"stream\":true");
+    }
+
+    private String stream() {
+        return client.streamInterviewerReply("Backend Engineer", DifficultyLevel.EASY, new ConversationContext(null, List.of()), deltas::add);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Refills run synchronously here, so each assertion sees the pool right after the refill it triggered
+class OpeningQuestionPoolTest {
+
+    private StubModelServer stub;
+    private OpeningQuestionPool pool;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = new StubModelServer().withReply("Walk me through a cache you built.");
+        OpenAiClientService client = new OpenAiClientService("test-key", "gpt-4o-mini", stub.baseUrl(), false,
+                OpenAiResilienceTest.fastRetries(), CompletionCache.disabled(), ModelAdmissionController.unlimited(),
+                new SimpleMeterRegistry(), new ObjectMapper());
+        pool = new OpeningQuestionPool(client, new SyncTaskExecutor(), 3, 1, 2, Duration.ofHours(1), 100, Duration.ofHours(1), List.of());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void popularKeysAreServedFromThePoolAfterTheirSecondRequest() {
+        pool.take("Backend Engineer", DifficultyLevel.MEDIUM);
+        assertThat(stub.requestCount()).as("a one-off key is not prefetched").isEqualTo(1);
+
+        // Second request: a live call, then the pool for the key is filled
+        pool.take("backend  engineer ", DifficultyLevel.MEDIUM);
+        assertThat(stub.requestCount()).isEqualTo(1 + 1 + 3);
+
+        // Served from the pool; taking the last pooled question triggers the next refill
+        assertThat(pool.take("BACKEND ENGINEER", DifficultyLevel.MEDIUM)).isEqualTo("Walk me through a cache you built.");
+        pool.take("Backend Engineer", DifficultyLevel.MEDIUM);
+        assertThat(stub.requestCount()).isEqualTo(5);
+        pool.take("Backend Engineer", DifficultyLevel.MEDIUM);
+        assertThat(stub.requestCount()).isEqualTo(5 + 3);
+    }
+
+    @Test
+    void difficultiesHaveSeparatePools() {
+        assertThat(OpeningQuestionPool.key(" Data  Engineer", DifficultyLevel.EASY))
+                .isEqualTo("data engineer|EASY")
+                .isNotEqualTo(OpeningQuestionPool.key("Data Engineer", DifficultyLevel.HARD));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.aiinterviewprep.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Token-stream parsing of completions and evaluator feedback, including the fields it has to skip over
+class ResponseParsingTest {
+
+    private final OpenAiCompatibleProvider provider = new OpenAiCompatibleProvider("openai", "test-key", "gpt-4o-mini",
+            "http://127.0.0.1:9/v1", false, OpenAiResilienceTest.fastRetries(), ModelAdmissionController.unlimited(),
+            new SimpleMeterRegistry(), new ObjectMapper());
+    private final OpenAiClientService client = new OpenAiClientService(ModelRouter.single(provider, new SimpleMeterRegistry()),
+            CompletionCache.disabled(), new SimpleMeterRegistry(), new ObjectMapper());
+
+    @Test
+    void contentAndUsageAreReadPastUnrelatedFields() {
+        ModelCompletion completion = provider.parseCompletion(body("{\"id\":\"chatcmpl-1\"," +
+                "\"system_fingerprint\":{\"nested\":[1,{\"content\":\"not this\"}]}," +
+                "\"choices\":[{\"index\":0,\"logprobs\":null,\"message\":{\"role\":\"assistant\",\"refusal\":null," +
+                "\"content\":\"  What is a B-tree?  \"}},{\"message\":{\"content\":\"second choice\"}}]," +
+                "\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":5,\"completion_tokens_details\":{\"reasoning_tokens\":0}}}"), 200);
+
+        assertThat(completion.getContent()).isEqualTo("What is a B-tree?");
+        assertThat(completion.getPromptTokens()).isEqualTo(12);
+        assertThat(completion.getCompletionTokens()).isEqualTo(5);
+        assertThat(completion.getModel()).isEqualTo("gpt-4o-mini");
+    }
+
+    @Test
+    void missingChoicesAndEmptyContentAreProviderErrors() {
+        assertThatThrownBy(() -> provider.parseCompletion(body("{\"choices\":[]}"), 200))
+                .isInstanceOf(ModelProviderException.class)
+                .hasMessageContaining("did not include choices");
+        assertThatThrownBy(() -> provider.parseCompletion(body("{\"choices\":[{\"message\":{\"content\":null}}]}"), 200))
+                .isInstanceOf(ModelProviderException.class)
+                .hasMessageContaining("content was empty");
+        assertThatThrownBy(() -> provider.parseCompletion(body("{\"choices\":[{\"message\":"), 200))
+                .isInstanceOf(ModelProviderException.class)
+                .hasMessageContaining("could not be parsed");
+    }
+
+    @Test
+    void feedbackIsBoundWithDefaultsForMissingOrMistypedFields() {
+        OpenAiClientService.SessionFeedback feedback = client.parseFeedback(
+                "{\"strengths\":\" Clear structure. \",\"areasForImprovement\":{\"items\":[\"depth\"]}," +
+                "\"overallComments\":\"\",\"score\":14,\"extra\":[1,2]}");
+
+        assertThat(feedback.getStrengths()).isEqualTo("Clear structure.");
+        assertThat(feedback.getAreasForImprovement()).isEqualTo("Add more concrete examples and deeper trade-off analysis.");
+        assertThat(feedback.getOverallComments()).isEqualTo("Solid attempt. Continue practicing with structured examples.");
+        assertThat(feedback.getScore()).isEqualTo(10);
+    }
+
+    @Test
+    void feedbackThatIsNotJsonFallsBackToTheRawText() {
+        OpenAiClientService.SessionFeedback feedback = client.parseFeedback("Overall a good session, 8/10.");
+
+        assertThat(feedback.getOverallComments()).isEqualTo("Overall a good session, 8/10.");
+        assertThat(feedback.getScore()).isEqualTo(7);
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.aiinterviewprep.service;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The startup profile builds the schema from db/migration instead of Hibernate's ddl-auto=update. The migrations,
+// applied to an empty database, must give every table and column (and its nullability) that Hibernate gives the
+// dev database the other tests run against; a new entity field without a migration fails here.
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "openai.api.key=test-key"})
+@ActiveProfiles("dev")
+class SchemaMigrationTest {
+
+    // hte_ tables are Hibernate's global temporary tables for multi-table mutations, created at runtime, not mapped
+    private static final String COLUMNS =
+            "select table_name, column_name, is_nullable from information_schema.columns where table_schema = 'PUBLIC' "
+                    + "and lower(table_name) not like 'hte\\_%' escape '\\'";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void migrationsCreateTheSchemaHibernateMaps() {
+        DataSource migrated = new DriverManagerDataSource("jdbc:h2:mem:migrated;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        Flyway.configure().dataSource(migrated).locations("classpath:db/migration").load().migrate();
+
+        assertThat(columns(migrated)).isEqualTo(columns(dataSource));
+    }
+
+    // The upgrade path in application-startup.properties: a database ddl-auto=update created is baselined at
+    // version 1, and every later migration must then apply on top of the columns Hibernate already added
+    @Test
+    void migrationsApplyToADatabaseHibernateCreated() {
+        DataSource upgraded = new DriverManagerDataSource("jdbc:h2:mem:upgraded;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "");
+        JdbcTemplate target = new JdbcTemplate(upgraded);
+        new JdbcTemplate(dataSource).query("script nodata", resultSet -> {
+            target.execute(resultSet.getString(1));
+        });
+
+        MigrateResult result = Flyway.configure().dataSource(upgraded).locations("classpath:db/migration")
+                .baselineOnMigrate(true).load().migrate();
+
+        assertThat(result.migrationsExecuted).isPositive();
+        assertThat(columns(upgraded)).isEqualTo(columns(dataSource));
+    }
+
+    private static Set<String> columns(DataSource dataSource) {
+        Set<String> columns = new TreeSet<>();
+        new JdbcTemplate(dataSource).query(COLUMNS, resultSet -> {
+            String table = resultSet.getString("table_name").toLowerCase();
+            if (!table.equals("flyway_schema_history")) {
+                columns.add(table + "." + resultSet.getString("column_name").toLowerCase()
+                        + ("YES".equals(resultSet.getString("is_nullable")) ? " null" : " not null"));
+            }
+        });
+        return columns;
+    }
+}
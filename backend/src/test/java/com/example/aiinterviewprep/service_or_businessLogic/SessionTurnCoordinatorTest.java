@@ -0,0 +1,132 @@
+package com.example.aiinterviewprep.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Ordering of turns within a session, and coalescing of submissions that share an idempotency key
+class SessionTurnCoordinatorTest {
+
+    private final SessionTurnCoordinator coordinator = new SessionTurnCoordinator(Duration.ofSeconds(5), Duration.ofMinutes(10), 1000);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    void turnsOfOneSessionNeverOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        CompletableFuture<?>[] turns = new CompletableFuture<?>[20];
+        for (int index = 0; index < turns.length; index++) {
+            turns[index] = CompletableFuture.runAsync(() -> coordinator.runExclusively(1L, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                return running.decrementAndGet();
+            }), executor);
+        }
+        CompletableFuture.allOf(turns).get(10, TimeUnit.SECONDS);
+
+        assertThat(peak.get()).isEqualTo(1);
+    }
+
+    @Test
+    void differentSessionsDoNotWaitForEachOther() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> coordinator.runExclusively(1L, () -> await(bothRunning)), executor);
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> coordinator.runExclusively(2L, () -> await(bothRunning)), executor);
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void duplicateSubmissionsShareOneTurn() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<InterviewConversationService.MessageResponse> first = CompletableFuture.supplyAsync(() ->
+                coordinator.submit(1L, "answer-1", () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    block(release);
+                    return reply("Why a B-tree?");
+                }), executor);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<InterviewConversationService.MessageResponse> duplicate = CompletableFuture.supplyAsync(() ->
+                coordinator.submit(1L, "answer-1", () -> {
+                    calls.incrementAndGet();
+                    return reply("a second turn");
+                }), executor);
+
+        sleep(50);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getInterviewerMessage()).isEqualTo("Why a B-tree?");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getInterviewerMessage()).isEqualTo("Why a B-tree?");
+        assertThat(coordinator.submit(1L, "answer-1", () -> reply("a third turn")).getInterviewerMessage()).isEqualTo("Why a B-tree?");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedSubmissionCanBeRetriedWithTheSameKey() {
+        assertThatThrownBy(() -> coordinator.submit(1L, "answer-1", () -> {
+            throw new OptimisticLockingFailureException("raced");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(coordinator.submit(1L, "answer-1", () -> reply("Retried.")).getInterviewerMessage()).isEqualTo("Retried.");
+    }
+
+    @Test
+    void waitingLongerThanTheLockTimeoutIsAConflict() throws Exception {
+        SessionTurnCoordinator impatient = new SessionTurnCoordinator(Duration.ofMillis(50), Duration.ofMinutes(10), 1000);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(() -> impatient.runExclusively(1L, () -> block(release)), executor);
+        sleep(20);
+
+        assertThatThrownBy(() -> impatient.runExclusively(1L, () -> true))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static InterviewConversationService.MessageResponse reply(String text) {
+        InterviewConversationService.MessageResponse response = new InterviewConversationService.MessageResponse();
+        response.setSessionId(1L);
+        response.setInterviewerMessage(text);
+        return response;
+    }
+
+    // Counts down, then waits for the others to count down too
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        return block(latch);
+    }
+
+    private static boolean block(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.AiInterviewPrepApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Time to start, and latency of the first and second request, for the application in a fresh JVM each time:
+// as configured by default (Hibernate ddl-auto=update, every bean created at startup) and with the startup profile
+// (Flyway migrations, lazy initialization). After mvn package -Pfast-startup it also measures the packaged
+// application with its AOT bean definitions and class-data-sharing archive. All modes use the in-memory H2 database
+// and a local stub model. Run with: mvn test -Pbenchmarks
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    private static final Pattern STARTED = Pattern.compile("Started AiInterviewPrepApplication in ([0-9.]+) seconds");
+    private static final Pattern PORT = Pattern.compile("Tomcat started on port (\\d+)");
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(120);
+    private static final Path PACKAGED = Path.of("target", "application");
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void startupProfileIsMeasuredAgainstTheDefault() throws Exception {
+        try (StubModelServer stubModel = new StubModelServer()) {
+            List<Result> results = new ArrayList<>();
+            results.add(measure("default", classpathCommand("dev"), stubModel));
+            results.add(measure("startup", classpathCommand("dev,startup"), stubModel));
+            if (Files.exists(PACKAGED.resolve("application.jsa"))) {
+                results.add(measure("aot+cds", packagedCommand(), stubModel));
+            }
+
+            for (Result result : results) {
+                System.out.printf("startup mode=%s process-to-ready=%d ms reported=%.2f s first-request=%d ms second-request=%d ms%n",
+                        result.mode, result.startupMillis, result.reportedSeconds, result.firstRequestMillis, result.secondRequestMillis);
+                assertThat(result.firstStatus).isEqualTo(200);
+                assertThat(result.secondStatus).isEqualTo(200);
+            }
+        }
+    }
+
+    private Result measure(String mode, List<String> command, StubModelServer stubModel) throws Exception {
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=0");
+        arguments.add("--openai.api.key=test-key");
+        arguments.add("--openai.base-url=" + stubModel.baseUrl());
+        arguments.add("--spring.jpa.show-sql=false");
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(arguments).redirectErrorStream(true).start();
+        try {
+            Result result = new Result(mode);
+            int port = awaitStarted(process, result);
+            result.startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched);
+
+            long started = System.nanoTime();
+            result.firstStatus = startSession(port);
+            result.firstRequestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            started = System.nanoTime();
+            result.secondStatus = startSession(port);
+            result.secondRequestMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return result;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Reads the log until the application reports it has started; later output is drained so the child never blocks
+    private static int awaitStarted(Process process, Result result) throws Exception {
+        CompletableFuture<Integer> ready = new CompletableFuture<>();
+        Thread.ofPlatform().daemon().start(() -> {
+            int port = -1;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Matcher portMatcher = PORT.matcher(line);
+                    if (portMatcher.find()) {
+                        port = Integer.parseInt(portMatcher.group(1));
+                    }
+                    Matcher startedMatcher = STARTED.matcher(line);
+                    if (startedMatcher.find()) {
+                        result.reportedSeconds = Double.parseDouble(startedMatcher.group(1));
+                        ready.complete(port);
+                    }
+                }
+                ready.completeExceptionally(new IllegalStateException(result.mode + " exited before it started."));
+            } catch (IOException exception) {
+                ready.completeExceptionally(exception);
+            }
+        });
+        return ready.get(START_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+    }
+
+    private int startSession(int port) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/interview/session/start"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"role\":\"Startup Engineer\",\"difficulty\":\"MEDIUM\"}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // The test classpath, with devtools' restart off so the child starts the way a deployed application does
+    private static List<String> classpathCommand(String profiles) {
+        return List.of(java(), "-Dspring.devtools.restart.enabled=false", "-cp", System.getProperty("java.class.path"),
+                AiInterviewPrepApplication.class.getName(), "--spring.profiles.active=" + profiles);
+    }
+
+    private static List<String> packagedCommand() {
+        return List.of(java(), "-XX:SharedArchiveFile=" + PACKAGED.resolve("application.jsa"), "-Dspring.aot.enabled=true",
+                "-jar", PACKAGED.resolve("aiinterviewprep-0.0.1-SNAPSHOT.jar").toString(), "--spring.profiles.active=startup",
+                "--spring.datasource.url=jdbc:h2:mem:interview_prep;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.datasource.username=sa", "--spring.datasource.password=");
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static final class Result {
+        private final String mode;
+        private long startupMillis;
+        private double reportedSeconds;
+        private int firstStatus;
+        private long firstRequestMillis;
+        private int secondStatus;
+        private long secondRequestMillis;
+
+        private Result(String mode) {
+            this.mode = mode;
+        }
+    }
+}
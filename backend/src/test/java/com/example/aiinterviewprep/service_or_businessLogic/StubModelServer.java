@@ -0,0 +1,173 @@
+package com.example.aiinterviewprep.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local stand-in for an OpenAI-compatible /chat/completions endpoint that answers with a fixed completion
+// after a configurable latency. Streaming requests get the completion as one SSE chunk per word.
+// Both report token usage (streams in a final chunk). Faults queued with failNext/resetNext are served first,
+// one per request.
+public class StubModelServer implements AutoCloseable {
+
+    static final int PROMPT_TOKENS = 42;
+
+    private final HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final Queue<String> requestBodies = new ConcurrentLinkedQueue<>();
+    private final Queue<Fault> faults = new ConcurrentLinkedQueue<>();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile String reply = "Tell me about a system you designed.";
+
+    public StubModelServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public StubModelServer withLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    StubModelServer withReply(String reply) {
+        this.reply = reply;
+        return this;
+    }
+
+    // The next request is answered with this status, and a Retry-After header when retryAfter is not null
+    StubModelServer failNext(int status, String retryAfter) {
+        faults.add(new Fault(status, retryAfter));
+        return this;
+    }
+
+    // The next request has its connection closed without any response
+    StubModelServer resetNext() {
+        faults.add(new Fault(0, null));
+        return this;
+    }
+
+    int requestCount() {
+        return requestCount.get();
+    }
+
+    // Every request body received so far, oldest first
+    List<String> requestBodies() {
+        return List.copyOf(requestBodies);
+    }
+
+    // Requests being served right now
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    // Highest number of requests that were being served at the same time
+    int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requestBodies.add(requestBody);
+
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        Fault fault = faults.poll();
+        if (fault != null) {
+            fail(exchange, fault);
+            return;
+        }
+
+        if (requestBody.contains("\"stream\":true")) {
+            streamReply(exchange);
+            return;
+        }
+
+        byte[] body = ("{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"" + reply.replace("\"", "\\\"") + "\"}}]," +
+                usage() + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private void streamReply(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream output = exchange.getResponseBody()) {
+            for (String word : reply.split("(?<= )")) {
+                String chunk = "data: {\"choices\":[{\"delta\":{\"content\":\"" + word.replace("\"", "\\\"") + "\"}}]}\n\n";
+                output.write(chunk.getBytes(StandardCharsets.UTF_8));
+                output.flush();
+            }
+            output.write(("data: {\"choices\":[]," + usage() + "}\n\n").getBytes(StandardCharsets.UTF_8));
+            output.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Fixed counts: PROMPT_TOKENS for the request and one completion token per word of the reply
+    private String usage() {
+        int completionTokens = reply.split(" ").length;
+        return "\"usage\":{\"prompt_tokens\":" + PROMPT_TOKENS + ",\"completion_tokens\":" + completionTokens +
+                ",\"total_tokens\":" + (PROMPT_TOKENS + completionTokens) + "}";
+    }
+
+    private void fail(HttpExchange exchange, Fault fault) throws IOException {
+        if (fault.status == 0) {
+            // Closing before any response headers drops the connection
+            exchange.close();
+            return;
+        }
+
+        byte[] body = ("{\"error\":{\"message\":\"Simulated failure " + fault.status + "\"}}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (fault.retryAfter != null) {
+            exchange.getResponseHeaders().add("Retry-After", fault.retryAfter);
+        }
+        exchange.sendResponseHeaders(fault.status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private static class Fault {
+        private final int status;
+        private final String retryAfter;
+
+        private Fault(int status, String retryAfter) {
+            this.status = status;
+            this.retryAfter = retryAfter;
+        }
+    }
+}
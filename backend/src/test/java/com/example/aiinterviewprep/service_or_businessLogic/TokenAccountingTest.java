@@ -0,0 +1,150 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Local token counts, the max_tokens sent per call type, prompt trimming, and the per-session totals and budget
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test-key",
+        "interview.tokens.session-budget=2000"
+})
+@ActiveProfiles("dev")
+class TokenAccountingTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private SessionTokenBudget sessionTokenBudget;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void tokensAreCountedWithTheModelsEncodingAndCachedOnTheMessage() {
+        Tokenizer tokenizer = Tokenizer.forModel("gpt-4o-mini");
+        assertThat(tokenizer.getEncodingName()).isEqualTo("o200k_base");
+        assertThat(tokenizer.count("hello world")).isEqualTo(2);
+        assertThat(Tokenizer.forModel("gpt-4").getEncodingName()).isEqualTo("cl100k_base");
+
+        Message message = new Message(null, MessageRole.CANDIDATE, "hello world");
+        assertThat(tokenizer.count(message)).isEqualTo(2);
+        assertThat(message.getTokenCount()).isEqualTo(2);
+        message.setContent("hello");
+        assertThat(tokenizer.count(message)).isEqualTo(1);
+    }
+
+    @Test
+    void usageIsAddedToTheSessionAndRepliesStopAtTheBudget() {
+        Long sessionId = interviewConversationService.startSession("Token Engineer", DifficultyLevel.MEDIUM).getSessionId();
+        interviewConversationService.processCandidateMessage(sessionId, "I would cache the hot rows.");
+
+        String replyBody = stubModel.requestBodies().stream()
+                .filter(body -> body.contains("I would cache the hot rows."))
+                .findFirst().orElseThrow();
+        assertThat(replyBody).contains("\"max_tokens\":400");
+
+        // One reply: the stub reports 42 prompt tokens and one completion token per word
+        InterviewSession session = interviewSessionRepository.findById(sessionId).orElseThrow();
+        assertThat(session.getPromptTokens()).isEqualTo((long) StubModelServer.PROMPT_TOKENS);
+        assertThat(session.getCompletionTokens()).isEqualTo(7L);
+
+        // Close to the budget, a reply's prompt plus max_tokens no longer fits
+        sessionTokenBudget.record(sessionId, 1500, 0);
+        int requests = stubModel.requestCount();
+        assertThatThrownBy(() -> interviewConversationService.processCandidateMessage(sessionId, "And shard by tenant."))
+                .isInstanceOf(TokenBudgetExceededException.class)
+                .hasMessageContaining("1549 of 2000 tokens");
+        assertThat(stubModel.requestCount()).isEqualTo(requests);
+    }
+
+    @Test
+    void theOldestHistoryIsLeftOutOfAnOversizedPrompt() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OpenAiClientService client = smallPromptClient(meterRegistry);
+
+        List<Message> history = oversizedHistory("Trimmed answer");
+        client.generateInterviewerReply("Token Engineer", DifficultyLevel.MEDIUM, new ConversationContext(null, null, history));
+
+        String body = stubModel.requestBodies().stream()
+                .filter(requestBody -> requestBody.contains("Trimmed answer 5"))
+                .findFirst().orElseThrow();
+        assertThat(body).doesNotContain("Trimmed answer 0");
+        double dropped = meterRegistry.get("model.prompt.trimmed").tag("call_type", "REPLY").counter().count();
+        assertThat(dropped).isGreaterThan(0);
+        for (int turn = (int) dropped; turn < history.size(); turn++) {
+            assertThat(body).contains("Trimmed answer " + turn);
+        }
+    }
+
+    @Test
+    void anOversizedFeedbackPromptIsRefusedRatherThanTrimmed() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OpenAiClientService client = smallPromptClient(meterRegistry);
+        int requests = stubModel.requestCount();
+
+        assertThatThrownBy(() -> client.generateSessionFeedback(null, "Token Engineer", DifficultyLevel.MEDIUM,
+                oversizedHistory("Evaluated answer")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("FEEDBACK");
+        assertThat(stubModel.requestCount()).isEqualTo(requests);
+        assertThat(meterRegistry.find("model.prompt.trimmed").counter()).isNull();
+    }
+
+    // max-prompt-tokens of 300, so six answers of about 45 tokens do not fit
+    private static OpenAiClientService smallPromptClient(SimpleMeterRegistry meterRegistry) {
+        ModelProvider provider = new OpenAiCompatibleProvider("openai", "test-key", "gpt-4o-mini", stubModel.baseUrl(), false,
+                OpenAiResilienceTest.fastRetries(), ModelAdmissionController.unlimited(), meterRegistry, new ObjectMapper());
+        return new OpenAiClientService(ModelRouter.single(provider, meterRegistry), CompletionCache.disabled(),
+                Tokenizer.forModel("gpt-4o-mini"), new ModelTokenSettings(200, 200, 400, 500, 800, 300),
+                SessionTokenBudget.unlimited(), meterRegistry, new ObjectMapper());
+    }
+
+    private static List<Message> oversizedHistory(String label) {
+        List<Message> history = new ArrayList<>();
+        for (int turn = 0; turn < 6; turn++) {
+            history.add(new Message(null, MessageRole.CANDIDATE, label + " " + turn + ": " + "replicas ".repeat(40)));
+        }
+        return history;
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer();
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.FeedbackStatus;
+import com.example.aiinterviewprep.entity.InterviewFeedback;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.InterviewFeedbackRepository;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.example.aiinterviewprep.repository.MessageView;
+import com.example.aiinterviewprep.repository.TranscriptArchiveRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Ended sessions move to a compressed archive and read back through the same paging API
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "openai.api.key=test-key"})
+@ActiveProfiles("dev")
+class TranscriptArchiveTest {
+
+    @Autowired
+    private TranscriptArchiveService transcriptArchiveService;
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private InterviewFeedbackRepository interviewFeedbackRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private TranscriptArchiveRepository transcriptArchiveRepository;
+
+    @Test
+    void anArchivedTranscriptPagesLikeTheLiveOne() {
+        InterviewSession session = endedSession(FeedbackStatus.READY);
+        List<MessageView> before = interviewConversationService.getSessionMessages(session.getId(), null, 200).getMessages();
+
+        assertThat(transcriptArchiveService.archive(session.getId())).isTrue();
+
+        assertThat(messageRepository.findBySessionId(session.getId())).isEmpty();
+        assertThat(transcriptArchiveRepository.findById(session.getId())).hasValueSatisfying(archive -> {
+            assertThat(archive.getMessageCount()).isEqualTo(6);
+            assertThat((long) archive.getContent().length).isLessThan(archive.getRawBytes());
+        });
+
+        InterviewConversationService.MessagePage first = interviewConversationService.getSessionMessages(session.getId(), null, 4);
+        InterviewConversationService.MessagePage second = interviewConversationService.getSessionMessages(session.getId(), first.getNextAfterId(), 4);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(second.isHasMore()).isFalse();
+        List<MessageView> after = new ArrayList<>(first.getMessages());
+        after.addAll(second.getMessages());
+        assertThat(after).extracting(MessageView::getId, MessageView::getRole, MessageView::getContent, MessageView::getCreatedAt)
+                .containsExactlyElementsOf(before.stream()
+                        .map(message -> tuple(message.getId(), message.getRole(), message.getContent(), message.getCreatedAt()))
+                        .toList());
+
+        InterviewSession archived = interviewSessionRepository.findById(session.getId()).orElseThrow();
+        assertThat(transcriptArchiveService.transcript(archived)).extracting(Message::getContent)
+                .containsExactlyElementsOf(before.stream().map(MessageView::getContent).toList());
+    }
+
+    @Test
+    void sessionsWaitingForFeedbackStayInTheMessagesTable() {
+        InterviewSession session = endedSession(FeedbackStatus.PENDING);
+
+        transcriptArchiveService.archiveEndedSessions();
+
+        assertThat(messageRepository.findBySessionId(session.getId())).hasSize(6);
+        assertThat(interviewSessionRepository.findById(session.getId()).orElseThrow().getTranscriptArchivedAt()).isNull();
+    }
+
+    private InterviewSession endedSession(FeedbackStatus feedbackStatus) {
+        InterviewSession session = new InterviewSession("Archive Engineer", DifficultyLevel.MEDIUM);
+        session.setActive(false);
+        session.setEndedAt(LocalDateTime.now().minusDays(2));
+        session = interviewSessionRepository.save(session);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(2).minusHours(1);
+        List<Message> messages = new ArrayList<>();
+        for (int index = 0; index < 6; index++) {
+            Message message = new Message(session, index % 2 == 0 ? MessageRole.INTERVIEWER : MessageRole.CANDIDATE,
+                    "Message " + index + ": how would you keep a cache consistent with \"the\" database?");
+            message.setCreatedAt(start.plusSeconds(index));
+            messages.add(message);
+        }
+        messageRepository.saveAll(messages);
+
+        InterviewFeedback feedback = new InterviewFeedback(session);
+        feedback.setStatus(feedbackStatus);
+        interviewFeedbackRepository.save(feedback);
+        return session;
+    }
+}
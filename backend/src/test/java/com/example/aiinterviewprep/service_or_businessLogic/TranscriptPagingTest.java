@@ -0,0 +1,74 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.Message;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import com.example.aiinterviewprep.repository.MessageView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "openai.api.key=test-key"})
+@ActiveProfiles("dev")
+class TranscriptPagingTest {
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Test
+    void pagesFollowTheKeysetAndAPollAfterTheLastPageIsEmpty() {
+        InterviewSession session = interviewSessionRepository.save(new InterviewSession("Paging Engineer", DifficultyLevel.EASY));
+        // Two messages share a timestamp, so the id breaks the tie
+        LocalDateTime start = LocalDateTime.now();
+        List<Message> messages = new ArrayList<>();
+        for (int index = 0; index < 5; index++) {
+            Message message = new Message(session, index % 2 == 0 ? MessageRole.INTERVIEWER : MessageRole.CANDIDATE, "Message " + index);
+            message.setCreatedAt(start.plusSeconds(index == 2 ? 1 : index));
+            messages.add(message);
+        }
+        List<Long> ids = messageRepository.saveAll(messages).stream().map(Message::getId).toList();
+
+        InterviewConversationService.MessagePage first = interviewConversationService.getSessionMessages(session.getId(), null, 2);
+        assertThat(first.getMessages()).extracting(MessageView::getId).containsExactlyElementsOf(ids.subList(0, 2));
+        assertThat(first.isHasMore()).isTrue();
+
+        InterviewConversationService.MessagePage second = interviewConversationService.getSessionMessages(session.getId(), first.getNextAfterId(), 2);
+        assertThat(second.getMessages()).extracting(MessageView::getId).containsExactlyElementsOf(ids.subList(2, 4));
+        assertThat(second.getMessages()).extracting(MessageView::getContent).containsExactly("Message 2", "Message 3");
+
+        InterviewConversationService.MessagePage last = interviewConversationService.getSessionMessages(session.getId(), second.getNextAfterId(), 2);
+        assertThat(last.getMessages()).extracting(MessageView::getId).containsExactly(ids.get(4));
+        assertThat(last.isHasMore()).isFalse();
+
+        InterviewConversationService.MessagePage poll = interviewConversationService.getSessionMessages(session.getId(), last.getNextAfterId(), 2);
+        assertThat(poll.getMessages()).isEmpty();
+        assertThat(poll.getNextAfterId()).isEqualTo(last.getNextAfterId());
+    }
+
+    @Test
+    void anAfterIdFromAnotherSessionIsRejected() {
+        InterviewSession mine = interviewSessionRepository.save(new InterviewSession("Paging Engineer", DifficultyLevel.EASY));
+        InterviewSession other = interviewSessionRepository.save(new InterviewSession("Paging Engineer", DifficultyLevel.EASY));
+        Message foreign = messageRepository.save(new Message(other, MessageRole.INTERVIEWER, "Not yours"));
+
+        assertThatThrownBy(() -> interviewConversationService.getSessionMessages(mine.getId(), foreign.getId(), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
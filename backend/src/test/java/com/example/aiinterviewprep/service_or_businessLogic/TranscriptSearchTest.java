@@ -0,0 +1,179 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.entity.MessageRole;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import com.example.aiinterviewprep.repository.MessageRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The dev profile searches with the embedded Lucene index. Other test classes share the database,
+// so assertions only look at the sessions a test created.
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "openai.api.key=test-key",
+        "interview.search.lucene.refresh-interval=PT1H"
+})
+@ActiveProfiles("dev")
+class TranscriptSearchTest {
+
+    private static final StubModelServer stubModel = startStub();
+
+    @Autowired
+    private TranscriptSearchService transcriptSearchService;
+
+    @Autowired
+    private LuceneTranscriptSearchIndex luceneTranscriptSearchIndex;
+
+    @Autowired
+    private TranscriptArchiveService transcriptArchiveService;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private TranscriptImportService transcriptImportService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InterviewConversationService interviewConversationService;
+
+    @Autowired
+    private ActiveSessionCache activeSessionCache;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void sessionsAreRankedByRelevanceAndPaged() throws IOException {
+        InterviewSession focused = session("How would you spread keys across cache nodes?",
+                "With consistent hashing on a ring, so adding a node only moves its neighbours' keys. Consistent hashing also bounds rebalancing.");
+        InterviewSession passing = session("How would you shard the user table?",
+                "By tenant id. I have read about consistent hashing, but a lookup table is simpler here.");
+        InterviewSession unrelated = session("How would you shard the user table?", "By hashing the tenant id modulo the shard count.");
+        luceneTranscriptSearchIndex.refresh();
+
+        TranscriptSearchService.SearchPage page = transcriptSearchService.search("\"consistent hashing\"", 0, 50);
+
+        List<Long> ours = page.getResults().stream()
+                .map(TranscriptSearchService.SearchResult::getSessionId)
+                .filter(id -> id.equals(focused.getId()) || id.equals(passing.getId()) || id.equals(unrelated.getId()))
+                .toList();
+        assertThat(ours).containsExactly(focused.getId(), passing.getId());
+        TranscriptSearchService.SearchResult best = page.getResults().stream()
+                .filter(result -> result.getSessionId().equals(focused.getId()))
+                .findFirst().orElseThrow();
+        assertThat(best.getRole()).isEqualTo("Search Engineer");
+        assertThat(best.getSnippets()).singleElement().satisfies(snippet -> {
+            assertThat(snippet.getRole()).isEqualTo(MessageRole.CANDIDATE);
+            assertThat(snippet.getText()).contains("**consistent**").contains("**hashing**");
+        });
+
+        TranscriptSearchService.SearchPage first = transcriptSearchService.search("\"consistent hashing\"", 0, 1);
+        assertThat(first.getResults()).hasSize(1);
+        assertThat(first.isHasMore()).isTrue();
+    }
+
+    @Test
+    void rolledBackMessagesAreNotIndexed() throws IOException {
+        InterviewSession session = session("What is a write-ahead log?", "It records changes before applying them.");
+        // The import joins this transaction, so its event is dropped with it
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transcriptImportService.importSessions(List.of(endedSession(
+                    "What is replication?", "Phantomwidget replication never happened.")));
+            status.setRollbackOnly();
+        });
+        luceneTranscriptSearchIndex.refresh();
+
+        assertThat(transcriptSearchService.search("phantomwidget", 0, 10).getResults()).isEmpty();
+    }
+
+    @Test
+    void theCandidateMessageOfAFailedTurnIsNoLongerFound() throws IOException {
+        Long sessionId = interviewConversationService.startSession("Search Engineer", DifficultyLevel.MEDIUM).getSessionId();
+        long version = activeSessionCache.get(sessionId).getVersion();
+        // Another instance answers a turn meanwhile, so this one loses the version check after its candidate
+        // message was committed (and indexed)
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                interviewSessionRepository.advanceVersion(sessionId, version));
+
+        assertThatThrownBy(() -> interviewConversationService.processCandidateMessage(sessionId, "Quixotrelay handles the failover."))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        luceneTranscriptSearchIndex.refresh();
+
+        assertThat(transcriptSearchService.search("quixotrelay", 0, 10).getResults()).isEmpty();
+    }
+
+    @Test
+    void archivedSessionsAreStillFound() throws IOException {
+        InterviewSession session = session("How does Kafka keep ordering?", "Kafka orders messages within a partition only.");
+        assertThat(transcriptArchiveService.archive(session.getId())).isTrue();
+        assertThat(messageRepository.findBySessionId(session.getId())).isEmpty();
+        luceneTranscriptSearchIndex.refresh();
+
+        TranscriptSearchService.SearchPage page = transcriptSearchService.search("kafka partition ordering", 0, 50);
+
+        assertThat(page.getResults()).filteredOn(result -> result.getSessionId().equals(session.getId()))
+                .singleElement()
+                .satisfies(result -> assertThat(result.getSnippets()).isNotEmpty());
+    }
+
+    @Test
+    void emptyQueriesAreRejected() {
+        assertThatThrownBy(() -> transcriptSearchService.search("  ", 0, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Stored through the import path, which hands the messages to the index when it commits
+    private InterviewSession session(String question, String answer) {
+        Long sessionId = transcriptImportService.importSessions(List.of(endedSession(question, answer))).get(0);
+        return interviewSessionRepository.findById(sessionId).orElseThrow();
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer();
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static TranscriptImportService.SessionImport endedSession(String question, String answer) {
+        LocalDateTime now = LocalDateTime.now();
+        TranscriptImportService.SessionImport session = new TranscriptImportService.SessionImport();
+        session.setRole("Search Engineer");
+        session.setDifficulty(DifficultyLevel.MEDIUM);
+        session.setEndedAt(now);
+        session.setMessages(List.of(
+                new TranscriptImportService.MessageImport(MessageRole.INTERVIEWER, question, now.minusSeconds(1)),
+                new TranscriptImportService.MessageImport(MessageRole.CANDIDATE, answer, now)));
+        return session;
+    }
+}
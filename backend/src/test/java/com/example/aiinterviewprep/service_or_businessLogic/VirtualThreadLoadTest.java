@@ -0,0 +1,121 @@
+package com.example.aiinterviewprep.service;
+
+import com.example.aiinterviewprep.entity.DifficultyLevel;
+import com.example.aiinterviewprep.entity.InterviewSession;
+import com.example.aiinterviewprep.repository.InterviewSessionRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Several thousand interview turns in flight at once against a slow stub model, all going through
+// Tomcat, the conversation service and the outbound HttpClient. Run with: mvn test -Pload-tests
+@Tag("load")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.threads.virtual.enabled=true",
+                "spring.jpa.show-sql=false",
+                "server.tomcat.accept-count=4096",
+                "openai.client.max-concurrent-requests=4096",
+                "openai.admission.requests-per-minute=0",
+                "openai.api.key=test-key"
+        }
+)
+@ActiveProfiles("dev")
+class VirtualThreadLoadTest {
+
+    private static final int TURNS = 2500;
+    private static final int DEFAULT_TOMCAT_WORKERS = 200;
+    private static final Duration MODEL_LATENCY = Duration.ofSeconds(30);
+
+    private static final StubModelServer stubModel = startStub();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private InterviewSessionRepository interviewSessionRepository;
+
+    @DynamicPropertySource
+    static void modelProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", stubModel::baseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stubModel.close();
+    }
+
+    @Test
+    void thousandsOfConcurrentTurnsCompleteWithoutThreadExhaustion() throws Exception {
+        List<InterviewSession> sessions = new ArrayList<>();
+        for (int index = 0; index < TURNS; index++) {
+            sessions.add(new InterviewSession("Backend Engineer", DifficultyLevel.MEDIUM));
+        }
+        List<Long> sessionIds = interviewSessionRepository.saveAll(sessions).stream()
+                .map(InterviewSession::getId)
+                .toList();
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long sessionId : sessionIds) {
+                results.add(callers.submit(() -> postTurn(client, sessionId)));
+            }
+        }
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(200);
+        }
+        assertThat(stubModel.requestCount()).isEqualTo(TURNS);
+        // Far more turns were parked on the model at once than a platform worker pool could hold,
+        // while the JVM (test client included) never needed that many platform threads
+        assertThat(stubModel.peakInFlight()).isGreaterThan(4 * DEFAULT_TOMCAT_WORKERS);
+        assertThat(threads.getPeakThreadCount()).isLessThan(DEFAULT_TOMCAT_WORKERS);
+    }
+
+    private int postTurn(HttpClient client, Long sessionId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/api/interview/session/" + sessionId + "/message"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(3))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"content\":\"I would shard by tenant id.\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static StubModelServer startStub() {
+        try {
+            return new StubModelServer().withLatency(MODEL_LATENCY);
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState } from 'react';
+import React, { useRef, useState } from 'react';
 import axios from 'axios';
 import RoleSelection from './components/RoleSelection';
 import InterviewSession from './components/InterviewSession';
@@ -6,8 +6,9 @@ import {
   Difficulty,
   EndSessionResponse,
   SessionMessage,
-  sendSessionMessage,
+  newIdempotencyKey,
   startSession,
+  streamSessionMessage,
   endSession,
 } from './services/api';
 
@@ -23,6 +24,8 @@ const App: React.FC = () => {
   const [finalFeedback, setFinalFeedback] = useState<EndSessionResponse | null>(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState<string | null>(null);
+  // The answer whose reply has not arrived yet, with the key it was first sent under
+  const pendingAnswer = useRef<{ content: string; idempotencyKey: string } | null>(null);
 
   const getApiErrorMessage = (fallback: string, errorValue: unknown): string => {
     if (axios.isAxiosError(errorValue)) {
@@ -73,24 +76,49 @@ const App: React.FC = () => {
     setError(null);
     setFinalFeedback(null);
 
-    const candidateMessage: SessionMessage = {
-      role: 'CANDIDATE',
-      content: answerText,
-    };
-    setMessages((current) => [...current, candidateMessage]);
+    // Resending the answer that just failed keeps its key, so the server answers it at most once
+    // (and returns the original reply if the first attempt did reach it)
+    const resend = pendingAnswer.current?.content === answerText;
+    if (!resend) {
+      pendingAnswer.current = { content: answerText, idempotencyKey: newIdempotencyKey() };
+      const candidateMessage: SessionMessage = {
+        role: 'CANDIDATE',
+        content: answerText,
+      };
+      setMessages((current) => [...current, candidateMessage]);
+    }
+    const { idempotencyKey } = pendingAnswer.current!;
 
-    try {
-      const response = await sendSessionMessage(sessionId, answerText);
-      setCurrentInterviewerMessage(response.interviewerMessage);
+    // Placeholder bubble that fills in as interviewer deltas arrive
+    setMessages((current) => [...current, { role: 'INTERVIEWER', content: '' }]);
+
+    const updateStreamingReply = (content: string) => {
       setMessages((current) => [
-        ...current,
+        ...current.slice(0, -1),
         {
           role: 'INTERVIEWER',
-          content: response.interviewerMessage,
+          content,
         },
       ]);
+    };
+
+    try {
+      let streamedReply = '';
+      const response = await streamSessionMessage(
+        sessionId,
+        answerText,
+        (delta) => {
+          streamedReply += delta;
+          updateStreamingReply(streamedReply);
+        },
+        idempotencyKey
+      );
+      pendingAnswer.current = null;
+      updateStreamingReply(response.interviewerMessage);
+      setCurrentInterviewerMessage(response.interviewerMessage);
     } catch (err) {
-      setError(getApiErrorMessage('Failed to send your response. Please try again.', err));
+      setMessages((current) => current.slice(0, -1));
+      setError(err instanceof Error && err.message ? err.message : 'Failed to send your response. Please try again.');
       console.error(err);
     } finally {
       setLoading(false);
@@ -126,6 +154,13 @@ const App: React.FC = () => {
     setMessages([]);
     setFinalFeedback(null);
     setError(null);
+    pendingAnswer.current = null;
+  };
+
+  const handleRetryAnswer = () => {
+    if (pendingAnswer.current) {
+      handleAnswerSubmit(pendingAnswer.current.content);
+    }
   };
 
   return (
@@ -133,6 +168,11 @@ const App: React.FC = () => {
       {error && (
         <div style={styles.errorBanner}>
           <p style={styles.errorText}>❌ {error}</p>
+          {appState === 'interviewSession' && pendingAnswer.current && !loading && (
+            <button onClick={handleRetryAnswer} style={styles.retryButton}>
+              Resend answer
+            </button>
+          )}
         </div>
       )}
 
@@ -186,6 +226,16 @@ const styles = {
     margin: 0,
     fontSize: '14px',
   },
+  retryButton: {
+    marginTop: '10px',
+    padding: '6px 14px',
+    fontSize: '13px',
+    backgroundColor: '#721c24',
+    color: 'white',
+    border: 'none',
+    borderRadius: '4px',
+    cursor: 'pointer',
+  },
   backButton: {
     margin: '20px auto',
     display: 'block',
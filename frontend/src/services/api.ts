@@ -31,8 +31,11 @@ export interface SendMessageResponse {
   interviewerMessage: string;
 }
 
+export type FeedbackStatus = 'PENDING' | 'READY' | 'FAILED';
+
 export interface EndSessionResponse {
   sessionId: number;
+  status: FeedbackStatus;
   strengths: string;
   areasForImprovement: string;
   overallComments: string;
@@ -50,17 +53,129 @@ export const startSession = async (
   return response.data;
 };
 
+// A random v4 UUID. crypto.randomUUID only exists in secure contexts (HTTPS or localhost), so a page served
+// over plain HTTP from another host builds one from crypto.getRandomValues, which is available everywhere.
+export const newIdempotencyKey = (): string => {
+  if (typeof crypto.randomUUID === 'function') {
+    return crypto.randomUUID();
+  }
+  const bytes = crypto.getRandomValues(new Uint8Array(16));
+  bytes[6] = (bytes[6] & 0x0f) | 0x40;
+  bytes[8] = (bytes[8] & 0x3f) | 0x80;
+  const hex = Array.from(bytes, (byte) => byte.toString(16).padStart(2, '0')).join('');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+};
+
+// Reuse the same idempotencyKey when resending an answer: the server then returns the original reply
 export const sendSessionMessage = async (
   sessionId: number,
-  content: string
+  content: string,
+  idempotencyKey: string = newIdempotencyKey()
 ): Promise<SendMessageResponse> => {
   const response = await api.post<SendMessageResponse>(`/session/${sessionId}/message`, {
     content,
+    idempotencyKey,
   });
   return response.data;
 };
 
-export const endSession = async (sessionId: number): Promise<EndSessionResponse> => {
-  const response = await api.post<EndSessionResponse>(`/session/${sessionId}/end`);
+// POST + Server-Sent Events: EventSource only supports GET, so the stream is read with fetch.
+// onDelta receives each fragment of the interviewer reply as it is generated.
+export const streamSessionMessage = async (
+  sessionId: number,
+  content: string,
+  onDelta: (delta: string) => void,
+  idempotencyKey: string = newIdempotencyKey()
+): Promise<SendMessageResponse> => {
+  const response = await fetch(`${API_BASE_URL}/session/${sessionId}/message/stream`, {
+    method: 'POST',
+    headers: {
+      'Content-Type': 'application/json',
+      Accept: 'text/event-stream',
+    },
+    body: JSON.stringify({ content, idempotencyKey }),
+  });
+
+  if (!response.ok || !response.body) {
+    throw new Error(`Streaming request failed with status ${response.status}`);
+  }
+
+  const reader = response.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = '';
+
+  while (true) {
+    const { value, done } = await reader.read();
+    if (done) {
+      break;
+    }
+
+    buffer += decoder.decode(value, { stream: true });
+    const events = buffer.split(/\r?\n\r?\n/);
+    buffer = events.pop() ?? '';
+
+    for (const rawEvent of events) {
+      let eventName = 'message';
+      const dataLines: string[] = [];
+
+      rawEvent.split(/\r?\n/).forEach((line) => {
+        if (line.startsWith('event:')) {
+          eventName = line.slice('event:'.length).trim();
+        } else if (line.startsWith('data:')) {
+          dataLines.push(line.slice('data:'.length));
+        }
+      });
+
+      if (dataLines.length === 0) {
+        continue;
+      }
+
+      const data = JSON.parse(dataLines.join('\n'));
+      if (eventName === 'delta') {
+        onDelta(data.content);
+      } else if (eventName === 'done') {
+        return data as SendMessageResponse;
+      } else if (eventName === 'error') {
+        throw new Error(data.message);
+      }
+    }
+  }
+
+  throw new Error('Stream ended before the interviewer reply was complete.');
+};
+
+export interface MessagePage {
+  sessionId: number;
+  messages: SessionMessage[];
+  nextAfterId: number | null;
+  hasMore: boolean;
+}
+
+// Pass the previous page's nextAfterId to fetch only the messages added since
+export const getSessionMessages = async (
+  sessionId: number,
+  afterId?: number | null,
+  limit = 50
+): Promise<MessagePage> => {
+  const response = await api.get<MessagePage>(`/session/${sessionId}/messages`, {
+    params: { afterId: afterId ?? undefined, limit },
+  });
   return response.data;
 };
+
+// Ending a session returns at once; the feedback is generated in the background and fetched with a
+// long poll that the backend holds until it is ready (or the wait runs out, in which case we ask again).
+export const endSession = async (sessionId: number): Promise<EndSessionResponse> => {
+  let feedback = (await api.post<EndSessionResponse>(`/session/${sessionId}/end`)).data;
+  while (feedback.status === 'PENDING') {
+    feedback = (
+      await api.get<EndSessionResponse>(`/session/${sessionId}/feedback`, {
+        params: { waitSeconds: 25 },
+      })
+    ).data;
+  }
+  if (feedback.status === 'FAILED') {
+    throw new Error('Feedback could not be generated for this session.');
+  }
+  return feedback;
+};